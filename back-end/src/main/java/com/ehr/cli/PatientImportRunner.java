@@ -0,0 +1,71 @@
+package com.ehr.cli;
+
+import com.ehr.dto.PatientImportDto;
+import com.ehr.models.PatientImport;
+import com.ehr.service.PatientImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Imports patients from a file when the application is started with {@code --import-patients=<path>},
+ * then exits with status 0 if the import completed and 1 if not. The format follows the file extension
+ * (.ndjson or .jsonl for NDJSON, anything else CSV) unless {@code --import-format} names it, and
+ * {@code --import-resume=<id>} continues an earlier import of the same file from its checkpoint.
+ * Add {@code --spring.main.web-application-type=none} to run an import without the web server.
+ */
+@Component
+public class PatientImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientImportRunner.class);
+
+    @Autowired
+    private PatientImportService patientImportService;
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String file = option(args, "import-patients");
+        if (file == null) {
+            return;
+        }
+        Path path = Path.of(file);
+        String resume = option(args, "import-resume");
+        String format = option(args, "import-format");
+        PatientImportDto result;
+        try (InputStream input = Files.newInputStream(path)) {
+            result = resume != null
+                    ? patientImportService.resumeImport(Long.parseLong(resume), input)
+                    : patientImportService.startImport(input, format != null
+                            ? PatientImport.Format.valueOf(format.toUpperCase(Locale.ROOT))
+                            : formatOf(path), path.getFileName().toString());
+        }
+        log.info("Import {} of {}: {} after {} rows, {} imported, {} rejected{}", result.getId(), path,
+                result.getStatus(), result.getRowsProcessed(), result.getImportedCount(), result.getRejectedCount(),
+                result.getLastError() == null ? "" : " (" + result.getLastError() + ")");
+        int exitCode = result.getStatus() == PatientImport.ImportStatus.COMPLETED ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static PatientImport.Format formatOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? PatientImport.Format.NDJSON : PatientImport.Format.CSV;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ehr.config;
+
+import com.ehr.models.AppointmentSlot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Brings a database created by an earlier version up to date with what ddl-auto=update cannot change:
+ * it adds tables and columns, but never drops a constraint, widens an enum check or fills a new column
+ * from the rows already there.
+ *
+ * Runs once the entity manager factory has applied its own update, and every step is a no-op on a
+ * schema that is already current, so it is safe on every start.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaUpgrade {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaUpgrade.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void upgrade() {
+        // A slot freed by a cancellation is booked again by a new appointment row
+        dropUniqueConstraints("appointments", "slot_id", "appointment_slots");
+        // HELD and EXPIRED were added after the first release
+        widenEnumCheck("appointment_slots", "status", AppointmentSlot.SlotStatus.class);
+        // booked_count arrived with a default of 0, but a booked or held slot has at least one seat taken
+        backfillBookedCounts();
+    }
+
+    private void dropUniqueConstraints(String table, String column, String referencedTable) {
+        List<String> uniques = constraintsOn(table, column, "UNIQUE");
+        if (uniques.isEmpty()) {
+            return;
+        }
+        // Some databases (H2) let a foreign key take over the unique index on its column, which keeps
+        // the index enforcing uniqueness after the constraint is gone; the key is recreated around the drop
+        List<String> foreignKeys = constraintsOn(table, column, "FOREIGN KEY");
+        for (String name : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + name + "\"");
+        }
+        for (String name : uniques) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + name + "\"");
+            log.info("Schema upgrade: dropped unique constraint {} on {}.{}", name, table, column);
+        }
+        for (String name : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT \"" + name + "\""
+                    + " FOREIGN KEY (" + column + ") REFERENCES " + referencedTable);
+        }
+    }
+
+    private List<String> constraintsOn(String table, String column, String constraintType) {
+        return jdbcTemplate.queryForList("""
+                SELECT tc.constraint_name
+                FROM information_schema.table_constraints tc
+                JOIN information_schema.key_column_usage kcu
+                  ON kcu.constraint_schema = tc.constraint_schema AND kcu.constraint_name = tc.constraint_name
+                  AND kcu.table_name = tc.table_name
+                WHERE tc.constraint_type = ?
+                  AND tc.table_schema = CURRENT_SCHEMA
+                  AND LOWER(tc.table_name) = ?
+                  AND LOWER(kcu.column_name) = ?
+                """, String.class, constraintType, table, column);
+    }
+
+    private void backfillBookedCounts() {
+        int updated = jdbcTemplate.update(
+                "UPDATE appointment_slots SET booked_count = 1 WHERE booked_count = 0 AND status IN ('BOOKED', 'HELD')");
+        if (updated > 0) {
+            log.info("Schema upgrade: set booked_count on {} booked or held slots", updated);
+        }
+    }
+
+    private void widenEnumCheck(String table, String column, Class<? extends Enum<?>> type) {
+        List<String> values = Arrays.stream(type.getEnumConstants()).map(Enum::name).toList();
+        // Only checks that list the enum's values; NOT NULL may also be reported as a check constraint
+        List<Map<String, Object>> checks = jdbcTemplate.queryForList("""
+                SELECT cc.constraint_name, cc.check_clause
+                FROM information_schema.check_constraints cc
+                JOIN information_schema.constraint_column_usage ccu
+                  ON ccu.constraint_schema = cc.constraint_schema AND ccu.constraint_name = cc.constraint_name
+                WHERE ccu.table_schema = CURRENT_SCHEMA
+                  AND LOWER(ccu.table_name) = ?
+                  AND LOWER(ccu.column_name) = ?
+                """, table, column);
+        boolean stale = false;
+        for (Map<String, Object> check : checks) {
+            String name = (String) check.get("constraint_name");
+            String clause = String.valueOf(check.get("check_clause")).toUpperCase(Locale.ROOT);
+            if (!clause.contains("'" + values.get(0) + "'")
+                    || values.stream().allMatch(value -> clause.contains("'" + value + "'"))) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT \"" + name + "\"");
+            stale = true;
+        }
+        if (stale) {
+            String allowed = values.stream().map(value -> "'" + value + "'").collect(Collectors.joining(", "));
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + table + "_" + column + "_check"
+                    + " CHECK (" + column + " IN (" + allowed + "))");
+            log.info("Schema upgrade: {}.{} now accepts {}", table, column, values);
+        }
+    }
+}
@@ -3,14 +3,22 @@ package com.ehr.controller;
 import com.ehr.dto.*;
 import com.ehr.models.Appointment;
 import com.ehr.service.AppointmentService;
+import com.ehr.service.AvailabilityHeatmapService;
+import com.ehr.service.BatchBookingService;
+import com.ehr.service.SlotEventBroadcaster;
+import com.ehr.service.SlotHoldService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -20,6 +28,18 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private SlotEventBroadcaster slotEventBroadcaster;
+
+    @Autowired
+    private BatchBookingService batchBookingService;
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private AvailabilityHeatmapService availabilityHeatmapService;
+
     // Doctor creates available slots
     @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
     @PostMapping("/slots")
@@ -28,6 +48,14 @@ public class AppointmentController {
         return new ResponseEntity<>(createdSlot, HttpStatus.CREATED);
     }
 
+    // Doctor creates many slots at once; overlapping ranges are all reported together
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @PostMapping("/slots/bulk")
+    public ResponseEntity<List<AppointmentSlotResponseDto>> createAppointmentSlots(@Valid @RequestBody AppointmentSlotBulkCreationDto dto) {
+        List<AppointmentSlotResponseDto> createdSlots = appointmentService.createAppointmentSlots(dto);
+        return new ResponseEntity<>(createdSlots, HttpStatus.CREATED);
+    }
+
     // Patient books an appointment
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/book")
@@ -36,6 +64,28 @@ public class AppointmentController {
         return new ResponseEntity<>(bookedAppointment, HttpStatus.CREATED);
     }
 
+    // Patient keeps a slot for a short time while confirming; booking it through /book confirms the hold
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/slots/{slotId}/hold")
+    public ResponseEntity<SlotHoldResponseDto> holdSlot(@PathVariable Long slotId) {
+        return new ResponseEntity<>(slotHoldService.holdSlot(slotId), HttpStatus.CREATED);
+    }
+
+    @PreAuthorize("hasRole('USER')")
+    @DeleteMapping("/slots/{slotId}/hold")
+    public ResponseEntity<Void> releaseSlotHold(@PathVariable Long slotId) {
+        slotHoldService.releaseHold(slotId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Patient books a series of slots at once, all-or-nothing or best-effort, with a result per slot
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/book/batch")
+    public ResponseEntity<BatchBookingResultDto> bookAppointments(@Valid @RequestBody BatchBookingRequestDto dto) {
+        BatchBookingResultDto result = batchBookingService.bookSlots(dto);
+        return new ResponseEntity<>(result, result.getBooked() > 0 ? HttpStatus.CREATED : HttpStatus.OK);
+    }
+
     // Receptionist books a walk-in appointment (can create new patient)
     @PreAuthorize("hasAnyRole('RECEPTIONIST', 'ADMIN')")
     @PostMapping("/walkin")
@@ -57,6 +107,38 @@ public class AppointmentController {
         return ResponseEntity.ok(slots);
     }
 
+    // Next free slots across all doctors, or the doctors of one specialty, e.g. for walk-ins
+    @GetMapping("/slots/earliest")
+    public ResponseEntity<List<AppointmentSlotResponseDto>> getEarliestAvailableSlots(
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (from == null) from = LocalDateTime.now();
+        return ResponseEntity.ok(appointmentService.getEarliestAvailableSlots(from, specialty, limit));
+    }
+
+    // Free and booked slot counts per doctor per day for a calendar month, instead of every slot
+    @GetMapping("/slots/heatmap")
+    public ResponseEntity<AvailabilityHeatmapDto> getAvailabilityHeatmap(
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(required = false) Long doctorId) {
+        if (month == null) month = YearMonth.now();
+
+        return ResponseEntity.ok(availabilityHeatmapService.getHeatmap(month, doctorId));
+    }
+
+    // Live feed of slot changes (created, booked, released, expired, generated) as Server-Sent Events
+    @GetMapping(value = "/slots/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSlotChanges(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (from == null) from = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
+        if (to == null) to = from.plusMonths(1).withHour(23).withMinute(59).withSecond(59);
+
+        return slotEventBroadcaster.subscribe(doctorId, from, to);
+    }
+
     // Get slots for a specific doctor
     @PreAuthorize("hasAnyRole('DOCTOR', 'RECEPTIONIST', 'USER')")
     @GetMapping("/doctors/{doctorId}/slots")
@@ -71,22 +153,79 @@ public class AppointmentController {
         return ResponseEntity.ok(slots);
     }
 
-    // Get appointments for a patient
+    // Keyset-paginated variant of /slots/available; pass nextCursor back as cursor for the next page
+    @GetMapping("/slots/available/page")
+    public ResponseEntity<CursorPageDto<AppointmentSlotResponseDto>> getAvailableSlotPage(
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (from == null) from = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
+        if (to == null) to = from.plusMonths(1).withHour(23).withMinute(59).withSecond(59);
+
+        return ResponseEntity.ok(appointmentService.getAvailableSlotPage(from, to, cursor, limit));
+    }
+
+    // Keyset-paginated variant of /doctors/{doctorId}/slots
+    @PreAuthorize("hasAnyRole('DOCTOR', 'RECEPTIONIST', 'USER')")
+    @GetMapping("/doctors/{doctorId}/slots/page")
+    public ResponseEntity<CursorPageDto<AppointmentSlotResponseDto>> getDoctorSlotPage(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (from == null) from = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
+        if (to == null) to = from.plusMonths(1).withHour(23).withMinute(59).withSecond(59);
+
+        return ResponseEntity.ok(appointmentService.getDoctorSlotPage(doctorId, from, to, cursor, limit));
+    }
+
+    // Get appointments for a patient; unbounded and loads notes, superseded by /patients/{patientId}/page
+    @Deprecated
     @PreAuthorize("hasAnyRole('USER', 'RECEPTIONIST', 'ADMIN')")
     @GetMapping("/patients/{patientId}")
     public ResponseEntity<List<AppointmentResponseDto>> getPatientAppointments(
             @PathVariable Long patientId) {
         List<AppointmentResponseDto> appointments = appointmentService.getPatientAppointments(patientId);
-        return ResponseEntity.ok(appointments);
+        return deprecated("/api/v1/appointments/patients/" + patientId + "/page").body(appointments);
     }
 
-    // Get appointments for a doctor
+    // Get appointments for a doctor; unbounded and loads notes, superseded by /doctors/{doctorId}/appointments/page
+    @Deprecated
     @PreAuthorize("hasAnyRole('DOCTOR', 'RECEPTIONIST', 'ADMIN')")
     @GetMapping("/doctors/{doctorId}/appointments")
     public ResponseEntity<List<AppointmentResponseDto>> getDoctorAppointments(
             @PathVariable Long doctorId) {
         List<AppointmentResponseDto> appointments = appointmentService.getDoctorAppointments(doctorId);
-        return ResponseEntity.ok(appointments);
+        return deprecated("/api/v1/appointments/doctors/" + doctorId + "/appointments/page").body(appointments);
+    }
+
+    // Tells clients the endpoint is going away and where its replacement lives
+    private static ResponseEntity.BodyBuilder deprecated(String successor) {
+        return ResponseEntity.ok()
+                .header("Deprecation", "true")
+                .header(HttpHeaders.LINK, "<" + successor + ">; rel=\"successor-version\"");
+    }
+
+    // Paginated appointment list for a patient, newest first, without notes
+    @PreAuthorize("hasAnyRole('USER', 'RECEPTIONIST', 'ADMIN')")
+    @GetMapping("/patients/{patientId}/page")
+    public ResponseEntity<CursorPageDto<AppointmentSummaryDto>> getPatientAppointmentPage(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(appointmentService.getPatientAppointmentPage(patientId, cursor, limit));
+    }
+
+    // Paginated appointment list for a doctor, newest first, without notes
+    @PreAuthorize("hasAnyRole('DOCTOR', 'RECEPTIONIST', 'ADMIN')")
+    @GetMapping("/doctors/{doctorId}/appointments/page")
+    public ResponseEntity<CursorPageDto<AppointmentSummaryDto>> getDoctorAppointmentPage(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(appointmentService.getDoctorAppointmentPage(doctorId, cursor, limit));
     }
 
     // Update appointment status (e.g., cancel, complete)
@@ -99,6 +238,21 @@ public class AppointmentController {
         return ResponseEntity.ok(updatedAppointment);
     }
 
+    // Move an appointment to another slot in one step; the old slot is only given up once the new one is secured
+    @PreAuthorize("hasAnyRole('USER', 'RECEPTIONIST', 'ADMIN')")
+    @PutMapping("/{appointmentId}/reschedule")
+    public ResponseEntity<AppointmentResponseDto> rescheduleAppointment(
+            @PathVariable Long appointmentId,
+            @Valid @RequestBody AppointmentRescheduleDto dto) {
+        return ResponseEntity.ok(appointmentService.rescheduleAppointment(appointmentId, dto));
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'DOCTOR', 'RECEPTIONIST', 'ADMIN')")
+    @GetMapping("/{appointmentId}/reschedules")
+    public ResponseEntity<List<AppointmentRescheduleResponseDto>> getRescheduleHistory(@PathVariable Long appointmentId) {
+        return ResponseEntity.ok(appointmentService.getRescheduleHistory(appointmentId));
+    }
+
     // Add doctor's notes after appointment
     @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
     @PutMapping("/{appointmentId}/doctor-notes")
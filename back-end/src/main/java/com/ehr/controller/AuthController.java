@@ -12,6 +12,8 @@ import org.springframework.web.bind.annotation.*;
 import com.ehr.dto.*;
 import com.ehr.models.User;
 import com.ehr.models.Staff;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.service.PatientService;
 import com.ehr.service.UserService;
 import com.ehr.service.StaffService;
 import com.ehr.service.CustomUserDetailsService;
@@ -34,6 +36,9 @@ public class AuthController {
     @Autowired
     private StaffService staffService;
 
+    @Autowired
+    private PatientService patientService;
+
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
@@ -80,8 +85,10 @@ public class AuthController {
 
             User user = userService.findByEmailOrPhone(req.getIdentifier()).get();
 
-            // Generate JWT token
-            String token = jwtTokenProvider.generateToken(username, "USER");
+            // Generate JWT token carrying the resolved identity so later requests skip the lookups
+            Long patientId = patientService.findPatientIdByUserId(user.getId()).orElse(null);
+            String token = jwtTokenProvider.generateToken(
+                    JwtPrincipal.forUser(username, user.getRole(), user.getId(), patientId));
 
             // Set JWT in HttpOnly cookie
             setJwtCookie(response, token);
@@ -125,7 +132,8 @@ public class AuthController {
                 Staff foundStaff = staff.get();
 
                 // Generate JWT token
-                String token = jwtTokenProvider.generateToken(foundStaff.getWorkId(), "STAFF");
+                String token = jwtTokenProvider.generateToken(
+                        JwtPrincipal.forStaff(foundStaff.getWorkId(), foundStaff.getRole(), foundStaff.getId()));
 
                 // Set JWT in HttpOnly cookie
                 setJwtCookie(response, token);
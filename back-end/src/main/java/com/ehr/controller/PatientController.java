@@ -1,8 +1,14 @@
 package com.ehr.controller;
 
+import com.ehr.dto.PatientImportDto;
+import com.ehr.dto.PatientImportRejectionDto;
+import com.ehr.dto.PatientMatchDto;
 import com.ehr.dto.PatientResponseDto;
+import com.ehr.dto.PatientSearchPageDto;
 import com.ehr.dto.PatientUpdateDto;
 import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.PatientImport;
+import com.ehr.service.PatientImportService;
 import com.ehr.service.PatientService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +20,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -23,6 +32,9 @@ public class PatientController {
     @Autowired
     private PatientService patientService;
 
+    @Autowired
+    private PatientImportService patientImportService;
+
     /**
      * Helper method to check if current user is staff
      */
@@ -106,4 +118,63 @@ public class PatientController {
         Page<PatientResponseDto> patients = patientService.searchPatientsPaginated(searchTerm, pageable);
         return ResponseEntity.ok(patients);
     }
+
+    // Cursor-paginated variant of /search; pass nextCursor back as cursor for the next page
+    @GetMapping("/search/page")
+    @PreAuthorize("hasRole('STAFF')")
+    public ResponseEntity<PatientSearchPageDto> searchPatientPage(
+            @RequestParam String searchTerm,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(patientService.searchPatientPage(searchTerm, cursor, limit, includeTotal));
+    }
+
+    // Typo-tolerant name lookup, to find an existing record before registering a walk-in
+    @GetMapping("/search/similar")
+    @PreAuthorize("hasRole('STAFF')")
+    public ResponseEntity<List<PatientMatchDto>> findSimilarPatients(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(patientService.findSimilarPatients(name, limit));
+    }
+
+    // Bulk import of the request body: a CSV file with a header row, or NDJSON with one patient per line.
+    // Answers 202 once the upload is in; the import runs in the background and GET /import/{id} shows its progress
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PatientImportDto> importPatients(
+            InputStream body,
+            @RequestParam PatientImport.Format format,
+            @RequestParam(required = false) String source) {
+        return accepted(patientImportService.submitImport(body, format, source));
+    }
+
+    // Send the same file again to continue an import that did not complete from its checkpoint
+    @PostMapping("/import/{importId}/resume")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PatientImportDto> resumeImport(@PathVariable Long importId, InputStream body) {
+        return accepted(patientImportService.submitResume(importId, body));
+    }
+
+    private static ResponseEntity<PatientImportDto> accepted(PatientImportDto patientImport) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/patients/import/" + patientImport.getId()))
+                .body(patientImport);
+    }
+
+    @GetMapping("/import/{importId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PatientImportDto> getImport(@PathVariable Long importId) {
+        return ResponseEntity.ok(patientImportService.getImport(importId));
+    }
+
+    @GetMapping("/import/{importId}/rejections")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<PatientImportRejectionDto>> getImportRejections(
+            @PathVariable Long importId,
+            @RequestParam(defaultValue = "0") long afterRow,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(patientImportService.getRejections(importId, afterRow, limit));
+    }
 }
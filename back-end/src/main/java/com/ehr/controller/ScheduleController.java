@@ -0,0 +1,114 @@
+package com.ehr.controller;
+
+import com.ehr.dto.*;
+import com.ehr.service.ScheduleService;
+import com.ehr.service.SlotGenerationService;
+import com.ehr.service.SlotReconciliationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/schedules")
+public class ScheduleController {
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Autowired
+    private SlotReconciliationService slotReconciliationService;
+
+    // Doctor (or admin) defines a weekly availability template
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @PostMapping("/templates")
+    public ResponseEntity<ScheduleTemplateResponseDto> createTemplate(@Valid @RequestBody ScheduleTemplateCreationDto dto) {
+        ScheduleTemplateResponseDto template = scheduleService.createTemplate(dto);
+        return new ResponseEntity<>(template, HttpStatus.CREATED);
+    }
+
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @GetMapping("/doctors/{doctorId}/templates")
+    public ResponseEntity<List<ScheduleTemplateResponseDto>> getDoctorTemplates(@PathVariable Long doctorId) {
+        return ResponseEntity.ok(scheduleService.getDoctorTemplates(doctorId));
+    }
+
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @DeleteMapping("/templates/{templateId}")
+    public ResponseEntity<ScheduleTemplateResponseDto> deactivateTemplate(@PathVariable Long templateId) {
+        return ResponseEntity.ok(scheduleService.deactivateTemplate(templateId));
+    }
+
+    // Doctor (or admin) blocks out a day or part of a day; templates produce no slots inside it
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @PostMapping("/doctors/{doctorId}/exceptions")
+    public ResponseEntity<ScheduleExceptionDto> addException(@PathVariable Long doctorId,
+                                                             @Valid @RequestBody ScheduleExceptionDto dto) {
+        return new ResponseEntity<>(scheduleService.addException(doctorId, dto), HttpStatus.CREATED);
+    }
+
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @GetMapping("/doctors/{doctorId}/exceptions")
+    public ResponseEntity<List<ScheduleExceptionDto>> getDoctorExceptions(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from == null) from = LocalDate.now();
+        if (to == null) to = from.plusYears(1);
+        return ResponseEntity.ok(scheduleService.getDoctorExceptions(doctorId, from, to));
+    }
+
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @DeleteMapping("/exceptions/{exceptionId}")
+    public ResponseEntity<Void> deleteException(@PathVariable Long exceptionId) {
+        scheduleService.deleteException(exceptionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Expands all active templates now instead of waiting for the nightly run
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/generate")
+    public ResponseEntity<SlotGenerationResultDto> generateSlots(@RequestParam(required = false) Integer horizonDays) {
+        return ResponseEntity.ok(slotGenerationService.generateAll(horizonDays));
+    }
+
+    // Expires past slots and marks no-shows now instead of waiting for the scheduled run
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reconcile")
+    public ResponseEntity<ReconciliationResultDto> reconcile() {
+        return ResponseEntity.ok(slotReconciliationService.reconcile());
+    }
+
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    @PostMapping("/templates/{templateId}/generate")
+    public ResponseEntity<SlotGenerationResultDto> generateTemplateSlots(
+            @PathVariable Long templateId,
+            @RequestParam(required = false) Integer horizonDays) {
+        scheduleService.getTemplateForCurrentStaff(templateId);
+        return ResponseEntity.ok(slotGenerationService.generateForTemplate(templateId, horizonDays));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/holidays")
+    public ResponseEntity<ClinicHolidayDto> addHoliday(@Valid @RequestBody ClinicHolidayDto dto) {
+        return new ResponseEntity<>(scheduleService.addHoliday(dto), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/holidays")
+    public ResponseEntity<List<ClinicHolidayDto>> getHolidays(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from == null) from = LocalDate.now();
+        if (to == null) to = from.plusYears(1);
+        return ResponseEntity.ok(scheduleService.getHolidays(from, to));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ehr.controller;
+
+import com.ehr.dto.AppointmentResponseDto;
+import com.ehr.dto.WaitlistEntryCreationDto;
+import com.ehr.dto.WaitlistEntryResponseDto;
+import com.ehr.service.WaitlistService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/waitlist")
+@PreAuthorize("hasRole('USER')")
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    // Patient asks to be offered any slot with this doctor that opens up inside the window
+    @PostMapping
+    public ResponseEntity<WaitlistEntryResponseDto> joinWaitlist(@Valid @RequestBody WaitlistEntryCreationDto dto) {
+        WaitlistEntryResponseDto entry = waitlistService.joinWaitlist(dto);
+        return new ResponseEntity<>(entry, HttpStatus.CREATED);
+    }
+
+    // Patient's entries, including any open offer and when it expires
+    @GetMapping("/me")
+    public ResponseEntity<List<WaitlistEntryResponseDto>> getMyEntries() {
+        return ResponseEntity.ok(waitlistService.getMyEntries());
+    }
+
+    @DeleteMapping("/{entryId}")
+    public ResponseEntity<WaitlistEntryResponseDto> leaveWaitlist(@PathVariable Long entryId) {
+        return ResponseEntity.ok(waitlistService.leaveWaitlist(entryId));
+    }
+
+    // Books the held slot; fails once the offer has expired
+    @PostMapping("/{entryId}/accept")
+    public ResponseEntity<AppointmentResponseDto> acceptOffer(@PathVariable Long entryId) {
+        AppointmentResponseDto appointment = waitlistService.acceptOffer(entryId);
+        return new ResponseEntity<>(appointment, HttpStatus.CREATED);
+    }
+
+    // Passes the held slot on and keeps the entry in the queue
+    @PostMapping("/{entryId}/decline")
+    public ResponseEntity<WaitlistEntryResponseDto> declineOffer(@PathVariable Long entryId) {
+        return ResponseEntity.ok(waitlistService.declineOffer(entryId));
+    }
+}
@@ -0,0 +1,18 @@
+package com.ehr.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentRescheduleDto {
+    @NotNull(message = "New Appointment Slot ID is required")
+    private Long slotId;
+
+    @Size(max = 500, message = "Reason must not exceed 500 characters")
+    private String reason; // Optional
+}
@@ -0,0 +1,37 @@
+package com.ehr.dto;
+
+import com.ehr.models.AppointmentReschedule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentRescheduleResponseDto {
+    private Long id;
+    private Long appointmentId;
+    private Long fromSlotId;
+    private LocalDateTime fromStartTime;
+    private Long toSlotId;
+    private LocalDateTime toStartTime;
+    private String reason;
+    private String rescheduledBy;
+    private LocalDateTime createdAt;
+
+    public AppointmentRescheduleResponseDto(AppointmentReschedule reschedule) {
+        this.id = reschedule.getId();
+        if (reschedule.getAppointment() != null) {
+            this.appointmentId = reschedule.getAppointment().getId();
+        }
+        this.fromSlotId = reschedule.getFromSlotId();
+        this.fromStartTime = reschedule.getFromStartTime();
+        this.toSlotId = reschedule.getToSlotId();
+        this.toStartTime = reschedule.getToStartTime();
+        this.reason = reschedule.getReason();
+        this.rescheduledBy = reschedule.getRescheduledBy();
+        this.createdAt = reschedule.getCreatedAt();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ehr.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSlotBulkCreationDto {
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotEmpty(message = "At least one slot is required")
+    @Size(max = 500, message = "At most 500 slots can be created per request")
+    private List<@Valid SlotTimeRangeDto> slots;
+
+    @Min(value = 1, message = "Capacity must be at least 1")
+    @Max(value = 500, message = "Capacity must not exceed 500")
+    private Integer capacity; // Seats for every slot in the request, defaults to 1
+}
@@ -1,6 +1,8 @@
 package com.ehr.dto;
 
 import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,4 +24,8 @@ public class AppointmentSlotCreationDto {
     @NotNull(message = "End time is required")
     @FutureOrPresent(message = "End time must be in the present or future")
     private LocalDateTime endTime;
+
+    @Min(value = 1, message = "Capacity must be at least 1")
+    @Max(value = 500, message = "Capacity must not exceed 500")
+    private Integer capacity; // Defaults to 1
 }
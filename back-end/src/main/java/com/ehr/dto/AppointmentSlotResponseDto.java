@@ -17,6 +17,8 @@ public class AppointmentSlotResponseDto {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private AppointmentSlot.SlotStatus status;
+    private int capacity;
+    private int bookedCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -30,7 +32,13 @@ public class AppointmentSlotResponseDto {
         this.startTime = slot.getStartTime();
         this.endTime = slot.getEndTime();
         this.status = slot.getStatus();
+        this.capacity = slot.getCapacity();
+        this.bookedCount = slot.getBookedCount();
         this.createdAt = slot.getCreatedAt();
         this.updatedAt = slot.getUpdatedAt();
     }
+
+    public int getRemainingSeats() {
+        return Math.max(0, capacity - bookedCount);
+    }
 }
@@ -0,0 +1,30 @@
+package com.ehr.dto;
+
+import com.ehr.models.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of an appointment, built directly by a projection query. Leaves out the
+ * patient and doctor notes, which are only needed when a single appointment is opened.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSummaryDto {
+    private Long id;
+    private Long patientId;
+    private String patientFullName;
+    private Long doctorId;
+    private String doctorFullName;
+    private Long slotId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Appointment.AppointmentStatus status;
+    private Appointment.AppointmentType type;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,39 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Free and booked seat counts per doctor per day for one month, for calendar views; a single-patient
+ * slot is one seat. Days without any slots are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityHeatmapDto {
+    private YearMonth month;
+    private List<DoctorDays> doctors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DoctorDays {
+        private Long doctorId;
+        private String doctorFullName;
+        private List<DayCount> days; // in date order
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayCount {
+        private LocalDate date;
+        private long free;
+        private long booked;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingItemDto {
+
+    public enum Outcome {
+        BOOKED,
+        UNAVAILABLE, // already booked, held or no longer offered
+        NOT_FOUND,
+        ROLLED_BACK  // was available, but the all-or-nothing batch failed on another slot
+    }
+
+    private Long slotId;
+    private Outcome outcome;
+    private AppointmentSummaryDto appointment; // only for BOOKED
+}
@@ -0,0 +1,30 @@
+package com.ehr.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingRequestDto {
+
+    public enum Mode {
+        ALL_OR_NOTHING, // any unavailable slot cancels the whole batch
+        BEST_EFFORT     // books whatever is still available
+    }
+
+    @NotEmpty(message = "At least one slot ID is required")
+    @Size(max = 52, message = "At most 52 slots can be booked at once")
+    private List<@NotNull(message = "Slot IDs must not be null") Long> slotIds;
+
+    @NotNull(message = "Booking mode is required")
+    private Mode mode;
+
+    private String notes; // Optional, applied to every appointment in the batch
+}
@@ -0,0 +1,17 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingResultDto {
+    private BatchBookingRequestDto.Mode mode;
+    private int requested;
+    private int booked;
+    private List<BatchBookingItemDto> results; // in request order
+}
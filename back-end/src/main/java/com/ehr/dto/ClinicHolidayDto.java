@@ -0,0 +1,29 @@
+package com.ehr.dto;
+
+import com.ehr.models.ClinicHoliday;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClinicHolidayDto {
+    private Long id;
+
+    @NotNull(message = "Date is required")
+    private LocalDate date;
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    public ClinicHolidayDto(ClinicHoliday holiday) {
+        this.id = holiday.getId();
+        this.date = holiday.getDate();
+        this.name = holiday.getName();
+    }
+}
@@ -0,0 +1,24 @@
+package com.ehr.dto;
+
+import com.ehr.models.PatientImport;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientImportDto {
+    private Long id;
+    private String source;
+    private PatientImport.Format format;
+    private PatientImport.ImportStatus status;
+    private long rowsProcessed;
+    private long importedCount;
+    private long rejectedCount;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
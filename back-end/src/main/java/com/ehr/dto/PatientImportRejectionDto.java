@@ -0,0 +1,13 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientImportRejectionDto {
+    private long rowNumber;
+    private String reason;
+}
@@ -0,0 +1,54 @@
+package com.ehr.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One record of a bulk patient import, as read from a CSV column or an NDJSON property of the same name.
+ * Everything stays text so a bad date or enum value rejects its row rather than the whole file.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientImportRowDto {
+
+    @NotBlank(message = "First name is required")
+    @Size(max = 100, message = "First name must be at most 100 characters")
+    private String firstName;
+
+    @NotBlank(message = "Last name is required")
+    @Size(max = 100, message = "Last name must be at most 100 characters")
+    private String lastName;
+
+    @Email(message = "Invalid email format")
+    @Size(max = 150, message = "Email must be at most 150 characters")
+    private String email;
+
+    @Pattern(regexp = "^\\+?[0-9. ()-]{7,20}$", message = "Invalid phone number format")
+    private String phoneNumber;
+
+    private String dateOfBirth; // ISO-8601, e.g. 1980-04-23
+
+    private String gender;
+
+    @Size(max = 255, message = "Address must be at most 255 characters")
+    private String address;
+
+    private String bloodGroup;
+
+    private String genotype;
+
+    private String maritalStatus;
+
+    @Size(max = 255, message = "Occupation must be at most 255 characters")
+    private String occupation;
+
+    // Initial password; a random one is set when absent
+    @Size(min = 8, max = 72, message = "Password must be 8 to 72 characters")
+    private String password;
+}
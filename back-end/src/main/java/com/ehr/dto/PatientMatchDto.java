@@ -0,0 +1,17 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A patient found by name similarity. The score runs from 0 to 1, where 1 means every word of the
+ * query is one of the patient's names; it is null when the result came from a plain substring search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientMatchDto {
+    private PatientResponseDto patient;
+    private Double score;
+}
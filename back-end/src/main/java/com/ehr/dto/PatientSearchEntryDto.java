@@ -0,0 +1,19 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The searchable fields of one patient, as loaded into the patient search index.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchEntryDto {
+    private Long patientId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phoneNumber;
+}
@@ -0,0 +1,22 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated patient search. Pass {@code nextCursor} back as {@code cursor} to get
+ * the following page; it is null on the last page. {@code totalEstimate} is only filled in when asked for,
+ * and may lag behind registrations by a short while.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchPageDto {
+    private List<PatientResponseDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private Long totalEstimate;
+}
@@ -0,0 +1,14 @@
+package com.ehr.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationResultDto {
+    private long slotsExpired;
+    private long noShowsMarked;
+    private long elapsedMillis;
+}
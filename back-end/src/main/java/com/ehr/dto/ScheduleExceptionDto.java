@@ -0,0 +1,41 @@
+package com.ehr.dto;
+
+import com.ehr.models.ScheduleException;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleExceptionDto {
+    private Long id;
+
+    private Long doctorId; // Taken from the path when creating
+
+    @NotNull(message = "Date is required")
+    private LocalDate date;
+
+    private LocalTime startTime; // Optional; leave both times out for the whole day
+
+    private LocalTime endTime;
+
+    @Size(max = 100, message = "Reason must not exceed 100 characters")
+    private String reason;
+
+    public ScheduleExceptionDto(ScheduleException exception) {
+        this.id = exception.getId();
+        if (exception.getDoctor() != null) {
+            this.doctorId = exception.getDoctor().getId();
+        }
+        this.date = exception.getDate();
+        this.startTime = exception.getStartTime();
+        this.endTime = exception.getEndTime();
+        this.reason = exception.getReason();
+    }
+}
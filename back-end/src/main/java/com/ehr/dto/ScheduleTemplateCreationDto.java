@@ -0,0 +1,50 @@
+package com.ehr.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleTemplateCreationDto {
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotEmpty(message = "At least one day of the week is required")
+    private Set<DayOfWeek> daysOfWeek;
+
+    @NotNull(message = "Start time is required")
+    private LocalTime startTime;
+
+    @NotNull(message = "End time is required")
+    private LocalTime endTime;
+
+    @Min(value = 5, message = "Slots must be at least 5 minutes long")
+    @Max(value = 480, message = "Slots must not exceed 8 hours")
+    private int slotMinutes;
+
+    @Min(value = 1, message = "Slot capacity must be at least 1")
+    @Max(value = 500, message = "Slot capacity must not exceed 500")
+    private Integer slotCapacity; // Defaults to 1
+
+    private boolean skipHolidays = true;
+
+    private LocalDate validFrom; // Defaults to today
+
+    private LocalDate validUntil; // Optional, open-ended when missing
+
+    // Defaults to false: slots are generated into the table. Virtual slots are stored only once booked, and until
+    // then only appear in the available and per-doctor slot lists and the heatmap, not in paged or earliest-slot
+    // listings, the slot feed or waitlist offers
+    private Boolean virtualSlots;
+}
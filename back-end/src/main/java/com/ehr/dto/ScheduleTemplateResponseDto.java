@@ -0,0 +1,50 @@
+package com.ehr.dto;
+
+import com.ehr.models.ScheduleTemplate;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleTemplateResponseDto {
+    private Long id;
+    private Long doctorId;
+    private Set<DayOfWeek> daysOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private int slotMinutes;
+    private int slotCapacity;
+    private boolean skipHolidays;
+    private LocalDate validFrom;
+    private LocalDate validUntil;
+    private boolean active;
+    private boolean virtualSlots;
+    private LocalDate generatedThrough;
+
+    public ScheduleTemplateResponseDto(ScheduleTemplate template) {
+        this.id = template.getId();
+        if (template.getDoctor() != null) {
+            this.doctorId = template.getDoctor().getId();
+        }
+        this.daysOfWeek = template.getDaysOfWeek().isEmpty()
+                ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(template.getDaysOfWeek());
+        this.startTime = template.getStartTime();
+        this.endTime = template.getEndTime();
+        this.slotMinutes = template.getSlotMinutes();
+        this.slotCapacity = template.getSlotCapacity();
+        this.skipHolidays = template.isSkipHolidays();
+        this.validFrom = template.getValidFrom();
+        this.validUntil = template.getValidUntil();
+        this.active = template.isActive();
+        this.virtualSlots = template.isVirtualSlots();
+        this.generatedThrough = template.getGeneratedThrough();
+    }
+}
@@ -0,0 +1,23 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One overlap found while creating slots. {@code index} is the position of the offending range in
+ * the request; it collides either with a stored slot ({@code conflictingSlotId}) or with another
+ * range of the same request ({@code conflictingIndex}).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotConflictDto {
+    private int index;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long conflictingSlotId;
+    private Integer conflictingIndex;
+}
@@ -0,0 +1,21 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One row of the availability heatmap query: the seats in a doctor's stored slots on one day, free and taken.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotDayCountDto {
+    private Long doctorId;
+    private String doctorFullName;
+    private LocalDate date;
+    private long freeSeats;   // seats left in AVAILABLE slots
+    private long bookedSeats; // seats booked or held in slots that are not cancelled or expired
+}
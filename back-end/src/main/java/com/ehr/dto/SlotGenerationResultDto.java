@@ -0,0 +1,17 @@
+package com.ehr.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotGenerationResultDto {
+    private int templatesProcessed;
+    private long slotsCreated;
+    private LocalDate horizonEnd;
+    private long elapsedMillis;
+}
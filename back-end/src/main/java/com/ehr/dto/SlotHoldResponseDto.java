@@ -0,0 +1,15 @@
+package com.ehr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotHoldResponseDto {
+    private Long slotId;
+    private LocalDateTime expiresAt; // book the slot before this to keep it
+}
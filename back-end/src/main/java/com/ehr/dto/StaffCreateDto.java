@@ -25,4 +25,7 @@ public class StaffCreateDto {
 
     @NotNull(message = "Role must be provided")
     private Staff.Role role;
+
+    @Size(max = 100, message = "Specialty must be at most 100 characters")
+    private String specialty;
 }
@@ -0,0 +1,24 @@
+package com.ehr.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryCreationDto {
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotNull(message = "Window start is required")
+    private LocalDateTime windowStart;
+
+    @NotNull(message = "Window end is required")
+    @Future(message = "Window end must be in the future")
+    private LocalDateTime windowEnd;
+}
@@ -0,0 +1,41 @@
+package com.ehr.dto;
+
+import com.ehr.models.WaitlistEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryResponseDto {
+    private Long id;
+    private Long patientId;
+    private Long doctorId;
+    private String doctorFullName;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private WaitlistEntry.WaitlistStatus status;
+    private Long offeredSlotId;
+    private LocalDateTime offerExpiresAt;
+    private LocalDateTime createdAt;
+
+    public WaitlistEntryResponseDto(WaitlistEntry entry) {
+        this.id = entry.getId();
+        if (entry.getPatient() != null) {
+            this.patientId = entry.getPatient().getId();
+        }
+        if (entry.getDoctor() != null) {
+            this.doctorId = entry.getDoctor().getId();
+            this.doctorFullName = entry.getDoctor().getFullName();
+        }
+        this.windowStart = entry.getWindowStart();
+        this.windowEnd = entry.getWindowEnd();
+        this.status = entry.getStatus();
+        this.offeredSlotId = entry.getOfferedSlotId();
+        this.offerExpiresAt = entry.getOfferExpiresAt();
+        this.createdAt = entry.getCreatedAt();
+    }
+}
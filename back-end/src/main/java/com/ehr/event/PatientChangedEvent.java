@@ -0,0 +1,15 @@
+package com.ehr.event;
+
+import com.ehr.dto.PatientSearchEntryDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a patient is created or its searchable fields may have changed. The patient search
+ * index picks up the new values after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class PatientChangedEvent {
+    private final PatientSearchEntryDto patient;
+}
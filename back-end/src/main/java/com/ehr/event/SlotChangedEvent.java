@@ -0,0 +1,26 @@
+package com.ehr.event;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a single slot changes availability. Listeners that keep derived state
+ * (availability index, live feeds) react after the surrounding transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class SlotChangedEvent {
+
+    public enum Type {
+        CREATED,   // new bookable slot
+        BOOKED,    // no longer bookable
+        HELD,      // reserved for a patient for a short time; RELEASED or BOOKED follows
+        RELEASED,  // bookable again, e.g. after a cancellation
+        SEATS_CHANGED, // a seat of a group slot was taken or given back; the slot is still bookable
+        EXPIRED    // removed from availability without being booked
+    }
+
+    private final Type type;
+    private final AppointmentSlotResponseDto slot;
+}
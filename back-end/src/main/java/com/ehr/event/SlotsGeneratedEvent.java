@@ -0,0 +1,18 @@
+package com.ehr.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after a bulk insert of slots for one doctor, where per-slot events would be too many.
+ */
+@Getter
+@AllArgsConstructor
+public class SlotsGeneratedEvent {
+    private final Long doctorId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final long count;
+}
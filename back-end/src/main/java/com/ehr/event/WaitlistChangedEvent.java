@@ -0,0 +1,20 @@
+package com.ehr.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a waitlist entry joins or leaves the queue of entries that can receive offers.
+ */
+@Getter
+@AllArgsConstructor
+public class WaitlistChangedEvent {
+    private final Long entryId;
+    private final Long doctorId;
+    private final LocalDateTime windowStart;
+    private final LocalDateTime windowEnd;
+    private final LocalDateTime createdAt;
+    private final boolean queued; // false when the entry left the queue
+}
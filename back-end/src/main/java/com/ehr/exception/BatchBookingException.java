@@ -0,0 +1,18 @@
+package com.ehr.exception;
+
+import com.ehr.dto.BatchBookingResultDto;
+
+// Thrown to roll back an all-or-nothing batch; carries the per-slot outcome for the response
+public class BatchBookingException extends RuntimeException {
+
+    private final BatchBookingResultDto result;
+
+    public BatchBookingException(BatchBookingResultDto result) {
+        super("Not every slot in the batch is available; nothing was booked.");
+        this.result = result;
+    }
+
+    public BatchBookingResultDto getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ehr.exception;
+
+import com.ehr.dto.SlotConflictDto;
+
+import java.util.List;
+
+public class SlotConflictException extends RuntimeException {
+
+    private final List<SlotConflictDto> conflicts;
+
+    public SlotConflictException(List<SlotConflictDto> conflicts) {
+        super(conflicts.size() == 1
+                ? "The slot overlaps an existing slot."
+                : conflicts.size() + " slot overlaps were found.");
+        this.conflicts = conflicts;
+    }
+
+    public List<SlotConflictDto> getConflicts() {
+        return conflicts;
+    }
+}
@@ -21,8 +21,9 @@ public class Appointment {
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
-    @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "slot_id", nullable = false, unique = true)
+    // Many, because a slot freed by a cancellation can be booked again; at most one appointment per slot is not cancelled
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "slot_id", nullable = false)
     private AppointmentSlot slot;
 
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,53 @@
+package com.ehr.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One move of an appointment from one slot to another. The appointment row itself keeps its id and
+ * always points at the current slot; these rows are its history.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "appointment_reschedules", indexes = {
+        @Index(name = "idx_reschedule_appointment", columnList = "appointment_id")
+})
+public class AppointmentReschedule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "appointment_id", nullable = false)
+    private Appointment appointment;
+
+    @Column(nullable = false)
+    private Long fromSlotId;
+
+    @Column(nullable = false)
+    private LocalDateTime fromStartTime;
+
+    @Column(nullable = false)
+    private Long toSlotId;
+
+    @Column(nullable = false)
+    private LocalDateTime toStartTime;
+
+    @Column(length = 500)
+    private String reason;
+
+    private String rescheduledBy; // username of the patient or staff member who moved it
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -3,12 +3,18 @@ package com.ehr.models;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Data
 @Entity
 @NoArgsConstructor
-@Table(name = "appointment_slots")
+@Table(name = "appointment_slots", indexes = {
+        @Index(name = "idx_appointment_slots_doctor_start", columnList = "doctor_id, start_time"),
+        @Index(name = "idx_appointment_slots_status_start", columnList = "status, start_time")
+})
 public class AppointmentSlot {
 
     @Id
@@ -29,15 +35,37 @@ public class AppointmentSlot {
     @Column(nullable = false)
     private SlotStatus status = SlotStatus.AVAILABLE;
 
+    // Seats, for group sessions and clinics. The slot stays AVAILABLE until bookedCount reaches capacity;
+    // held seats count as booked.
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int capacity = 1;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int bookedCount;
+
+    // While the slot is HELD, exactly one of these names the holder: a waitlist offer or a patient mid-booking
+    private Long heldForEntryId;
+
+    private Long heldByPatientId;
+
+    private LocalDateTime holdExpiresAt;
+
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
 
     public enum SlotStatus {
-        AVAILABLE, BOOKED, CANCELLED
+        AVAILABLE, BOOKED, CANCELLED,
+        HELD, // reserved for one patient until holdExpiresAt
+        EXPIRED // started without being booked
     }
 
+    // Slots in these states no longer occupy the doctor's time and may be overlapped by new slots
+    public static final Set<SlotStatus> INACTIVE_STATUSES = EnumSet.of(SlotStatus.CANCELLED);
+
     @PrePersist
     public void prePersist() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,73 @@
+package com.ehr.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One bulk import of patient records. The counters move forward with every committed chunk, so
+ * rowsProcessed is the checkpoint a resumed import skips to.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "patient_imports")
+public class PatientImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // File name or other label the import was started with
+    private String source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Format format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportStatus status = ImportStatus.RUNNING;
+
+    // Data rows read and settled, imported or rejected, in committed chunks
+    @Column(nullable = false)
+    private long rowsProcessed;
+
+    @Column(nullable = false)
+    private long importedCount;
+
+    @Column(nullable = false)
+    private long rejectedCount;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public enum Format {
+        CSV,    // header row, then one patient per record
+        NDJSON  // one JSON object per line
+    }
+
+    public enum ImportStatus {
+        RUNNING,   // being read, or stopped without a chance to record why
+        COMPLETED, // every row was processed
+        FAILED     // stopped on an error; can be resumed from the checkpoint
+    }
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,32 @@
+package com.ehr.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row of a bulk import that was not imported, with the reason. Rows are numbered from 1, not
+ * counting the CSV header.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "patient_import_rejections", indexes = {
+        @Index(name = "idx_import_rejection_row", columnList = "import_id, row_number")
+})
+public class PatientImportRejection {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "import_id", nullable = false)
+    private PatientImport patientImport;
+
+    @Column(nullable = false)
+    private long rowNumber;
+
+    @Column(nullable = false)
+    private String reason;
+}
@@ -0,0 +1,56 @@
+package com.ehr.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A doctor's absence on one day, e.g. leave or a training morning. Without times it covers the whole day.
+ * Schedule templates produce no slots inside it.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "schedule_exceptions", indexes = {
+        @Index(name = "idx_schedule_exception_doctor_date", columnList = "doctor_id, date")
+})
+public class ScheduleException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Staff doctor;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private LocalTime startTime; // Whole day when both times are null
+
+    private LocalTime endTime;
+
+    @Column(length = 100)
+    private String reason;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+
+    /** True when the exception covers any part of [start, end). */
+    public boolean blocks(LocalDateTime start, LocalDateTime end) {
+        if (startTime == null || endTime == null) {
+            return true;
+        }
+        return start.isBefore(date.atTime(endTime)) && end.isAfter(date.atTime(startTime));
+    }
+}
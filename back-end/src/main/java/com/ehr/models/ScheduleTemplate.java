@@ -0,0 +1,86 @@
+package com.ehr.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Weekly availability of a doctor, e.g. "Mon-Fri 08:00-12:00, 15-minute slots, skip holidays".
+ * The slot generator expands active templates into appointment_slots rows up to a rolling horizon.
+ * Templates opted into virtual slots are never generated: their slots are expanded when availability
+ * is queried, and a row is stored only when one of them is booked or held.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "schedule_templates")
+public class ScheduleTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Staff doctor;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "schedule_template_days", joinColumns = @JoinColumn(name = "template_id"))
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false)
+    private Set<DayOfWeek> daysOfWeek = EnumSet.noneOf(DayOfWeek.class);
+
+    @Column(nullable = false)
+    private LocalTime startTime;
+
+    @Column(nullable = false)
+    private LocalTime endTime;
+
+    @Column(nullable = false)
+    private int slotMinutes;
+
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int slotCapacity = 1; // seats per generated slot
+
+    @Column(nullable = false)
+    private boolean skipHolidays = true;
+
+    @Column(nullable = false)
+    private LocalDate validFrom;
+
+    private LocalDate validUntil; // Open-ended when null
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean virtualSlots;
+
+    private LocalDate generatedThrough; // Last day already expanded into slots
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -27,6 +27,8 @@ public class Staff {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    private String specialty; // e.g. "Cardiology"; only meaningful for doctors
+
     public enum Role {
         DOCTOR, RECEPTIONIST, PHARMACIST, LABTECH, ADMIN
     }
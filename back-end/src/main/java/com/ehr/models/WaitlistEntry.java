@@ -0,0 +1,72 @@
+package com.ehr.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A patient's request to be offered the first slot that frees up with a doctor inside a time window.
+ * Entries are served oldest first.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "waitlist_entries", indexes = {
+        @Index(name = "idx_waitlist_status_window", columnList = "status, window_end"),
+        @Index(name = "idx_waitlist_patient", columnList = "patient_id")
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    private Patient patient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Staff doctor;
+
+    @Column(nullable = false)
+    private LocalDateTime windowStart;
+
+    @Column(nullable = false)
+    private LocalDateTime windowEnd;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    // Set while an offer is open: the slot held for this entry and when the hold lapses
+    private Long offeredSlotId;
+
+    private LocalDateTime offerExpiresAt;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public enum WaitlistStatus {
+        WAITING,   // in the queue
+        OFFERED,   // a released slot is held for this patient
+        FULFILLED, // the patient accepted an offer
+        EXPIRED,   // the window passed or an offer lapsed unanswered
+        CANCELLED  // withdrawn by the patient
+    }
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,15 +1,104 @@
 package com.ehr.repository;
 
+import com.ehr.dto.AppointmentSummaryDto;
 import com.ehr.models.Appointment;
+import com.ehr.models.AppointmentSlot;
 import com.ehr.models.Patient;
 import com.ehr.models.Staff;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    List<Appointment> findByPatientOrderBySlot_StartTimeDesc(Patient patient);
-    List<Appointment> findBySlot_DoctorOrderBySlot_StartTimeDesc(Staff doctor);
-}
\ No newline at end of file
+
+    // One row per appointment with every name the list view shows, and no @Lob columns
+    String SUMMARY_SELECT = "SELECT new com.ehr.dto.AppointmentSummaryDto(a.id, p.id, CONCAT(u.firstName, ' ', u.lastName), " +
+                            "d.id, CONCAT(d.firstName, ' ', d.lastName), s.id, s.startTime, s.endTime, " +
+                            "a.status, a.type, a.createdAt, a.updatedAt) " +
+                            "FROM Appointment a JOIN a.patient p JOIN p.user u JOIN a.slot s JOIN s.doctor d ";
+
+    String EXPORT_FILTER = "s.startTime >= :from AND s.startTime < :to AND a.status IN :statuses " +
+                           "ORDER BY s.startTime ASC, a.id ASC";
+
+    // Newest first; the page continues strictly before (:beforeStart, :beforeId)
+    String BEFORE_CURSOR = "AND s.startTime <= :beforeStart AND (s.startTime < :beforeStart OR a.id < :beforeId) " +
+                           "ORDER BY s.startTime DESC, a.id DESC";
+
+    // Everything AppointmentResponseDto reads is fetched in the same statement
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p JOIN FETCH p.user JOIN FETCH a.slot s JOIN FETCH s.doctor " +
+           "WHERE a.patient = :patient ORDER BY s.startTime DESC")
+    List<Appointment> findByPatientOrderBySlot_StartTimeDesc(@Param("patient") Patient patient);
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p JOIN FETCH p.user JOIN FETCH a.slot s JOIN FETCH s.doctor d " +
+           "WHERE d = :doctor ORDER BY s.startTime DESC")
+    List<Appointment> findBySlot_DoctorOrderBySlot_StartTimeDesc(@Param("doctor") Staff doctor);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id = :patientId " + BEFORE_CURSOR)
+    List<AppointmentSummaryDto> findSummaryPageByPatient(@Param("patientId") Long patientId,
+                                                         @Param("beforeStart") LocalDateTime beforeStart,
+                                                         @Param("beforeId") Long beforeId,
+                                                         Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE d.id = :doctorId " + BEFORE_CURSOR)
+    List<AppointmentSummaryDto> findSummaryPageByDoctor(@Param("doctorId") Long doctorId,
+                                                        @Param("beforeStart") LocalDateTime beforeStart,
+                                                        @Param("beforeId") Long beforeId,
+                                                        Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id = :patientId AND s.id IN :slotIds " +
+           "AND a.status = com.ehr.models.Appointment.AppointmentStatus.SCHEDULED")
+    List<AppointmentSummaryDto> findScheduledSummariesByPatientAndSlots(@Param("patientId") Long patientId,
+                                                                       @Param("slotIds") Collection<Long> slotIds);
+
+    // Notes are a @Lob, so they are written through Hibernate rather than the JDBC batch insert
+    @Modifying
+    @Query("UPDATE Appointment a SET a.notes = :notes WHERE a.patient.id = :patientId AND a.slot.id IN :slotIds " +
+           "AND a.status = com.ehr.models.Appointment.AppointmentStatus.SCHEDULED")
+    int setNotesForScheduled(@Param("patientId") Long patientId, @Param("slotIds") Collection<Long> slotIds,
+                             @Param("notes") String notes);
+
+    // Export streams are read through a server-side cursor in fetch-size chunks; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT + "WHERE " + EXPORT_FILTER)
+    Stream<AppointmentSummaryDto> streamSummaries(@Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to,
+                                                  @Param("statuses") Collection<Appointment.AppointmentStatus> statuses);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT + "WHERE d.id = :doctorId AND " + EXPORT_FILTER)
+    Stream<AppointmentSummaryDto> streamSummariesByDoctor(@Param("doctorId") Long doctorId,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to,
+                                                          @Param("statuses") Collection<Appointment.AppointmentStatus> statuses);
+
+    boolean existsByPatient_IdAndSlot_IdAndStatus(Long patientId, Long slotId, Appointment.AppointmentStatus status);
+
+    @Query("SELECT a.slot.id FROM Appointment a WHERE a.patient.id = :patientId AND a.slot.id IN :slotIds " +
+           "AND a.status = com.ehr.models.Appointment.AppointmentStatus.SCHEDULED")
+    List<Long> findScheduledSlotIds(@Param("patientId") Long patientId, @Param("slotIds") Collection<Long> slotIds);
+
+    // Points a scheduled appointment at its new slot, provided nobody moved or cancelled it in the meantime
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Appointment a SET a.slot = :toSlot, a.updatedAt = :now WHERE a.id = :appointmentId " +
+           "AND a.slot.id = :fromSlotId AND a.status = com.ehr.models.Appointment.AppointmentStatus.SCHEDULED")
+    int moveToSlot(@Param("appointmentId") Long appointmentId, @Param("fromSlotId") Long fromSlotId,
+                   @Param("toSlot") AppointmentSlot toSlot, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.ehr.repository;
+
+import com.ehr.models.AppointmentReschedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AppointmentRescheduleRepository extends JpaRepository<AppointmentReschedule, Long> {
+
+    List<AppointmentReschedule> findByAppointment_IdOrderByCreatedAtAscIdAsc(Long appointmentId);
+}
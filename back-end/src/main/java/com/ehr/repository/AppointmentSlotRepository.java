@@ -1,15 +1,217 @@
 package com.ehr.repository;
 
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.dto.SlotDayCountDto;
 import com.ehr.models.AppointmentSlot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import com.ehr.models.Staff;
 
 @Repository
 public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, Long> {
+
+    // Builds the response DTO in the query itself, joining the doctor's name instead of lazy-loading Staff per row
+    String SLOT_VIEW_SELECT = "SELECT new com.ehr.dto.AppointmentSlotResponseDto(s.id, d.id, CONCAT(d.firstName, ' ', d.lastName), " +
+                              "s.startTime, s.endTime, s.status, s.capacity, s.bookedCount, s.createdAt, s.updatedAt) " +
+                              "FROM AppointmentSlot s JOIN s.doctor d ";
+
+    // Keyset condition for the page after (:afterStart, :afterId). The redundant lower bound keeps it an index range scan.
+    String AFTER_CURSOR = "AND s.startTime >= :afterStart AND (s.startTime > :afterStart OR s.id > :afterId) ";
+
     List<AppointmentSlot> findByStatusAndStartTimeBetweenOrderByStartTimeAsc(AppointmentSlot.SlotStatus status, LocalDateTime from, LocalDateTime to);
     List<AppointmentSlot> findByDoctorAndStartTimeBetweenOrderByStartTimeAsc(Staff doctor, LocalDateTime from, LocalDateTime to);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE s.id = :slotId")
+    Optional<AppointmentSlotResponseDto> findSlotViewById(@Param("slotId") Long slotId);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE s.id IN :slotIds")
+    List<AppointmentSlotResponseDto> findSlotViewsByIds(@Param("slotIds") Collection<Long> slotIds);
+
+    @Query("SELECT s.id FROM AppointmentSlot s WHERE s.id IN :slotIds")
+    List<Long> findExistingIds(@Param("slotIds") Collection<Long> slotIds);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE s.status = :status AND s.startTime BETWEEN :from AND :to ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewsByStatusBetween(@Param("status") AppointmentSlot.SlotStatus status,
+                                                                  @Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE s.status = :status AND s.startTime >= :from ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewsByStatusStartingFrom(@Param("status") AppointmentSlot.SlotStatus status,
+                                                                       @Param("from") LocalDateTime from);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE d.id = :doctorId AND s.status = :status AND s.startTime BETWEEN :from AND :to " +
+           "ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewsByDoctorAndStatusBetween(@Param("doctorId") Long doctorId,
+                                                                           @Param("status") AppointmentSlot.SlotStatus status,
+                                                                           @Param("from") LocalDateTime from,
+                                                                           @Param("to") LocalDateTime to);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE d.id = :doctorId AND s.startTime BETWEEN :from AND :to ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewsByDoctorBetween(@Param("doctorId") Long doctorId,
+                                                                  @Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE s.status = :status AND s.startTime <= :to " + AFTER_CURSOR +
+           "ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewPageByStatus(@Param("status") AppointmentSlot.SlotStatus status,
+                                                              @Param("afterStart") LocalDateTime afterStart,
+                                                              @Param("afterId") Long afterId,
+                                                              @Param("to") LocalDateTime to,
+                                                              Limit limit);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE d.id = :doctorId AND s.startTime <= :to " + AFTER_CURSOR +
+           "ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewPageByDoctor(@Param("doctorId") Long doctorId,
+                                                              @Param("afterStart") LocalDateTime afterStart,
+                                                              @Param("afterId") Long afterId,
+                                                              @Param("to") LocalDateTime to,
+                                                              Limit limit);
+
+    @Query(SLOT_VIEW_SELECT + "WHERE s.status = :status AND s.startTime >= :from AND d.id IN :doctorIds " +
+           "ORDER BY s.startTime ASC, s.id ASC")
+    List<AppointmentSlotResponseDto> findSlotViewsByStatusAndDoctorsStartingFrom(@Param("status") AppointmentSlot.SlotStatus status,
+                                                                             @Param("doctorIds") Collection<Long> doctorIds,
+                                                                             @Param("from") LocalDateTime from,
+                                                                             Limit limit);
+
+    // Per doctor and day counts for the availability heatmap; one grouped scan of the (start_time) range
+    String DAY_COUNT_SELECT = "SELECT new com.ehr.dto.SlotDayCountDto(d.id, CONCAT(d.firstName, ' ', d.lastName), " +
+                              "CAST(s.startTime AS LocalDate), " +
+                              "SUM(CASE WHEN s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE " +
+                              "THEN s.capacity - s.bookedCount ELSE 0 END), " +
+                              "SUM(CASE WHEN s.status IN (com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE, " +
+                              "com.ehr.models.AppointmentSlot.SlotStatus.BOOKED, " +
+                              "com.ehr.models.AppointmentSlot.SlotStatus.HELD) THEN s.bookedCount ELSE 0 END)) " +
+                              "FROM AppointmentSlot s JOIN s.doctor d ";
+    String DAY_COUNT_GROUP = "GROUP BY d.id, d.firstName, d.lastName, CAST(s.startTime AS LocalDate)";
+
+    @Query(DAY_COUNT_SELECT + "WHERE s.startTime >= :from AND s.startTime < :to " + DAY_COUNT_GROUP)
+    List<SlotDayCountDto> countByDoctorAndDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(DAY_COUNT_SELECT + "WHERE d.id = :doctorId AND s.startTime >= :from AND s.startTime < :to " + DAY_COUNT_GROUP)
+    List<SlotDayCountDto> countByDayForDoctor(@Param("doctorId") Long doctorId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+
+    // Stored slots that hide the virtual slots of these doctors in [from, to)
+    @Query(SLOT_VIEW_SELECT + "WHERE d.id IN :doctorIds AND s.status NOT IN :inactive " +
+           "AND s.startTime < :to AND s.endTime > :from")
+    List<AppointmentSlotResponseDto> findLiveSlotViewsByDoctorsOverlapping(@Param("doctorIds") Collection<Long> doctorIds,
+                                                                           @Param("inactive") Collection<AppointmentSlot.SlotStatus> inactive,
+                                                                           @Param("from") LocalDateTime from,
+                                                                           @Param("to") LocalDateTime to);
+
+    // Overlap checks walk the (doctor_id, start_time) index from both ends of a range: the latest live slot
+    // starting at or before it, plus every live slot starting inside it
+    @Query("SELECT s FROM AppointmentSlot s WHERE s.doctor.id = :doctorId AND s.status NOT IN :inactive " +
+           "AND s.startTime <= :at ORDER BY s.startTime DESC")
+    List<AppointmentSlot> findLiveSlotsStartingAtOrBefore(@Param("doctorId") Long doctorId,
+                                                          @Param("inactive") Collection<AppointmentSlot.SlotStatus> inactive,
+                                                          @Param("at") LocalDateTime at,
+                                                          Limit limit);
+
+    @Query("SELECT s FROM AppointmentSlot s WHERE s.doctor.id = :doctorId AND s.status NOT IN :inactive " +
+           "AND s.startTime > :from AND s.startTime < :to ORDER BY s.startTime ASC")
+    List<AppointmentSlot> findLiveSlotsStartingWithin(@Param("doctorId") Long doctorId,
+                                                      @Param("inactive") Collection<AppointmentSlot.SlotStatus> inactive,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    // Takes one seat of an AVAILABLE slot in a single conditional statement, moving it to BOOKED when that
+    // was the last seat. Returns 1 for each caller that got a seat and 0 for everyone else, without reading
+    // the row first or locking it up front; the row lock serializes the increments.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.bookedCount = s.bookedCount + 1, " +
+           "s.status = CASE WHEN s.bookedCount + 1 >= s.capacity THEN com.ehr.models.AppointmentSlot.SlotStatus.BOOKED " +
+           "ELSE com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE END, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE " +
+           "AND s.bookedCount < s.capacity")
+    int claimSlot(@Param("slotId") Long slotId, @Param("now") LocalDateTime now);
+
+    // Reverse of claimSlot, used when a booking is cancelled: gives one seat back and reopens the slot
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.bookedCount = s.bookedCount - 1, " +
+           "s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.bookedCount > 0 AND s.status IN " +
+           "(com.ehr.models.AppointmentSlot.SlotStatus.BOOKED, com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE)")
+    int releaseSlot(@Param("slotId") Long slotId, @Param("now") LocalDateTime now);
+
+    // Waitlist holds. Every transition is conditional on the current holder, so a lapsed or reassigned hold
+    // can never be claimed or released by the previous holder. Holds apply to single-seat slots only, and
+    // the held seat stays counted in bookedCount until the hold is released.
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD, " +
+           "s.heldForEntryId = :entryId, s.holdExpiresAt = :expiresAt, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.BOOKED AND s.capacity = 1")
+    int holdReleasedSlot(@Param("slotId") Long slotId, @Param("entryId") Long entryId,
+                         @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.heldForEntryId = :entryId, s.holdExpiresAt = :expiresAt, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD " +
+           "AND s.heldForEntryId = :previousEntryId")
+    int passHold(@Param("slotId") Long slotId, @Param("previousEntryId") Long previousEntryId, @Param("entryId") Long entryId,
+                 @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.BOOKED, " +
+           "s.heldForEntryId = NULL, s.holdExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD " +
+           "AND s.heldForEntryId = :entryId AND s.holdExpiresAt > :now")
+    int claimHeldSlot(@Param("slotId") Long slotId, @Param("entryId") Long entryId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE, s.bookedCount = 0, " +
+           "s.heldForEntryId = NULL, s.holdExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD AND s.heldForEntryId = :entryId")
+    int releaseHeldSlot(@Param("slotId") Long slotId, @Param("entryId") Long entryId, @Param("now") LocalDateTime now);
+
+    // Patient holds: a short exclusive reservation between picking a slot and confirming the booking
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD, s.bookedCount = 1, " +
+           "s.heldByPatientId = :patientId, s.holdExpiresAt = :expiresAt, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE " +
+           "AND s.capacity = 1 AND s.bookedCount = 0")
+    int holdAvailableSlot(@Param("slotId") Long slotId, @Param("patientId") Long patientId,
+                          @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.BOOKED, " +
+           "s.heldByPatientId = NULL, s.holdExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD " +
+           "AND s.heldByPatientId = :patientId AND s.holdExpiresAt > :now")
+    int claimPatientHold(@Param("slotId") Long slotId, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE, s.bookedCount = 0, " +
+           "s.heldByPatientId = NULL, s.holdExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD AND s.heldByPatientId = :patientId")
+    int releasePatientHold(@Param("slotId") Long slotId, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentSlot s SET s.status = com.ehr.models.AppointmentSlot.SlotStatus.AVAILABLE, s.bookedCount = 0, " +
+           "s.heldByPatientId = NULL, s.holdExpiresAt = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :slotId AND s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD " +
+           "AND s.heldByPatientId IS NOT NULL AND s.holdExpiresAt <= :now")
+    int expirePatientHold(@Param("slotId") Long slotId, @Param("now") LocalDateTime now);
+
+    long countByStatusAndHeldByPatientId(AppointmentSlot.SlotStatus status, Long heldByPatientId);
+
+    List<AppointmentSlot> findByStatus(AppointmentSlot.SlotStatus status);
+
+    // Backstop for holds whose timer was lost, e.g. when the node that took them stopped
+    @Query("SELECT s FROM AppointmentSlot s WHERE s.status = com.ehr.models.AppointmentSlot.SlotStatus.HELD " +
+           "AND s.holdExpiresAt <= :now ORDER BY s.holdExpiresAt ASC")
+    List<AppointmentSlot> findLapsedHolds(@Param("now") LocalDateTime now, Limit limit);
 }
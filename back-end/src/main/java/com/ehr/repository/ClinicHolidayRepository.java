@@ -0,0 +1,14 @@
+package com.ehr.repository;
+
+import com.ehr.models.ClinicHoliday;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ClinicHolidayRepository extends JpaRepository<ClinicHoliday, Long> {
+    List<ClinicHoliday> findByDateBetweenOrderByDateAsc(LocalDate from, LocalDate to);
+    boolean existsByDate(LocalDate date);
+}
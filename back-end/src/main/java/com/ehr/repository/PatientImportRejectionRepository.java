@@ -0,0 +1,19 @@
+package com.ehr.repository;
+
+import com.ehr.dto.PatientImportRejectionDto;
+import com.ehr.models.PatientImportRejection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PatientImportRejectionRepository extends JpaRepository<PatientImportRejection, Long> {
+
+    @Query("SELECT new com.ehr.dto.PatientImportRejectionDto(r.rowNumber, r.reason) FROM PatientImportRejection r " +
+           "WHERE r.patientImport.id = :importId AND r.rowNumber > :afterRow ORDER BY r.rowNumber")
+    List<PatientImportRejectionDto> findByImportAfterRow(@Param("importId") Long importId,
+                                                         @Param("afterRow") long afterRow,
+                                                         Limit limit);
+}
@@ -0,0 +1,7 @@
+package com.ehr.repository;
+
+import com.ehr.models.PatientImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PatientImportRepository extends JpaRepository<PatientImport, Long> {
+}
@@ -1,32 +1,61 @@
 package com.ehr.repository;
+import com.ehr.dto.PatientSearchEntryDto;
 import com.ehr.models.Patient;
 import com.ehr.models.User; // Import User model
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional; // Import Optional
+import java.util.stream.Stream;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
 
+    String SEARCH_PREDICATE = "(LOWER(u.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(u.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "u.phoneNumber LIKE CONCAT('%', :searchTerm, '%')) ";
+
     Optional<Patient> findByUser(User user); // New method
 
-    @Query("SELECT p FROM Patient p JOIN p.user u WHERE " +
-           "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "u.phoneNumber LIKE CONCAT('%', :searchTerm, '%')")
+    @Query("SELECT p.id FROM Patient p WHERE p.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") String userId);
+
+    @Query("SELECT p FROM Patient p JOIN FETCH p.user WHERE p.id = :id")
+    Optional<Patient> findByIdWithUser(@Param("id") Long id);
+
+    @Query("SELECT p FROM Patient p JOIN p.user u WHERE " + SEARCH_PREDICATE)
     List<Patient> searchPatients(@Param("searchTerm") String searchTerm);
 
-    @Query("SELECT p FROM Patient p JOIN p.user u WHERE " +
-           "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "u.phoneNumber LIKE CONCAT('%', :searchTerm, '%')")
+    @Query("SELECT p FROM Patient p JOIN p.user u WHERE " + SEARCH_PREDICATE)
     Page<Patient> searchPatientsPaginated(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Keyset page of the search by id, for when the search index cannot answer; no OFFSET and no count
+    @Query("SELECT p FROM Patient p JOIN FETCH p.user u WHERE " + SEARCH_PREDICATE + "AND p.id > :afterId ORDER BY p.id")
+    List<Patient> searchPatientsAfter(@Param("searchTerm") String searchTerm, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT COUNT(p) FROM Patient p JOIN p.user u WHERE " + SEARCH_PREDICATE)
+    long countSearchMatches(@Param("searchTerm") String searchTerm);
+
+    @Query("SELECT p FROM Patient p JOIN FETCH p.user WHERE p.id IN :ids")
+    List<Patient> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Loads the search index through a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.ehr.dto.PatientSearchEntryDto(p.id, u.firstName, u.lastName, u.email, u.phoneNumber) " +
+           "FROM Patient p JOIN p.user u ORDER BY p.id")
+    Stream<PatientSearchEntryDto> streamSearchEntries();
 }
@@ -0,0 +1,26 @@
+package com.ehr.repository;
+
+import com.ehr.models.ScheduleException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+
+    @Query("SELECT e FROM ScheduleException e WHERE e.doctor.id = :doctorId AND e.date BETWEEN :from AND :to " +
+           "ORDER BY e.date ASC, e.startTime ASC")
+    List<ScheduleException> findByDoctorBetween(@Param("doctorId") Long doctorId,
+                                                @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to);
+
+    @Query("SELECT e FROM ScheduleException e WHERE e.doctor.id IN :doctorIds AND e.date BETWEEN :from AND :to")
+    List<ScheduleException> findByDoctorsBetween(@Param("doctorIds") Collection<Long> doctorIds,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
+}
@@ -0,0 +1,31 @@
+package com.ehr.repository;
+
+import com.ehr.models.ScheduleTemplate;
+import com.ehr.models.Staff;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ScheduleTemplateRepository extends JpaRepository<ScheduleTemplate, Long> {
+    List<ScheduleTemplate> findByActiveTrue();
+    List<ScheduleTemplate> findByDoctorOrderByIdAsc(Staff doctor);
+    boolean existsByActiveTrueAndVirtualSlotsTrue();
+
+    // Templates expanded at query time, with the doctor for the slot views' names
+    @Query("SELECT DISTINCT t FROM ScheduleTemplate t JOIN FETCH t.doctor WHERE t.active = true AND t.virtualSlots = true ORDER BY t.id")
+    List<ScheduleTemplate> findActiveVirtual();
+
+    @Query("SELECT DISTINCT t FROM ScheduleTemplate t JOIN FETCH t.doctor d " +
+           "WHERE t.active = true AND t.virtualSlots = true AND d.id = :doctorId ORDER BY t.id")
+    List<ScheduleTemplate> findActiveVirtualByDoctor(@Param("doctorId") Long doctorId);
+
+    @Modifying
+    @Query("UPDATE ScheduleTemplate t SET t.generatedThrough = :through WHERE t.id = :templateId")
+    int markGeneratedThrough(@Param("templateId") Long templateId, @Param("through") LocalDate through);
+}
@@ -1,11 +1,24 @@
 package com.ehr.repository;
 
+import java.util.List;
 import java.util.Optional;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.ehr.models.Staff;
 
 public interface StaffRepository extends JpaRepository<Staff, Long>{
     Optional<Staff> findByWorkId(String workId);
     boolean existsByWorkId(String workId);
-    
+
+    // Serializes slot creation per doctor so two concurrent overlap checks cannot both pass
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Staff s WHERE s.id = :id")
+    Optional<Staff> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT s.id FROM Staff s WHERE s.role = com.ehr.models.Staff.Role.DOCTOR AND LOWER(s.specialty) = LOWER(:specialty)")
+    List<Long> findDoctorIdsBySpecialty(@Param("specialty") String specialty);
+
 }
@@ -1,11 +1,13 @@
 package com.ehr.repository;
 
+import com.ehr.dto.UserContactDto;
 import com.ehr.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
@@ -19,4 +21,10 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.patient WHERE u.id = :userId")
     Optional<User> findByIdWithPatient(@Param("userId") String userId);
+
+    // Which of the given emails and phone numbers are taken, in one round trip
+    @Query("SELECT new com.ehr.dto.UserContactDto(u.email, u.phoneNumber) FROM User u " +
+           "WHERE u.email IN :emails OR u.phoneNumber IN :phoneNumbers")
+    List<UserContactDto> findContactsByEmailInOrPhoneNumberIn(@Param("emails") Collection<String> emails,
+                                                             @Param("phoneNumbers") Collection<String> phoneNumbers);
 }
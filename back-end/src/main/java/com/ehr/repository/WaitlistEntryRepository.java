@@ -0,0 +1,46 @@
+package com.ehr.repository;
+
+import com.ehr.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    @Query("SELECT e FROM WaitlistEntry e JOIN FETCH e.doctor " +
+           "WHERE e.status = com.ehr.models.WaitlistEntry.WaitlistStatus.WAITING AND e.windowEnd > :now")
+    List<WaitlistEntry> findOpenEntries(@Param("now") LocalDateTime now);
+
+    @Query("SELECT e FROM WaitlistEntry e JOIN FETCH e.doctor WHERE e.patient.id = :patientId ORDER BY e.createdAt DESC")
+    List<WaitlistEntry> findByPatientIdWithDoctor(@Param("patientId") Long patientId);
+
+    long countByPatient_IdAndStatusIn(Long patientId, Collection<WaitlistEntry.WaitlistStatus> statuses);
+
+    // Takes a queued entry for an offer; 0 means another transaction got to it first
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE WaitlistEntry e SET e.status = com.ehr.models.WaitlistEntry.WaitlistStatus.OFFERED, " +
+           "e.offeredSlotId = :slotId, e.offerExpiresAt = :expiresAt, e.updatedAt = :now " +
+           "WHERE e.id = :entryId AND e.status = com.ehr.models.WaitlistEntry.WaitlistStatus.WAITING")
+    int markOffered(@Param("entryId") Long entryId, @Param("slotId") Long slotId,
+                    @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    // Closes an open offer for the given slot, moving the entry to the given status
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE WaitlistEntry e SET e.status = :status, e.offeredSlotId = NULL, e.offerExpiresAt = NULL, e.updatedAt = :now " +
+           "WHERE e.id = :entryId AND e.offeredSlotId = :slotId " +
+           "AND e.status = com.ehr.models.WaitlistEntry.WaitlistStatus.OFFERED")
+    int closeOffer(@Param("entryId") Long entryId, @Param("slotId") Long slotId,
+                   @Param("status") WaitlistEntry.WaitlistStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry e SET e.status = com.ehr.models.WaitlistEntry.WaitlistStatus.EXPIRED, e.updatedAt = :now " +
+           "WHERE e.status = com.ehr.models.WaitlistEntry.WaitlistStatus.WAITING AND e.windowEnd <= :now")
+    int expirePastWindows(@Param("now") LocalDateTime now);
+}
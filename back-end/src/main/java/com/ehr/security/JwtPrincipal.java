@@ -0,0 +1,60 @@
+package com.ehr.security;
+
+import com.ehr.models.Staff;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated principal rebuilt from the signed JWT claims, so no database lookup
+ * is needed to know who the caller is.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements UserDetails {
+
+    public static final String USER_TYPE_USER = "USER";
+    public static final String USER_TYPE_STAFF = "STAFF";
+
+    private final String username;
+    private final String userType;  // "USER" or "STAFF"
+    private final String role;
+    private final String userId;    // users.id, only for USER
+    private final Long patientId;   // patients.id, only for USER
+    private final Long staffId;     // staff.id, only for STAFF
+
+    public static JwtPrincipal forUser(String username, String role, String userId, Long patientId) {
+        return new JwtPrincipal(username, USER_TYPE_USER, role, userId, patientId, null);
+    }
+
+    public static JwtPrincipal forStaff(String username, Staff.Role role, Long staffId) {
+        return new JwtPrincipal(username, USER_TYPE_STAFF, role.name(), null, null, staffId);
+    }
+
+    public boolean isUser() {
+        return USER_TYPE_USER.equals(userType);
+    }
+
+    public boolean isStaff() {
+        return USER_TYPE_STAFF.equals(userType);
+    }
+
+    public boolean hasStaffRole(Staff.Role staffRole) {
+        return isStaff() && staffRole.name().equals(role);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public String getPassword() {
+        return null; // Credentials are never carried in the token
+    }
+}
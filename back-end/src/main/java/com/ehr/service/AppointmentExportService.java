@@ -0,0 +1,184 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSummaryDto;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.Appointment;
+import com.ehr.models.Staff;
+import com.ehr.repository.AppointmentRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.util.AuthenticatedUserProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes appointment history straight from a database cursor to the response. Rows are DTO
+ * projections, so nothing accumulates in the persistence context and memory use stays flat
+ * however many appointments the range holds.
+ */
+@Service
+public class AppointmentExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + ". Use ndjson or csv.");
+            }
+        }
+    }
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final String CSV_HEADER = "id,patientId,patientFullName,doctorId,doctorFullName,slotId," +
+                                             "startTime,endTime,status,type,createdAt,updatedAt";
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private AuthenticatedUserProvider authenticatedUserProvider;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Checks the caller may export this scope. Runs on the request thread, before the response is committed,
+     * so failures still turn into regular error responses. Doctors may only export their own appointments.
+     */
+    public void checkExportAccess(Long doctorId) {
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Action requires a staff account."));
+        if (currentUser.hasStaffRole(Staff.Role.DOCTOR) && (doctorId == null || !currentUser.getStaffId().equals(doctorId))) {
+            throw new UnauthorizedException("Doctors can only export their own appointments.");
+        }
+        if (doctorId != null && !staffRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor not found with ID: " + doctorId);
+        }
+    }
+
+    /**
+     * Streams the matching appointments, oldest first, to {@code out}. A null doctor exports the whole clinic;
+     * null bounds and an empty status set mean no filter.
+     */
+    public long export(Long doctorId, LocalDateTime from, LocalDateTime to, Collection<Appointment.AppointmentStatus> statuses,
+                       Format format, boolean gzip, OutputStream out) throws IOException {
+        LocalDateTime lower = from != null ? from : EARLIEST;
+        LocalDateTime upper = to != null ? to : LATEST;
+        if (!lower.isBefore(upper)) {
+            throw new IllegalArgumentException("'from' must be before 'to'.");
+        }
+        Set<Appointment.AppointmentStatus> statusFilter = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(Appointment.AppointmentStatus.class) : EnumSet.copyOf(statuses);
+
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        Long written;
+        try {
+            written = tx.execute(status -> {
+                try (Stream<AppointmentSummaryDto> rows = doctorId != null
+                        ? appointmentRepository.streamSummariesByDoctor(doctorId, lower, upper, statusFilter)
+                        : appointmentRepository.streamSummaries(lower, upper, statusFilter)) {
+                    return format == Format.CSV ? writeCsv(rows, writer) : writeNdjson(rows, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        return written == null ? 0 : written;
+    }
+
+    private long writeNdjson(Stream<AppointmentSummaryDto> rows, Writer writer) throws IOException {
+        ObjectWriter json = objectMapper.writerFor(AppointmentSummaryDto.class);
+        long count = 0;
+        for (Iterator<AppointmentSummaryDto> it = rows.iterator(); it.hasNext(); count++) {
+            writer.write(json.writeValueAsString(it.next()));
+            writer.write('\n');
+        }
+        return count;
+    }
+
+    private long writeCsv(Stream<AppointmentSummaryDto> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        for (Iterator<AppointmentSummaryDto> it = rows.iterator(); it.hasNext(); count++) {
+            AppointmentSummaryDto row = it.next();
+            writer.write(String.join(",",
+                    csv(row.getId()), csv(row.getPatientId()), csv(row.getPatientFullName()),
+                    csv(row.getDoctorId()), csv(row.getDoctorFullName()), csv(row.getSlotId()),
+                    csv(row.getStartTime()), csv(row.getEndTime()), csv(row.getStatus()), csv(row.getType()),
+                    csv(row.getCreatedAt()), csv(row.getUpdatedAt())));
+            writer.write("\r\n");
+        }
+        return count;
+    }
+
+    // RFC 4180 quoting, plus a leading quote on values a spreadsheet would evaluate as a formula
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
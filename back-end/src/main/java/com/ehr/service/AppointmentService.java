@@ -1,24 +1,35 @@
 package com.ehr.service;
 
 import com.ehr.dto.*;
+import com.ehr.event.SlotChangedEvent;
 import com.ehr.exception.ResourceNotFoundException;
 import com.ehr.exception.UnauthorizedException;
 import com.ehr.models.*;
 import com.ehr.repository.*;
+import com.ehr.security.JwtPrincipal;
 import com.ehr.util.AuthenticatedUserProvider;
+import com.ehr.util.CursorCodec;
+import com.ehr.util.VirtualSlotId;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class AppointmentService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final LocalDateTime LATEST_CURSOR_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     @Autowired
     private AppointmentRepository appointmentRepository;
     @Autowired
@@ -33,54 +44,117 @@ public class AppointmentService {
     private PasswordEncoder passwordEncoder;
     @Autowired
     private AuthenticatedUserProvider authenticatedUserProvider;
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+    @Autowired
+    private SlotOverlapService slotOverlapService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private SlotHoldService slotHoldService;
+    @Autowired
+    private AppointmentRescheduleRepository appointmentRescheduleRepository;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private VirtualSlotService virtualSlotService;
 
     @Transactional
     public AppointmentSlotResponseDto createAppointmentSlot(AppointmentSlotCreationDto dto) {
-        Staff doctor = staffRepository.findById(dto.getDoctorId())
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + dto.getDoctorId()));
-
-        if (doctor.getRole() != Staff.Role.DOCTOR) {
-            throw new IllegalArgumentException("Staff with ID " + dto.getDoctorId() + " is not a doctor.");
-        }
-
-        Staff currentUser = authenticatedUserProvider.getAuthenticatedStaff()
-                .orElseThrow(() -> new UnauthorizedException("Action requires a staff account."));
-
-        if (currentUser.getRole() != Staff.Role.ADMIN && !currentUser.getId().equals(doctor.getId())) {
-            throw new UnauthorizedException("Doctors can only create slots for themselves.");
-        }
+        Staff doctor = lockDoctorForSlotCreation(dto.getDoctorId());
 
         if (dto.getStartTime().isAfter(dto.getEndTime()) || dto.getStartTime().isEqual(dto.getEndTime())) {
             throw new IllegalArgumentException("Start time must be before end time.");
         }
+        slotOverlapService.assertNoConflicts(doctor.getId(), List.of(new SlotTimeRangeDto(dto.getStartTime(), dto.getEndTime())));
 
         AppointmentSlot slot = new AppointmentSlot();
         slot.setDoctor(doctor);
         slot.setStartTime(dto.getStartTime());
         slot.setEndTime(dto.getEndTime());
         slot.setStatus(AppointmentSlot.SlotStatus.AVAILABLE);
+        slot.setCapacity(dto.getCapacity() != null ? dto.getCapacity() : 1);
 
         AppointmentSlot savedSlot = appointmentSlotRepository.save(slot);
-        return new AppointmentSlotResponseDto(savedSlot);
+        AppointmentSlotResponseDto response = new AppointmentSlotResponseDto(savedSlot);
+        eventPublisher.publishEvent(new SlotChangedEvent(SlotChangedEvent.Type.CREATED, response));
+        return response;
+    }
+
+    /**
+     * Creates all requested slots or none. Every overlap, with existing slots or inside the request,
+     * is reported at once so the caller can fix the whole batch in one round trip.
+     */
+    @Transactional
+    public List<AppointmentSlotResponseDto> createAppointmentSlots(AppointmentSlotBulkCreationDto dto) {
+        Staff doctor = lockDoctorForSlotCreation(dto.getDoctorId());
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < dto.getSlots().size(); i++) {
+            SlotTimeRangeDto range = dto.getSlots().get(i);
+            if (!range.getStartTime().isBefore(range.getEndTime())) {
+                throw new IllegalArgumentException("Slot " + i + ": start time must be before end time.");
+            }
+            if (range.getStartTime().isBefore(now)) {
+                throw new IllegalArgumentException("Slot " + i + ": start time must be in the present or future.");
+            }
+        }
+        slotOverlapService.assertNoConflicts(doctor.getId(), dto.getSlots());
+
+        int capacity = dto.getCapacity() != null ? dto.getCapacity() : 1;
+        List<AppointmentSlot> slots = dto.getSlots().stream().map(range -> {
+            AppointmentSlot slot = new AppointmentSlot();
+            slot.setDoctor(doctor);
+            slot.setStartTime(range.getStartTime());
+            slot.setEndTime(range.getEndTime());
+            slot.setStatus(AppointmentSlot.SlotStatus.AVAILABLE);
+            slot.setCapacity(capacity);
+            return slot;
+        }).collect(Collectors.toList());
+
+        List<AppointmentSlotResponseDto> created = appointmentSlotRepository.saveAll(slots).stream()
+                .map(AppointmentSlotResponseDto::new)
+                .collect(Collectors.toList());
+        created.forEach(slot -> eventPublisher.publishEvent(new SlotChangedEvent(SlotChangedEvent.Type.CREATED, slot)));
+        return created;
+    }
+
+    // Loads the doctor with a row lock held until commit, serializing slot creation per doctor
+    private Staff lockDoctorForSlotCreation(Long doctorId) {
+        Staff doctor = staffRepository.findByIdForUpdate(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
+
+        if (doctor.getRole() != Staff.Role.DOCTOR) {
+            throw new IllegalArgumentException("Staff with ID " + doctorId + " is not a doctor.");
+        }
+
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Action requires a staff account."));
+
+        if (!currentUser.hasStaffRole(Staff.Role.ADMIN) && !currentUser.getStaffId().equals(doctor.getId())) {
+            throw new UnauthorizedException("Doctors can only create slots for themselves.");
+        }
+        return doctor;
     }
 
     @Transactional
     public AppointmentResponseDto bookAppointment(AppointmentCreationDto dto) {
         // Get the currently authenticated user and their patient profile. This is the source of truth.
-        User currentUser = authenticatedUserProvider.getAuthenticatedUser()
+        JwtPrincipal currentUser = authenticatedUserProvider.getUserPrincipal()
                 .orElseThrow(() -> new UnauthorizedException("Action requires a patient account."));
-        Patient patient = patientRepository.findByUser(currentUser)
-                .orElseThrow(() -> new UnauthorizedException("Authenticated user does not have a patient profile."));
-
-        AppointmentSlot slot = appointmentSlotRepository.findById(dto.getSlotId())
-                .orElseThrow(() -> new ResourceNotFoundException("Appointment slot not found with ID: " + dto.getSlotId()));
-
-        if (slot.getStatus() != AppointmentSlot.SlotStatus.AVAILABLE) {
-            throw new IllegalArgumentException("Appointment slot is not available.");
+        if (currentUser.getPatientId() == null) {
+            throw new UnauthorizedException("Authenticated user does not have a patient profile.");
+        }
+        Patient patient = patientRepository.getReferenceById(currentUser.getPatientId());
+        // Group slots keep taking bookings after the first, so the same patient could otherwise take two seats
+        if (appointmentRepository.existsByPatient_IdAndSlot_IdAndStatus(currentUser.getPatientId(), dto.getSlotId(),
+                Appointment.AppointmentStatus.SCHEDULED)) {
+            throw new IllegalArgumentException("You already have an appointment in this slot.");
         }
 
-        slot.setStatus(AppointmentSlot.SlotStatus.BOOKED);
-        appointmentSlotRepository.save(slot);
+        AppointmentSlot slot = claimAvailableSlot(dto.getSlotId(), currentUser.getPatientId());
 
         Appointment appointment = new Appointment();
         appointment.setPatient(patient); // Use the authenticated patient
@@ -106,6 +180,10 @@ public class AppointmentService {
             throw new IllegalArgumentException("An account with this phone number already exists.");
         }
 
+        // Claim the slot before creating any records so a lost race fails without doing the work.
+        // The patient ownership checks are bypassed as this method is for receptionists.
+        AppointmentSlot slot = claimAvailableSlot(dto.getSlotId(), null);
+
         User user = new User();
         user.setEmail(dto.getEmail());
         user.setPhoneNumber(dto.getPhoneNumber());
@@ -126,20 +204,10 @@ public class AppointmentService {
         patient.setMaritalStatus(dto.getMaritalStatus());
         patient.setOccupation(dto.getOccupation());
         patient = patientRepository.save(patient);
+        patientService.publishChanged(patient);
 
         // Directly create the appointment entity and populate its fields for walk-in booking.
         // No intermediate DTO is needed here.
-        // The patient ownership checks are bypassed as this method is for receptionists.
-        AppointmentSlot slot = appointmentSlotRepository.findById(dto.getSlotId())
-                .orElseThrow(() -> new ResourceNotFoundException("Appointment slot not found with ID: " + dto.getSlotId()));
-
-        if (slot.getStatus() != AppointmentSlot.SlotStatus.AVAILABLE) {
-            throw new IllegalArgumentException("Appointment slot is not available.");
-        }
-        
-        slot.setStatus(AppointmentSlot.SlotStatus.BOOKED);
-        appointmentSlotRepository.save(slot);
-
         Appointment appointment = new Appointment();
         appointment.setPatient(patient);
         appointment.setSlot(slot);
@@ -151,47 +219,120 @@ public class AppointmentService {
         return new AppointmentResponseDto(savedAppointment);
     }
     
-    @Transactional
     public List<AppointmentSlotResponseDto> getAvailableSlots(LocalDateTime from, LocalDateTime to) {
-        List<AppointmentSlot> slots = appointmentSlotRepository.findByStatusAndStartTimeBetweenOrderByStartTimeAsc(
-                AppointmentSlot.SlotStatus.AVAILABLE, from, to);
-        return slots.stream()
-                .map(AppointmentSlotResponseDto::new)
-                .collect(Collectors.toList());
+        // Served from memory for current and future ranges; past ranges are rare and go to the database
+        List<AppointmentSlotResponseDto> stored = slotAvailabilityIndex.findAvailable(from, to)
+                .orElseGet(() -> appointmentSlotRepository.findSlotViewsByStatusBetween(
+                        AppointmentSlot.SlotStatus.AVAILABLE, from, to));
+        return virtualSlotService.merge(stored, virtualSlotService.findAvailable(null, from, to));
     }
 
-    @Transactional
     public List<AppointmentSlotResponseDto> getDoctorSlots(Long doctorId, LocalDateTime from, LocalDateTime to) {
-        Staff doctor = staffRepository.findById(doctorId)
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
-        
-        Staff currentUser = authenticatedUserProvider.getAuthenticatedStaff()
+        checkDoctorSlotAccess(doctorId);
+        return virtualSlotService.merge(appointmentSlotRepository.findSlotViewsByDoctorBetween(doctorId, from, to),
+                virtualSlotService.findAvailable(doctorId, from, to));
+    }
+
+    /**
+     * Available slots in [from, to] ordered by (startTime, id), one page at a time. Each page costs
+     * the same however many slots the window holds, since it resumes right after the cursor.
+     */
+    public CursorPageDto<AppointmentSlotResponseDto> getAvailableSlotPage(LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        checkPageLimit(limit);
+        CursorCodec.Position after = startPosition(from, cursor);
+        List<AppointmentSlotResponseDto> rows = slotAvailabilityIndex.findAvailableAfter(null, after.startTime(), after.id(), to, limit + 1)
+                .orElseGet(() -> appointmentSlotRepository.findSlotViewPageByStatus(
+                        AppointmentSlot.SlotStatus.AVAILABLE, after.startTime(), after.id(), to, Limit.of(limit + 1)));
+        return toPage(rows, limit, AppointmentSlotResponseDto::getStartTime, AppointmentSlotResponseDto::getId);
+    }
+
+    /**
+     * The {@code limit} earliest available slots starting at or after {@code from}, across every doctor or across the
+     * doctors of one specialty. Used to find the next free slot for a walk-in.
+     */
+    public List<AppointmentSlotResponseDto> getEarliestAvailableSlots(LocalDateTime from, String specialty, int limit) {
+        checkPageLimit(limit);
+        if (specialty == null || specialty.isBlank()) {
+            return slotAvailabilityIndex.findEarliest(null, from, limit)
+                    .orElseGet(() -> appointmentSlotRepository.findSlotViewPageByStatus(
+                            AppointmentSlot.SlotStatus.AVAILABLE, from, Long.MIN_VALUE, LATEST_CURSOR_TIME, Limit.of(limit)));
+        }
+        List<Long> doctorIds = staffRepository.findDoctorIdsBySpecialty(specialty.trim());
+        if (doctorIds.isEmpty()) {
+            return List.of();
+        }
+        return slotAvailabilityIndex.findEarliest(doctorIds, from, limit)
+                .orElseGet(() -> appointmentSlotRepository.findSlotViewsByStatusAndDoctorsStartingFrom(
+                        AppointmentSlot.SlotStatus.AVAILABLE, doctorIds, from, Limit.of(limit)));
+    }
+
+    public CursorPageDto<AppointmentSlotResponseDto> getDoctorSlotPage(Long doctorId, LocalDateTime from, LocalDateTime to,
+                                                                      String cursor, int limit) {
+        checkPageLimit(limit);
+        checkDoctorSlotAccess(doctorId);
+        CursorCodec.Position after = startPosition(from, cursor);
+        return toPage(appointmentSlotRepository.findSlotViewPageByDoctor(doctorId, after.startTime(), after.id(), to, Limit.of(limit + 1)),
+                limit, AppointmentSlotResponseDto::getStartTime, AppointmentSlotResponseDto::getId);
+    }
+
+    private void checkDoctorSlotAccess(Long doctorId) {
+        if (!staffRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor not found with ID: " + doctorId);
+        }
+
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
                 .orElse(null); // Can be null if patient is logged in
 
-        if (currentUser != null && currentUser.getRole() == Staff.Role.DOCTOR && !currentUser.getId().equals(doctor.getId())) {
+        if (currentUser != null && currentUser.hasStaffRole(Staff.Role.DOCTOR) && !currentUser.getStaffId().equals(doctorId)) {
              throw new UnauthorizedException("Doctors can only view their own available slots.");
         }
+    }
 
-        List<AppointmentSlot> slots = appointmentSlotRepository.findByDoctorAndStartTimeBetweenOrderByStartTimeAsc(
-                doctor, from, to);
-        return slots.stream()
-                .map(AppointmentSlotResponseDto::new)
-                .collect(Collectors.toList());
+    private static void checkPageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
+    // Without a cursor the first page starts at `from`; ids are positive, so id 0 includes slots starting exactly then
+    private static CursorCodec.Position startPosition(LocalDateTime from, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new CursorCodec.Position(from, 0L);
+        }
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        return position.startTime().isBefore(from) ? new CursorCodec.Position(from, 0L) : position;
+    }
+
+    // Newest-first listings start from the far end of time; the bound stays within what every database can store
+    private static CursorCodec.Position endPosition(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new CursorCodec.Position(LATEST_CURSOR_TIME, Long.MAX_VALUE);
+        }
+        return CursorCodec.decode(cursor);
+    }
+
+    // Rows were fetched with one extra element to learn whether another page exists
+    private static <T> CursorPageDto<T> toPage(List<T> rows, int limit,
+                                               Function<T, LocalDateTime> startTimeOf, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDto<>(rows, null, false);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        T last = items.get(items.size() - 1);
+        return new CursorPageDto<>(items, CursorCodec.encode(startTimeOf.apply(last), idOf.apply(last)), true);
     }
 
+    /**
+     * Every appointment of the patient with its notes, in one unbounded list.
+     *
+     * @deprecated use {@link #getPatientAppointmentPage}, which pages through the notes-free summary projection
+     */
+    @Deprecated
     @Transactional
     public List<AppointmentResponseDto> getPatientAppointments(Long patientId) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient not found with ID: " + patientId));
-        
-        Optional<User> currentUserOpt = authenticatedUserProvider.getAuthenticatedUser();
-        if(currentUserOpt.isPresent()) {
-            Patient authenticatedPatient = patientRepository.findByUser(currentUserOpt.get())
-                    .orElseThrow(() -> new UnauthorizedException("Authenticated user does not have a patient profile."));
-            if(!authenticatedPatient.getId().equals(patient.getId())) {
-                throw new UnauthorizedException("Patients can only view their own appointments.");
-            }
-        }
+        checkPatientAppointmentAccess(patient.getId());
 
         List<Appointment> appointments = appointmentRepository.findByPatientOrderBySlot_StartTimeDesc(patient);
         return appointments.stream()
@@ -199,57 +340,215 @@ public class AppointmentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Every appointment with the doctor, with notes, in one unbounded list.
+     *
+     * @deprecated use {@link #getDoctorAppointmentPage}, which pages through the notes-free summary projection
+     */
+    @Deprecated
     @Transactional
     public List<AppointmentResponseDto> getDoctorAppointments(Long doctorId) {
         Staff doctor = staffRepository.findById(doctorId)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
+        checkDoctorAppointmentAccess(doctor.getId());
 
-        Staff currentUser = authenticatedUserProvider.getAuthenticatedStaff()
-                .orElse(null);
-
-        if (currentUser != null && currentUser.getRole() == Staff.Role.DOCTOR && !currentUser.getId().equals(doctor.getId())) {
-            throw new UnauthorizedException("Doctors can only view their own appointments.");
-        }
-        
         List<Appointment> appointments = appointmentRepository.findBySlot_DoctorOrderBySlot_StartTimeDesc(doctor);
         return appointments.stream()
                 .map(AppointmentResponseDto::new)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The patient's appointments, newest first, one page per query. The existence check
+     * only runs when the first page comes back empty, to tell "no appointments" from 404.
+     */
+    public CursorPageDto<AppointmentSummaryDto> getPatientAppointmentPage(Long patientId, String cursor, int limit) {
+        checkPageLimit(limit);
+        checkPatientAppointmentAccess(patientId);
+        CursorCodec.Position before = endPosition(cursor);
+        List<AppointmentSummaryDto> rows = appointmentRepository.findSummaryPageByPatient(
+                patientId, before.startTime(), before.id(), Limit.of(limit + 1));
+        if (rows.isEmpty() && (cursor == null || cursor.isBlank()) && !patientRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient not found with ID: " + patientId);
+        }
+        return toPage(rows, limit, AppointmentSummaryDto::getStartTime, AppointmentSummaryDto::getId);
+    }
+
+    public CursorPageDto<AppointmentSummaryDto> getDoctorAppointmentPage(Long doctorId, String cursor, int limit) {
+        checkPageLimit(limit);
+        checkDoctorAppointmentAccess(doctorId);
+        CursorCodec.Position before = endPosition(cursor);
+        List<AppointmentSummaryDto> rows = appointmentRepository.findSummaryPageByDoctor(
+                doctorId, before.startTime(), before.id(), Limit.of(limit + 1));
+        if (rows.isEmpty() && (cursor == null || cursor.isBlank()) && !staffRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor not found with ID: " + doctorId);
+        }
+        return toPage(rows, limit, AppointmentSummaryDto::getStartTime, AppointmentSummaryDto::getId);
+    }
+
+    private void checkPatientAppointmentAccess(Long patientId) {
+        Optional<JwtPrincipal> currentUserOpt = authenticatedUserProvider.getUserPrincipal();
+        if(currentUserOpt.isPresent()) {
+            Long authenticatedPatientId = currentUserOpt.get().getPatientId();
+            if (authenticatedPatientId == null) {
+                throw new UnauthorizedException("Authenticated user does not have a patient profile.");
+            }
+            if(!authenticatedPatientId.equals(patientId)) {
+                throw new UnauthorizedException("Patients can only view their own appointments.");
+            }
+        }
+    }
+
+    private void checkDoctorAppointmentAccess(Long doctorId) {
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
+                .orElse(null);
+
+        if (currentUser != null && currentUser.hasStaffRole(Staff.Role.DOCTOR) && !currentUser.getStaffId().equals(doctorId)) {
+            throw new UnauthorizedException("Doctors can only view their own appointments.");
+        }
+    }
+
+    // Staff act for the patient, as on cancellation; a doctor only moves appointments between their own slots
+    private void checkDoctorRescheduleAccess(AppointmentSlot slot) {
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
+                .orElse(null);
+
+        if (currentUser != null && currentUser.hasStaffRole(Staff.Role.DOCTOR) && !currentUser.getStaffId().equals(slot.getDoctor().getId())) {
+            throw new UnauthorizedException("Doctors can only reschedule their own appointments.");
+        }
+    }
+
     @Transactional
     public AppointmentResponseDto updateAppointmentStatus(Long appointmentId, Appointment.AppointmentStatus newStatus) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
 
-        Staff currentUser = authenticatedUserProvider.getAuthenticatedStaff()
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
                 .orElse(null);
         
-        if (currentUser != null && currentUser.getRole() == Staff.Role.DOCTOR && !currentUser.getId().equals(appointment.getSlot().getDoctor().getId())) {
+        if (currentUser != null && currentUser.hasStaffRole(Staff.Role.DOCTOR) && !currentUser.getStaffId().equals(appointment.getSlot().getDoctor().getId())) {
             throw new UnauthorizedException("Doctors can only update the status of their own appointments.");
         }
 
-        if (newStatus == Appointment.AppointmentStatus.CANCELLED) {
+        if (newStatus == Appointment.AppointmentStatus.CANCELLED && appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED) {
             AppointmentSlot slot = appointment.getSlot();
             if (slot != null && slot.getStartTime().isAfter(LocalDateTime.now())) { // Can only cancel future appointments
-                slot.setStatus(AppointmentSlot.SlotStatus.AVAILABLE);
-                appointmentSlotRepository.save(slot);
+                releaseSeat(slot);
             }
         }
         appointment.setStatus(newStatus);
         Appointment updatedAppointment = appointmentRepository.save(appointment);
         return new AppointmentResponseDto(updatedAppointment);
     }
+
+    /**
+     * Moves a scheduled appointment to another slot in one transaction: the new seat is claimed first,
+     * then the appointment is repointed and the old seat given back. Losing the race for the new slot
+     * fails the whole call and leaves the appointment where it was. The appointment keeps its id, and
+     * each move is recorded in its reschedule history.
+     */
+    @Transactional
+    public AppointmentResponseDto rescheduleAppointment(Long appointmentId, AppointmentRescheduleDto dto) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
+        Long patientId = appointment.getPatient().getId();
+        checkPatientAppointmentAccess(patientId);
+
+        AppointmentSlot fromSlot = appointment.getSlot();
+        checkDoctorRescheduleAccess(fromSlot);
+        LocalDateTime now = LocalDateTime.now();
+        if (appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+            throw new IllegalArgumentException("Only scheduled appointments can be rescheduled.");
+        }
+        if (!fromSlot.getStartTime().isAfter(now)) {
+            throw new IllegalArgumentException("Appointments that have already started cannot be rescheduled.");
+        }
+        if (fromSlot.getId().equals(dto.getSlotId())) {
+            throw new IllegalArgumentException("The appointment is already in this slot.");
+        }
+        if (appointmentRepository.existsByPatient_IdAndSlot_IdAndStatus(patientId, dto.getSlotId(),
+                Appointment.AppointmentStatus.SCHEDULED)) {
+            throw new IllegalArgumentException("The patient already has an appointment in this slot.");
+        }
+
+        AppointmentSlot toSlot = claimAvailableSlot(dto.getSlotId(), patientId);
+        checkDoctorRescheduleAccess(toSlot); // throwing here rolls back the claim
+        // Conditional on the slot we read: a concurrent reschedule or cancellation of the same appointment
+        // makes this fail, and the rollback returns the seat claimed above
+        if (appointmentRepository.moveToSlot(appointmentId, fromSlot.getId(), toSlot, now) == 0) {
+            throw new IllegalArgumentException("The appointment was changed by someone else; please try again.");
+        }
+        releaseSeat(fromSlot);
+
+        AppointmentReschedule history = new AppointmentReschedule();
+        history.setAppointment(appointment);
+        history.setFromSlotId(fromSlot.getId());
+        history.setFromStartTime(fromSlot.getStartTime());
+        history.setToSlotId(toSlot.getId());
+        history.setToStartTime(toSlot.getStartTime());
+        history.setReason(dto.getReason());
+        history.setRescheduledBy(authenticatedUserProvider.getPrincipal().map(JwtPrincipal::getUsername).orElse(null));
+        appointmentRescheduleRepository.save(history);
+
+        // Keep the loaded entity in step with the update above so the response and any flush agree with it
+        appointment.setSlot(toSlot);
+        appointment.setUpdatedAt(now);
+        return new AppointmentResponseDto(appointment);
+    }
+
+    @Transactional
+    public List<AppointmentRescheduleResponseDto> getRescheduleHistory(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
+        checkPatientAppointmentAccess(appointment.getPatient().getId());
+        checkDoctorAppointmentAccess(appointment.getSlot().getDoctor().getId());
+
+        return appointmentRescheduleRepository.findByAppointment_IdOrderByCreatedAtAscIdAsc(appointmentId).stream()
+                .map(AppointmentRescheduleResponseDto::new)
+                .collect(Collectors.toList());
+    }
+
+    // Gives a booked seat back; waiting patients get the first chance at it
+    private void releaseSeat(AppointmentSlot slot) {
+        if (!waitlistService.offerReleasedSlot(slot)
+                && appointmentSlotRepository.releaseSlot(slot.getId(), LocalDateTime.now()) == 1) {
+            // Re-read after the update: the loaded slot's seat count is stale
+            appointmentSlotRepository.findSlotViewById(slot.getId()).ifPresent(released -> eventPublisher.publishEvent(
+                    new SlotChangedEvent(released.getBookedCount() > 0
+                            ? SlotChangedEvent.Type.SEATS_CHANGED : SlotChangedEvent.Type.RELEASED, released)));
+        }
+    }
     
+    /**
+     * Atomically takes a seat, moving the slot to BOOKED with the last one. Concurrent callers racing
+     * for the same slot are serialized by the row update itself; exactly capacity of them get a seat.
+     * A slot the patient holds counts as available to that patient only. Virtual slots are stored first.
+     */
+    private AppointmentSlot claimAvailableSlot(Long requestedSlotId, Long patientId) {
+        Long slotId = VirtualSlotId.isVirtual(requestedSlotId) ? virtualSlotService.materialize(requestedSlotId) : requestedSlotId;
+        if (appointmentSlotRepository.claimSlot(slotId, LocalDateTime.now()) == 0
+                && (patientId == null || !slotHoldService.claimOwnHold(slotId, patientId))) {
+            if (!appointmentSlotRepository.existsById(slotId)) {
+                throw new ResourceNotFoundException("Appointment slot not found with ID: " + slotId);
+            }
+            throw new IllegalArgumentException("Appointment slot is not available.");
+        }
+        // Listeners filter by doctor and time, so the event carries the full slot view
+        appointmentSlotRepository.findSlotViewById(slotId).ifPresent(booked -> eventPublisher.publishEvent(
+                new SlotChangedEvent(booked.getStatus() == AppointmentSlot.SlotStatus.AVAILABLE
+                        ? SlotChangedEvent.Type.SEATS_CHANGED : SlotChangedEvent.Type.BOOKED, booked)));
+        return appointmentSlotRepository.getReferenceById(slotId);
+    }
+
     @Transactional
     public AppointmentResponseDto addDoctorNotesToAppointment(Long appointmentId, String doctorNotes) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with ID: " + appointmentId));
         
-        Staff currentUser = authenticatedUserProvider.getAuthenticatedStaff()
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
                 .orElseThrow(() -> new UnauthorizedException("Action requires a staff account."));
 
-        if (currentUser.getRole() != Staff.Role.ADMIN && !currentUser.getId().equals(appointment.getSlot().getDoctor().getId())) {
+        if (!currentUser.hasStaffRole(Staff.Role.ADMIN) && !currentUser.getStaffId().equals(appointment.getSlot().getDoctor().getId())) {
             throw new UnauthorizedException("Doctors can only add notes to their own appointments.");
         }
 
@@ -0,0 +1,114 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.dto.AvailabilityHeatmapDto;
+import com.ehr.dto.SlotDayCountDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.event.SlotsGeneratedEvent;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Month views of free and booked seats per doctor per day; a single-patient slot is one seat. Stored
+ * slots are summed by one grouped query and virtual slots are counted as they are expanded. Results
+ * are cached per month and doctor; slot events drop the months they touch, and a short expiry covers
+ * template and exception edits, which change virtual slots without an event.
+ */
+@Service
+public class AvailabilityHeatmapService {
+
+    private record Key(YearMonth month, Long doctorId) { // doctorId null for every doctor
+    }
+
+    private record DoctorDay(Long doctorId, LocalDate date) {
+    }
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Value("${ehr.slots.heatmap.cache-seconds:60}")
+    private long cacheSeconds = 60;
+
+    private Cache<Key, AvailabilityHeatmapDto> heatmaps;
+
+    @PostConstruct
+    public void init() {
+        heatmaps = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public AvailabilityHeatmapDto getHeatmap(YearMonth month, Long doctorId) {
+        return heatmaps.get(new Key(month, doctorId), this::compute);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        AppointmentSlotResponseDto slot = event.getSlot();
+        evict(slot.getDoctorId(), YearMonth.from(slot.getStartTime()), YearMonth.from(slot.getStartTime()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotsGenerated(SlotsGeneratedEvent event) {
+        evict(event.getDoctorId(), YearMonth.from(event.getFrom()), YearMonth.from(event.getTo()));
+    }
+
+    private void evict(Long doctorId, YearMonth first, YearMonth last) {
+        heatmaps.asMap().keySet().removeIf(key -> (key.doctorId() == null || key.doctorId().equals(doctorId))
+                && !key.month().isBefore(first) && !key.month().isAfter(last));
+    }
+
+    private AvailabilityHeatmapDto compute(Key key) {
+        LocalDateTime from = key.month().atDay(1).atStartOfDay();
+        LocalDateTime to = key.month().plusMonths(1).atDay(1).atStartOfDay();
+        List<SlotDayCountDto> rows = key.doctorId() == null
+                ? appointmentSlotRepository.countByDoctorAndDay(from, to)
+                : appointmentSlotRepository.countByDayForDoctor(key.doctorId(), from, to);
+
+        Map<DoctorDay, long[]> counts = new TreeMap<>(Comparator.comparing(DoctorDay::doctorId).thenComparing(DoctorDay::date));
+        Map<Long, String> names = new TreeMap<>();
+        for (SlotDayCountDto row : rows) {
+            long[] count = counts.computeIfAbsent(new DoctorDay(row.getDoctorId(), row.getDate()), k -> new long[2]);
+            count[0] += row.getFreeSeats();
+            count[1] += row.getBookedSeats();
+            names.put(row.getDoctorId(), row.getDoctorFullName());
+        }
+        // The query's upper bound is exclusive, the expansion's inclusive
+        for (AppointmentSlotResponseDto slot : virtualSlotService.findAvailable(key.doctorId(), from, to.minusNanos(1))) {
+            counts.computeIfAbsent(new DoctorDay(slot.getDoctorId(), slot.getStartTime().toLocalDate()), k -> new long[2])[0]
+                    += slot.getCapacity() - slot.getBookedCount();
+            names.putIfAbsent(slot.getDoctorId(), slot.getDoctorFullName());
+        }
+
+        List<AvailabilityHeatmapDto.DoctorDays> doctors = new ArrayList<>();
+        AvailabilityHeatmapDto.DoctorDays current = null;
+        for (Map.Entry<DoctorDay, long[]> entry : counts.entrySet()) {
+            Long doctorId = entry.getKey().doctorId();
+            if (current == null || !current.getDoctorId().equals(doctorId)) {
+                current = new AvailabilityHeatmapDto.DoctorDays(doctorId, names.get(doctorId), new ArrayList<>());
+                doctors.add(current);
+            }
+            current.getDays().add(new AvailabilityHeatmapDto.DayCount(entry.getKey().date(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        return new AvailabilityHeatmapDto(key.month(), doctors);
+    }
+}
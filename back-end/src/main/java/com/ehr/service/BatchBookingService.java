@@ -0,0 +1,148 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSummaryDto;
+import com.ehr.dto.BatchBookingItemDto;
+import com.ehr.dto.BatchBookingRequestDto;
+import com.ehr.dto.BatchBookingResultDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.exception.BatchBookingException;
+import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.Appointment;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.repository.AppointmentRepository;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.util.AuthenticatedUserProvider;
+import com.ehr.util.VirtualSlotId;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Books a series of slots for the signed-in patient in one transaction. All claims go to the database
+ * as a single JDBC batch of the same conditional seat claim that single bookings use, so a slot never
+ * takes more bookings than it has seats, and the appointments are inserted as a second batch.
+ */
+@Service
+public class BatchBookingService {
+
+    private static final String CLAIM_SLOT_SQL =
+            "UPDATE appointment_slots SET booked_count = booked_count + 1, " +
+            "status = CASE WHEN booked_count + 1 >= capacity THEN ? ELSE status END, updated_at = ? " +
+            "WHERE id = ? AND status = ? AND booked_count < capacity";
+
+    private static final String INSERT_APPOINTMENT_SQL =
+            "INSERT INTO appointments (patient_id, slot_id, status, type, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AuthenticatedUserProvider authenticatedUserProvider;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Transactional
+    public BatchBookingResultDto bookSlots(BatchBookingRequestDto dto) {
+        JwtPrincipal currentUser = authenticatedUserProvider.getUserPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Action requires a patient account."));
+        if (currentUser.getPatientId() == null) {
+            throw new UnauthorizedException("Authenticated user does not have a patient profile.");
+        }
+        Long patientId = currentUser.getPatientId();
+        // Virtual slots are stored first and reported under their stored id; ones that cannot be come back NOT_FOUND
+        List<Long> slotIds = new ArrayList<>(dto.getSlotIds().size());
+        for (Long slotId : dto.getSlotIds()) {
+            slotIds.add(VirtualSlotId.isVirtual(slotId) ? virtualSlotService.tryMaterialize(slotId).orElse(slotId) : slotId);
+        }
+        if (new HashSet<>(slotIds).size() != slotIds.size()) {
+            throw new IllegalArgumentException("Slot IDs must not repeat.");
+        }
+
+        // Group slots keep taking bookings after the first, so the patient could otherwise take a second seat
+        Set<Long> alreadyBooked = new HashSet<>(appointmentRepository.findScheduledSlotIds(patientId, slotIds));
+        List<Long> toClaim = slotIds.stream().filter(slotId -> !alreadyBooked.contains(slotId)).toList();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> claims = new ArrayList<>(toClaim.size());
+        for (Long slotId : toClaim) {
+            claims.add(new Object[]{AppointmentSlot.SlotStatus.BOOKED.name(), now, slotId, AppointmentSlot.SlotStatus.AVAILABLE.name()});
+        }
+        int[] claimed = toClaim.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(CLAIM_SLOT_SQL, claims);
+
+        Set<Long> won = new LinkedHashSet<>();
+        List<Long> lost = new ArrayList<>();
+        for (int i = 0; i < toClaim.size(); i++) {
+            // A slot the patient holds fails the AVAILABLE claim but is still theirs to book
+            if (claimed[i] == 1 || slotHoldService.claimOwnHold(toClaim.get(i), patientId)) {
+                won.add(toClaim.get(i));
+            } else {
+                lost.add(toClaim.get(i));
+            }
+        }
+        Set<Long> existing = new HashSet<>(alreadyBooked);
+        if (!lost.isEmpty()) {
+            existing.addAll(appointmentSlotRepository.findExistingIds(lost));
+        }
+
+        if (won.size() < slotIds.size() && dto.getMode() == BatchBookingRequestDto.Mode.ALL_OR_NOTHING) {
+            // Rolls back the claims that did succeed
+            throw new BatchBookingException(result(dto, slotIds, won, existing, Map.of(), BatchBookingItemDto.Outcome.ROLLED_BACK));
+        }
+
+        Map<Long, AppointmentSummaryDto> appointments = new HashMap<>();
+        if (!won.isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(won.size());
+            for (Long slotId : won) {
+                rows.add(new Object[]{patientId, slotId, Appointment.AppointmentStatus.SCHEDULED.name(),
+                        Appointment.AppointmentType.ONLINE.name(), now, now});
+            }
+            jdbcTemplate.batchUpdate(INSERT_APPOINTMENT_SQL, rows);
+            if (dto.getNotes() != null && !dto.getNotes().isBlank()) {
+                appointmentRepository.setNotesForScheduled(patientId, won, dto.getNotes());
+            }
+            for (AppointmentSummaryDto appointment : appointmentRepository.findScheduledSummariesByPatientAndSlots(patientId, won)) {
+                appointments.put(appointment.getSlotId(), appointment);
+            }
+            appointmentSlotRepository.findSlotViewsByIds(won).forEach(booked -> eventPublisher.publishEvent(
+                    new SlotChangedEvent(booked.getStatus() == AppointmentSlot.SlotStatus.AVAILABLE
+                            ? SlotChangedEvent.Type.SEATS_CHANGED : SlotChangedEvent.Type.BOOKED, booked)));
+        }
+        return result(dto, slotIds, won, existing, appointments, BatchBookingItemDto.Outcome.BOOKED);
+    }
+
+    private static BatchBookingResultDto result(BatchBookingRequestDto dto, List<Long> slotIds, Set<Long> won, Set<Long> existing,
+                                                Map<Long, AppointmentSummaryDto> appointments,
+                                                BatchBookingItemDto.Outcome wonOutcome) {
+        List<BatchBookingItemDto> items = new ArrayList<>(slotIds.size());
+        for (Long slotId : slotIds) {
+            if (won.contains(slotId)) {
+                items.add(new BatchBookingItemDto(slotId, wonOutcome, appointments.get(slotId)));
+            } else {
+                items.add(new BatchBookingItemDto(slotId, existing.contains(slotId)
+                        ? BatchBookingItemDto.Outcome.UNAVAILABLE : BatchBookingItemDto.Outcome.NOT_FOUND, null));
+            }
+        }
+        int booked = wonOutcome == BatchBookingItemDto.Outcome.BOOKED ? won.size() : 0;
+        return new BatchBookingResultDto(dto.getMode(), slotIds.size(), booked, items);
+    }
+}
@@ -0,0 +1,120 @@
+package com.ehr.service;
+
+import com.ehr.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires slot hold expiries from an in-memory hierarchical timing wheel instead of polling the database.
+ * Each held slot has at most one pending timer; scheduling it again replaces the old one. A ticker thread
+ * advances the wheel, and the expiry actions, which touch the database, run on a separate worker so a slow
+ * statement never delays the ticks.
+ *
+ * Timers live only on the node that took the hold. Holds are re-armed from the database at startup, and
+ * a slow backstop sweep catches holds whose node went away.
+ */
+@Component
+public class HoldExpiryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpiryScheduler.class);
+
+    private record Expiry(Long slotId, Runnable action) {
+    }
+
+    @Value("${ehr.slots.hold.tick-ms:100}")
+    private long tickMillis = 100;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HierarchicalTimingWheel<Expiry> wheel;
+    private final Map<Long, HierarchicalTimingWheel<Expiry>.Timeout> bySlot = new HashMap<>();
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService worker;
+    private Counter fired;
+
+    @PostConstruct
+    public void init() {
+        // 64 buckets over 4 levels at 100 ms spans about 19 days before timeouts are parked
+        wheel = new HierarchicalTimingWheel<>(tickMillis, 64, 4, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "hold-wheel-ticker"));
+        worker = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "hold-expiry"));
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        fired = Counter.builder("ehr.slots.holds.expired").description("Hold timers that fired").register(meterRegistry);
+        Gauge.builder("ehr.slots.holds.pending", this, HoldExpiryScheduler::pending).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        worker.shutdownNow();
+    }
+
+    /**
+     * Runs {@code action} on the expiry worker once {@code expiresAt} has passed, unless cancelled or
+     * rescheduled first. The action must itself check in the database that the hold is still the one it expires.
+     */
+    public synchronized void schedule(Long slotId, LocalDateTime expiresAt, Runnable action) {
+        HierarchicalTimingWheel<Expiry>.Timeout previous = bySlot.remove(slotId);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        // Rounded up past the stored sub-millisecond expiry, so the conditional expiry update never fires early
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+        bySlot.put(slotId, wheel.schedule(new Expiry(slotId, action), deadline));
+    }
+
+    public synchronized void cancel(Long slotId) {
+        HierarchicalTimingWheel<Expiry>.Timeout timeout = bySlot.remove(slotId);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    public synchronized int pending() {
+        return wheel.size();
+    }
+
+    private void tick() {
+        List<Expiry> due;
+        synchronized (this) {
+            due = wheel.advance(System.currentTimeMillis());
+            due.forEach(expiry -> bySlot.remove(expiry.slotId()));
+        }
+        for (Expiry expiry : due) {
+            fired.increment();
+            worker.execute(() -> {
+                try {
+                    expiry.action().run();
+                } catch (RuntimeException e) {
+                    log.warn("Could not expire hold on slot {}", expiry.slotId(), e);
+                }
+            });
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -1,14 +1,26 @@
 package com.ehr.service;
 
+import com.ehr.security.JwtPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtTokenProvider {
@@ -19,48 +31,125 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize = 10000;
+
+    private static final String CLAIM_USER_TYPE = "userType";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_PATIENT_ID = "pid";
+    private static final String CLAIM_STAFF_ID = "sid";
+
+    // Key and parser are immutable and thread-safe, so they are derived once
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // SHA-256 digest of a token -> principal, evicted when the token itself expires
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private record VerifiedToken(JwtPrincipal principal, long expiresAtMillis) {
     }
 
-    public String generateToken(String username, String userType) {
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String digest, VerifiedToken verified, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(
+                                Math.max(0, verified.expiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return expireAfterCreate(digest, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public String generateToken(JwtPrincipal principal) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
         return Jwts.builder()
-                .subject(username)
-                .claim("userType", userType)
+                .subject(principal.getUsername())
+                .claim(CLAIM_USER_TYPE, principal.getUserType())
+                .claim(CLAIM_ROLE, principal.getRole())
+                .claim(CLAIM_USER_ID, principal.getUserId())
+                .claim(CLAIM_PATIENT_ID, principal.getPatientId())
+                .claim(CLAIM_STAFF_ID, principal.getStaffId())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
-        return claims.getSubject();
-    }
-
-    public String getUserTypeFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
-        return claims.get("userType", String.class);
-    }
+    /**
+     * Verifies the token once and returns the principal it carries, or empty when the token
+     * is invalid, expired or lacks identity claims. Tokens verified recently are served from
+     * a bounded cache keyed by their digest, skipping the signature check and JSON parsing.
+     */
+    public Optional<JwtPrincipal> verifyToken(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return Optional.of(cached.principal());
+        }
 
-    public boolean validateToken(String token) {
+        Claims claims;
         try {
-            getAllClaimsFromToken(token);
-            return true;
+            claims = getAllClaimsFromToken(token);
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
+        }
+        JwtPrincipal principal = toPrincipal(claims);
+        if (principal == null) {
+            return Optional.empty();
+        }
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, new VerifiedToken(principal, claims.getExpiration().getTime()));
+        }
+        return Optional.of(principal);
+    }
+
+    private JwtPrincipal toPrincipal(Claims claims) {
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (role == null) {
+            return null;
         }
+        return new JwtPrincipal(
+                claims.getSubject(),
+                claims.get(CLAIM_USER_TYPE, String.class),
+                role,
+                claims.get(CLAIM_USER_ID, String.class),
+                claims.get(CLAIM_PATIENT_ID, Long.class),
+                claims.get(CLAIM_STAFF_ID, Long.class)
+        );
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
-}
\ No newline at end of file
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,748 @@
+package com.ehr.service;
+
+import com.ehr.dto.PatientImportDto;
+import com.ehr.dto.PatientImportRejectionDto;
+import com.ehr.dto.PatientImportRowDto;
+import com.ehr.dto.UserContactDto;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.models.Patient;
+import com.ehr.models.PatientImport;
+import com.ehr.repository.PatientImportRejectionRepository;
+import com.ehr.repository.PatientImportRepository;
+import com.ehr.repository.UserRepository;
+import com.ehr.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of patient records from CSV or NDJSON, for onboarding a clinic with an existing register.
+ * The input is read as a stream and handled a chunk of rows at a time: rows are validated, a row reusing
+ * the email or phone number of an earlier row in the chunk is rejected through hash sets, and one query
+ * finds the ones already taken in the database, which by then holds every earlier chunk too. Passwords of
+ * the remaining rows are hashed on a pool of one thread per core, then users, patients, rejections and the
+ * import's checkpoint are written as JDBC batches in one transaction per chunk.
+ *
+ * An import that failed or was cut off is resumed by sending the same input again: rows up to the
+ * checkpoint are read past without being imported again.
+ *
+ * Imports submitted over the API are spooled to a temporary file and run on a small pool, so the request
+ * returns as soon as the upload is in and the import's progress can be polled.
+ */
+@Service
+public class PatientImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientImportService.class);
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_REASON_LENGTH = 255;
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (id, email, phone_number, password_hash, first_name, last_name, role, active, is_verified, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] INSERT_USER_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.BOOLEAN, Types.TIMESTAMP, Types.TIMESTAMP};
+
+    private static final String INSERT_PATIENT_SQL =
+            "INSERT INTO patients (user_id, date_of_birth, gender, address, blood_group, genotype, marital_status, occupation, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] INSERT_PATIENT_TYPES = {Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP};
+
+    private static final String INSERT_REJECTION_SQL =
+            "INSERT INTO patient_import_rejections (import_id, row_number, reason) VALUES (?, ?, ?)";
+
+    // Only moves the checkpoint on from where this run saw it, so two runs of one import cannot both write a chunk
+    private static final String ADVANCE_CHECKPOINT_SQL =
+            "UPDATE patient_imports SET rows_processed = ?, imported_count = imported_count + ?, " +
+            "rejected_count = rejected_count + ?, updated_at = ? WHERE id = ? AND rows_processed = ?";
+
+    // CSV header names, compared without case, spaces or underscores
+    private static final Map<String, BiConsumer<PatientImportRowDto, String>> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("firstname", PatientImportRowDto::setFirstName);
+        COLUMNS.put("lastname", PatientImportRowDto::setLastName);
+        COLUMNS.put("email", PatientImportRowDto::setEmail);
+        COLUMNS.put("phonenumber", PatientImportRowDto::setPhoneNumber);
+        COLUMNS.put("dateofbirth", PatientImportRowDto::setDateOfBirth);
+        COLUMNS.put("gender", PatientImportRowDto::setGender);
+        COLUMNS.put("address", PatientImportRowDto::setAddress);
+        COLUMNS.put("bloodgroup", PatientImportRowDto::setBloodGroup);
+        COLUMNS.put("genotype", PatientImportRowDto::setGenotype);
+        COLUMNS.put("maritalstatus", PatientImportRowDto::setMaritalStatus);
+        COLUMNS.put("occupation", PatientImportRowDto::setOccupation);
+        COLUMNS.put("password", PatientImportRowDto::setPassword);
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // A row as read: either its values or why they could not be read
+    private record Row(PatientImportRowDto data, String error) {
+    }
+
+    private interface Input {
+        InputStream open() throws IOException;
+    }
+
+    private interface RowReader extends Closeable {
+        /** The next row, or null at the end of the input. */
+        Row next() throws IOException;
+    }
+
+    // A row that passed validation, with its values converted
+    private static final class Candidate {
+        final long rowNumber;
+        final PatientImportRowDto row;
+        final LocalDate dateOfBirth;
+        final Patient.Gender gender;
+        final Patient.BloodGroup bloodGroup;
+        final Patient.Genotype genotype;
+        final Patient.MaritalStatus maritalStatus;
+        String passwordHash;
+
+        Candidate(long rowNumber, PatientImportRowDto row, LocalDate dateOfBirth, Patient.Gender gender,
+                  Patient.BloodGroup bloodGroup, Patient.Genotype genotype, Patient.MaritalStatus maritalStatus) {
+            this.rowNumber = rowNumber;
+            this.row = row;
+            this.dateOfBirth = dateOfBirth;
+            this.gender = gender;
+            this.bloodGroup = bloodGroup;
+            this.genotype = genotype;
+            this.maritalStatus = maritalStatus;
+        }
+    }
+
+    @Autowired
+    private PatientImportRepository patientImportRepository;
+    @Autowired
+    private PatientImportRejectionRepository rejectionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ehr.patients.import.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    // Threads hashing passwords; 0 for one per core
+    @Value("${ehr.patients.import.hash-threads:0}")
+    private int hashThreads = 0;
+
+    // Imports submitted over the API that run at once; later ones wait for a free thread
+    @Value("${ehr.patients.import.threads:2}")
+    private int importThreads = 2;
+
+    // Imports being run by this node
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService importPool;
+    private ExecutorService hashPool;
+    private int hashPoolSize;
+    private Counter rowsImported;
+    private Counter rowsRejected;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    public void init() {
+        hashPoolSize = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        hashPool = Executors.newFixedThreadPool(hashPoolSize, namedThreads("patient-import-hash-"));
+        importPool = Executors.newFixedThreadPool(importThreads, namedThreads("patient-import-"));
+        rowsImported = Counter.builder("ehr.patients.import.rows")
+                .description("Rows settled by bulk patient imports")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        rowsRejected = Counter.builder("ehr.patients.import.rows")
+                .description("Rows settled by bulk patient imports")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        chunkTimer = Timer.builder("ehr.patients.import.chunk")
+                .description("Duration of one chunk of a bulk patient import, from validation to commit")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importPool.shutdownNow();
+        hashPool.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Spools {@code input} and imports it in the background, returning the import as RUNNING; poll
+     * {@link #getImport} for its progress and outcome.
+     */
+    public PatientImportDto submitImport(InputStream input, PatientImport.Format format, String source) {
+        if (format == null) {
+            throw new IllegalArgumentException("Import format is required.");
+        }
+        Path spooled = spool(input);
+        PatientImport patientImport = new PatientImport();
+        patientImport.setFormat(format);
+        patientImport.setSource(source);
+        return submit(patientImportRepository.save(patientImport), spooled);
+    }
+
+    /** Background counterpart of {@link #resumeImport}. */
+    public PatientImportDto submitResume(Long importId, InputStream input) {
+        PatientImport patientImport = findResumable(importId);
+        return submit(patientImport, spool(input));
+    }
+
+    /**
+     * Imports every row of {@code input} and returns the import as it ended. Bad rows are recorded as
+     * rejections without stopping the import; an error that does stop it leaves the import FAILED with
+     * its checkpoint at the last committed chunk.
+     */
+    public PatientImportDto startImport(InputStream input, PatientImport.Format format, String source) {
+        if (format == null) {
+            throw new IllegalArgumentException("Import format is required.");
+        }
+        PatientImport patientImport = new PatientImport();
+        patientImport.setFormat(format);
+        patientImport.setSource(source);
+        patientImport = patientImportRepository.save(patientImport);
+        claim(patientImport.getId());
+        return run(patientImport, () -> input);
+    }
+
+    /** Continues an import that did not complete; {@code input} must be the input it was started with. */
+    public PatientImportDto resumeImport(Long importId, InputStream input) {
+        PatientImport patientImport = findResumable(importId);
+        claim(importId);
+        return run(patientImport, () -> input);
+    }
+
+    public PatientImportDto getImport(Long importId) {
+        return toDto(find(importId));
+    }
+
+    /** Rejected rows of an import by row number, starting after {@code afterRow}. */
+    public List<PatientImportRejectionDto> getRejections(Long importId, long afterRow, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        find(importId);
+        return rejectionRepository.findByImportAfterRow(importId, afterRow, Limit.of(limit));
+    }
+
+    private PatientImport findResumable(Long importId) {
+        PatientImport patientImport = find(importId);
+        if (patientImport.getStatus() == PatientImport.ImportStatus.COMPLETED) {
+            throw new IllegalArgumentException("Import " + importId + " has already completed.");
+        }
+        return patientImport;
+    }
+
+    private PatientImport find(Long importId) {
+        return patientImportRepository.findById(importId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import not found with id: " + importId));
+    }
+
+    // The upload has to be read in full before the request ends; a broken one is not worth queueing
+    private static Path spool(InputStream input) {
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("patient-import-", ".upload");
+            Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            return spooled;
+        } catch (IOException e) {
+            deleteSpooled(spooled);
+            throw new IllegalArgumentException("The import upload could not be read: " + e.getMessage());
+        }
+    }
+
+    private static void deleteSpooled(Path spooled) {
+        if (spooled == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spooled);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled import {}", spooled, e);
+        }
+    }
+
+    private PatientImportDto submit(PatientImport patientImport, Path spooled) {
+        Long importId = patientImport.getId();
+        try {
+            claim(importId);
+        } catch (IllegalArgumentException e) {
+            deleteSpooled(spooled);
+            throw e;
+        }
+        patientImport.setStatus(PatientImport.ImportStatus.RUNNING);
+        patientImport.setLastError(null);
+        PatientImport queued = patientImportRepository.save(patientImport);
+        try {
+            importPool.execute(() -> {
+                try {
+                    run(queued, () -> Files.newInputStream(spooled));
+                } finally {
+                    deleteSpooled(spooled);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(importId);
+            deleteSpooled(spooled);
+            throw new IllegalStateException("Patient imports are shutting down.", e);
+        }
+        return toDto(queued);
+    }
+
+    private void claim(Long importId) {
+        if (!running.add(importId)) {
+            throw new IllegalArgumentException("Import " + importId + " is already running.");
+        }
+    }
+
+    // Runs an import claimed by the caller
+    private PatientImportDto run(PatientImport patientImport, Input input) {
+        Long importId = patientImport.getId();
+        long importedBefore = patientImport.getImportedCount();
+        try {
+            patientImport.setStatus(PatientImport.ImportStatus.RUNNING);
+            patientImport.setLastError(null);
+            patientImport = patientImportRepository.save(patientImport);
+            try (InputStream stream = input.open(); RowReader rows = open(patientImport.getFormat(), stream)) {
+                for (long skipped = 0; skipped < patientImport.getRowsProcessed(); skipped++) {
+                    if (rows.next() == null) {
+                        throw new IllegalArgumentException("The input has fewer rows than import " + importId + " has already processed.");
+                    }
+                }
+                List<Row> chunk = new ArrayList<>(chunkSize);
+                while (true) {
+                    Row row;
+                    while (chunk.size() < chunkSize && (row = rows.next()) != null) {
+                        chunk.add(row);
+                    }
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    importChunk(patientImport, chunk);
+                    chunk.clear();
+                }
+            }
+            patientImport.setStatus(PatientImport.ImportStatus.COMPLETED);
+            log.info("Patient import {} completed: {} rows, {} imported, {} rejected", importId,
+                    patientImport.getRowsProcessed(), patientImport.getImportedCount(), patientImport.getRejectedCount());
+        } catch (IOException | RuntimeException e) {
+            log.error("Patient import {} stopped after {} rows", importId, patientImport.getRowsProcessed(), e);
+            patientImport.setStatus(PatientImport.ImportStatus.FAILED);
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            patientImport.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        } finally {
+            running.remove(importId);
+        }
+        patientImport = patientImportRepository.save(patientImport);
+        if (patientImport.getImportedCount() > importedBefore) {
+            patientSearchIndex.rebuild();
+        }
+        return toDto(patientImport);
+    }
+
+    private void importChunk(PatientImport patientImport, List<Row> chunk) {
+        long begin = System.nanoTime();
+        long firstRow = patientImport.getRowsProcessed() + 1;
+        List<PatientImportRejectionDto> rejections = new ArrayList<>();
+        List<Candidate> candidates = new ArrayList<>(chunk.size());
+        Map<String, Long> emails = new HashMap<>();
+        Map<String, Long> phoneNumbers = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            long rowNumber = firstRow + i;
+            Row row = chunk.get(i);
+            if (row.error() != null) {
+                rejections.add(new PatientImportRejectionDto(rowNumber, row.error()));
+                continue;
+            }
+            PatientImportRowDto data = trimmed(row.data());
+            Candidate candidate;
+            try {
+                candidate = toCandidate(rowNumber, data);
+            } catch (IllegalArgumentException e) {
+                rejections.add(new PatientImportRejectionDto(rowNumber, e.getMessage()));
+                continue;
+            }
+            // The first accepted row with an email or phone number keeps it; a rejected row claims neither
+            Long emailRow = data.getEmail() == null ? null : emails.get(data.getEmail());
+            Long phoneRow = data.getPhoneNumber() == null ? null : phoneNumbers.get(data.getPhoneNumber());
+            if (emailRow != null) {
+                rejections.add(new PatientImportRejectionDto(rowNumber, "Email repeats row " + emailRow));
+            } else if (phoneRow != null) {
+                rejections.add(new PatientImportRejectionDto(rowNumber, "Phone number repeats row " + phoneRow));
+            } else {
+                if (data.getEmail() != null) {
+                    emails.put(data.getEmail(), rowNumber);
+                }
+                if (data.getPhoneNumber() != null) {
+                    phoneNumbers.put(data.getPhoneNumber(), rowNumber);
+                }
+                candidates.add(candidate);
+            }
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            candidates = dropTaken(candidates, rejections);
+            hashPasswords(candidates);
+            try {
+                write(patientImport, chunk.size(), candidates, rejections);
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt > 0) {
+                    throw e;
+                }
+                // An account was registered between the check and the insert; check again
+            }
+        }
+        patientImport.setRowsProcessed(patientImport.getRowsProcessed() + chunk.size());
+        patientImport.setImportedCount(patientImport.getImportedCount() + candidates.size());
+        patientImport.setRejectedCount(patientImport.getRejectedCount() + rejections.size());
+        rowsImported.increment(candidates.size());
+        rowsRejected.increment(rejections.size());
+        chunkTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+    }
+
+    // Rejects the candidates whose email or phone number is already taken, in one query for the chunk
+    private List<Candidate> dropTaken(List<Candidate> candidates, List<PatientImportRejectionDto> rejections) {
+        Set<String> emails = new HashSet<>();
+        Set<String> phoneNumbers = new HashSet<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.row.getEmail() != null) {
+                emails.add(candidate.row.getEmail());
+            }
+            if (candidate.row.getPhoneNumber() != null) {
+                phoneNumbers.add(candidate.row.getPhoneNumber());
+            }
+        }
+        if (emails.isEmpty() && phoneNumbers.isEmpty()) {
+            return candidates;
+        }
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenPhoneNumbers = new HashSet<>();
+        for (UserContactDto contact : userRepository.findContactsByEmailInOrPhoneNumberIn(emails, phoneNumbers)) {
+            takenEmails.add(contact.getEmail());
+            takenPhoneNumbers.add(contact.getPhoneNumber());
+        }
+        List<Candidate> free = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            if (candidate.row.getEmail() != null && takenEmails.contains(candidate.row.getEmail())) {
+                rejections.add(new PatientImportRejectionDto(candidate.rowNumber, "Email already registered"));
+            } else if (candidate.row.getPhoneNumber() != null && takenPhoneNumbers.contains(candidate.row.getPhoneNumber())) {
+                rejections.add(new PatientImportRejectionDto(candidate.rowNumber, "Phone number already registered"));
+            } else {
+                free.add(candidate);
+            }
+        }
+        return free;
+    }
+
+    // Hashes in one slice per pool thread; each hash is deliberately slow, so this dominates a chunk
+    private void hashPasswords(List<Candidate> candidates) {
+        List<Candidate> unhashed = candidates.stream().filter(c -> c.passwordHash == null).toList();
+        int slices = Math.min(hashPoolSize, unhashed.size());
+        List<Callable<Void>> tasks = new ArrayList<>(slices);
+        for (int s = 0; s < slices; s++) {
+            List<Candidate> slice = unhashed.subList(unhashed.size() * s / slices, unhashed.size() * (s + 1) / slices);
+            tasks.add(() -> {
+                for (Candidate candidate : slice) {
+                    String password = candidate.row.getPassword() != null ? candidate.row.getPassword() : randomPassword();
+                    candidate.passwordHash = passwordEncoder.encode(password);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> done : hashPool.invokeAll(tasks)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not hash passwords.", e.getCause());
+        }
+    }
+
+    private void write(PatientImport patientImport, int rowCount, List<Candidate> candidates,
+                       List<PatientImportRejectionDto> rejections) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>(candidates.size());
+        List<Object[]> patients = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            PatientImportRowDto row = candidate.row;
+            String userId = UUID.randomUUID().toString();
+            users.add(new Object[]{userId, row.getEmail(), row.getPhoneNumber(), candidate.passwordHash,
+                    row.getFirstName(), row.getLastName(), "USER", true, true, now, now});
+            patients.add(new Object[]{userId, candidate.dateOfBirth == null ? null : Date.valueOf(candidate.dateOfBirth),
+                    name(candidate.gender), row.getAddress(), name(candidate.bloodGroup), name(candidate.genotype),
+                    name(candidate.maritalStatus), row.getOccupation(), now, now});
+        }
+        List<Object[]> rejected = new ArrayList<>(rejections.size());
+        for (PatientImportRejectionDto rejection : rejections) {
+            String reason = rejection.getReason().length() > MAX_REASON_LENGTH
+                    ? rejection.getReason().substring(0, MAX_REASON_LENGTH) : rejection.getReason();
+            rejected.add(new Object[]{patientImport.getId(), rejection.getRowNumber(), reason});
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            if (!users.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_USER_SQL, users, INSERT_USER_TYPES);
+                jdbcTemplate.batchUpdate(INSERT_PATIENT_SQL, patients, INSERT_PATIENT_TYPES);
+            }
+            if (!rejected.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_REJECTION_SQL, rejected);
+            }
+            int advanced = jdbcTemplate.update(ADVANCE_CHECKPOINT_SQL, patientImport.getRowsProcessed() + rowCount,
+                    candidates.size(), rejections.size(), now, patientImport.getId(), patientImport.getRowsProcessed());
+            if (advanced != 1) {
+                throw new IllegalStateException("Import " + patientImport.getId() + " was advanced by another run.");
+            }
+        });
+    }
+
+    private Candidate toCandidate(long rowNumber, PatientImportRowDto row) {
+        Set<ConstraintViolation<PatientImportRowDto>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (row.getEmail() == null && row.getPhoneNumber() == null) {
+            throw new IllegalArgumentException("Email or phone number is required");
+        }
+        LocalDate dateOfBirth = null;
+        if (row.getDateOfBirth() != null) {
+            try {
+                dateOfBirth = LocalDate.parse(row.getDateOfBirth());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date of birth '" + row.getDateOfBirth() + "'");
+            }
+            if (dateOfBirth.isAfter(LocalDate.now())) {
+                throw new IllegalArgumentException("Date of birth is in the future");
+            }
+        }
+        return new Candidate(rowNumber, row, dateOfBirth,
+                parse(Patient.Gender.class, row.getGender(), "gender"),
+                parse(Patient.BloodGroup.class, bloodGroupName(row.getBloodGroup()), "blood group"),
+                parse(Patient.Genotype.class, row.getGenotype(), "genotype"),
+                parse(Patient.MaritalStatus.class, row.getMaritalStatus(), "marital status"));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + label + " '" + value + "'");
+        }
+    }
+
+    // Legacy registers mostly write blood groups as "O+" or "AB-"
+    private static String bloodGroupName(String value) {
+        if (value == null || value.length() < 2) {
+            return value;
+        }
+        String group = value.substring(0, value.length() - 1).trim();
+        return switch (value.charAt(value.length() - 1)) {
+            case '+' -> group + "_POSITIVE";
+            case '-' -> group + "_NEGATIVE";
+            default -> value;
+        };
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    // Surrounding blanks are dropped and blank values count as missing
+    private static PatientImportRowDto trimmed(PatientImportRowDto row) {
+        return new PatientImportRowDto(trim(row.getFirstName()), trim(row.getLastName()), trim(row.getEmail()),
+                trim(row.getPhoneNumber()), trim(row.getDateOfBirth()), trim(row.getGender()), trim(row.getAddress()),
+                trim(row.getBloodGroup()), trim(row.getGenotype()), trim(row.getMaritalStatus()),
+                trim(row.getOccupation()), row.getPassword() == null || row.getPassword().isEmpty() ? null : row.getPassword());
+    }
+
+    private static String trim(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Never shown to anyone: an account imported without a password cannot sign in with one until it is given a new one
+    private static String randomPassword() {
+        byte[] bytes = new byte[18];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().encodeToString(bytes);
+    }
+
+    private RowReader open(PatientImport.Format format, InputStream input) throws IOException {
+        InputStreamReader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        return format == PatientImport.Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+    }
+
+    private RowReader csvRows(InputStreamReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV input is empty; it needs at least a header row.");
+        }
+        List<BiConsumer<PatientImportRowDto, String>> setters = new ArrayList<>(header.size());
+        Set<String> seen = new HashSet<>();
+        for (String column : header) {
+            String key = column.replaceAll("[\\s_]", "").toLowerCase(Locale.ROOT);
+            BiConsumer<PatientImportRowDto, String> setter = COLUMNS.get(key);
+            if (setter == null) {
+                throw new IllegalArgumentException("Unknown CSV column '" + column + "'.");
+            }
+            if (!seen.add(key)) {
+                throw new IllegalArgumentException("CSV column '" + column + "' appears twice.");
+            }
+            setters.add(setter);
+        }
+        if (!seen.contains("firstname") || !seen.contains("lastname")) {
+            throw new IllegalArgumentException("CSV header must name the firstName and lastName columns.");
+        }
+        return new RowReader() {
+            @Override
+            public Row next() throws IOException {
+                List<String> fields = csv.next();
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.size() != setters.size()) {
+                    return new Row(null, "Expected " + setters.size() + " fields, found " + fields.size());
+                }
+                PatientImportRowDto row = new PatientImportRowDto();
+                for (int i = 0; i < fields.size(); i++) {
+                    setters.get(i).accept(row, fields.get(i));
+                }
+                return new Row(row, null);
+            }
+
+            @Override
+            public void close() throws IOException {
+                csv.close();
+            }
+        };
+    }
+
+    private RowReader ndjsonRows(InputStreamReader reader) {
+        BufferedReader lines = new BufferedReader(reader);
+        ObjectReader rows = objectMapper.readerFor(PatientImportRowDto.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return new RowReader() {
+            @Override
+            public Row next() throws IOException {
+                String line;
+                do {
+                    line = lines.readLine();
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    return null;
+                }
+                try {
+                    PatientImportRowDto row = rows.readValue(line);
+                    return row == null ? new Row(null, "Row is not a JSON object") : new Row(row, null);
+                } catch (JsonProcessingException e) {
+                    return new Row(null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                lines.close();
+            }
+        };
+    }
+
+    private static PatientImportDto toDto(PatientImport patientImport) {
+        return new PatientImportDto(patientImport.getId(), patientImport.getSource(), patientImport.getFormat(),
+                patientImport.getStatus(), patientImport.getRowsProcessed(), patientImport.getImportedCount(),
+                patientImport.getRejectedCount(), patientImport.getLastError(), patientImport.getCreatedAt(),
+                patientImport.getUpdatedAt());
+    }
+}
@@ -0,0 +1,367 @@
+package com.ehr.service;
+
+import com.ehr.dto.PatientSearchEntryDto;
+import com.ehr.event.PatientChangedEvent;
+import com.ehr.repository.PatientRepository;
+import com.ehr.util.FuzzyNameIndex;
+import com.ehr.util.TrigramIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over the first name, last name, email and phone number of every patient, so
+ * patient search does not scan the users table with leading-wildcard LIKEs. Matches follow the search
+ * query: a case-insensitive substring of a name or the email, or a case-sensitive substring of the phone
+ * number. They are ranked by how well the best field matches, then by patient id. Next to it sits a
+ * phonetic and edit-distance index of the names, for finding patients under a misspelt name.
+ *
+ * It is warmed at startup, kept current by patient events after each commit and fully rebuilt on a
+ * schedule to pick up changes made by other nodes. Posting lists are updated in place, so unlike the
+ * slot index, readers share a read lock with the writers.
+ */
+@Component
+public class PatientSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientSearchIndex.class);
+
+    private static final int FIRST_NAME = 0;
+    private static final int LAST_NAME = 1;
+    private static final int EMAIL = 2;
+    private static final int PHONE = 3;
+
+    // Match quality of the best field; higher ranks first
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int WORD_PREFIX = 1;
+    private static final int SUBSTRING = 0;
+    private static final int NO_MATCH = -1;
+
+    /** Rank of a keyset position in a listing ordered by patient id alone. */
+    public static final int UNRANKED = -1;
+
+    /** A match and its rank, 0 for the best; the pair is the keyset position after it. */
+    public record Match(long patientId, int rank) {
+    }
+
+    public record SearchSlice(List<Match> matches, int total) {
+    }
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final class Snapshot {
+        private final TrigramIndex trigrams = new TrigramIndex(4);
+        private final FuzzyNameIndex names = new FuzzyNameIndex();
+
+        private void put(PatientSearchEntryDto entry) {
+            int id = Math.toIntExact(entry.getPatientId());
+            // Names and email are stored folded for the case-insensitive checks; the phone keeps its case
+            trigrams.put(id,
+                    TrigramIndex.foldCase(entry.getFirstName()),
+                    TrigramIndex.foldCase(entry.getLastName()),
+                    TrigramIndex.foldCase(entry.getEmail()),
+                    entry.getPhoneNumber());
+            names.put(id, entry.getFirstName(), entry.getLastName());
+        }
+    }
+
+    private volatile Snapshot snapshot; // null until the first warm-up completes
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Serializes writers and the swap of a rebuilt index
+    private final Object writeLock = new Object();
+    private List<PatientSearchEntryDto> replayLog; // non-null while a rebuild is loading
+
+    private Counter indexHits;
+    private Counter indexFallbacks;
+
+    @PostConstruct
+    public void init() {
+        indexHits = Counter.builder("ehr.patients.index.queries").tag("result", "hit").register(meterRegistry);
+        indexFallbacks = Counter.builder("ehr.patients.index.queries").tag("result", "fallback").register(meterRegistry);
+        Gauge.builder("ehr.patients.index.size", this, PatientSearchIndex::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // Periodic rebuild absorbs patients created or renamed on other nodes
+    @Scheduled(cron = "${ehr.patients.index.refresh-cron:0 0 * * * *}")
+    public void refresh() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (writeLock) {
+            if (replayLog != null) {
+                return; // a rebuild is already running
+            }
+            replayLog = new ArrayList<>();
+        }
+        try {
+            long begin = System.currentTimeMillis();
+            Snapshot fresh = new Snapshot();
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> {
+                try (Stream<PatientSearchEntryDto> entries = patientRepository.streamSearchEntries()) {
+                    entries.forEach(fresh::put);
+                }
+            });
+            synchronized (writeLock) {
+                // Changes committed while we were loading are applied on top of the fresh data
+                replayLog.forEach(fresh::put);
+                snapshot = fresh;
+            }
+            log.info("Patient search index rebuilt with {} patients in {} ms", fresh.trigrams.size(), System.currentTimeMillis() - begin);
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild patient search index", e);
+        } finally {
+            synchronized (writeLock) {
+                replayLog = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return current.trigrams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the patients matching {@code term}, best match first, sliced to {@code pageable} (which may be
+     * unpaged). Empty when the caller must query the database instead: before the first warm-up, for a
+     * requested sort order, and for terms with LIKE wildcards, which the query does not escape.
+     */
+    public Optional<Page<Long>> search(String term, Pageable pageable) {
+        Snapshot current = snapshot;
+        if (!answers(current, term) || pageable.getSort().isSorted()) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+
+        int wanted = pageable.isPaged()
+                ? (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE)
+                : Integer.MAX_VALUE;
+        Matches matches = collect(current, term, true, Long.MIN_VALUE, wanted);
+        long[] ranked = matches.sorted();
+        int first = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), ranked.length) : 0;
+        List<Long> ids = new ArrayList<>(ranked.length - first);
+        for (int i = first; i < ranked.length; i++) {
+            ids.add(ranked[i] & 0xFFFFFFFFL);
+        }
+        return Optional.of(new PageImpl<>(ids, pageable, matches.total));
+    }
+
+    /**
+     * Up to {@code limit} matches ordered after the keyset position (rank, afterId), best rank first and
+     * then by id, with the number of matches in total. Each call keeps only the {@code limit} next matches,
+     * so a deep page costs the same as the first. A rank of {@link #UNRANKED} orders the matches by id alone,
+     * to continue a listing that the database started. Empty under the same conditions as {@link #search}.
+     */
+    public Optional<SearchSlice> searchAfter(String term, int rank, long afterId, int limit) {
+        Snapshot current = snapshot;
+        if (!answers(current, term)) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+
+        boolean ranked = rank != UNRANKED;
+        Matches matches = collect(current, term, ranked, ranked ? ((long) rank << 32) + afterId : afterId, limit);
+        List<Match> next = new ArrayList<>(limit);
+        for (long key : matches.sorted()) {
+            next.add(new Match(key & 0xFFFFFFFFL, ranked ? (int) (key >>> 32) : UNRANKED));
+        }
+        return Optional.of(new SearchSlice(next, matches.total));
+    }
+
+    /**
+     * Up to {@code limit} patients whose first or last name is spelt or sounds like {@code name}, best match
+     * first. Empty before the first warm-up; the database has no equivalent to fall back to.
+     */
+    public Optional<List<FuzzyNameIndex.Match>> fuzzySearch(String name, int limit) {
+        Snapshot current = snapshot;
+        if (current == null || name == null) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+        lock.readLock().lock();
+        try {
+            return Optional.of(current.names.search(name, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean answers(Snapshot current, String term) {
+        return current != null && term != null && term.indexOf('%') < 0 && term.indexOf('_') < 0;
+    }
+
+    // The smallest sort keys after a keyset position in a bounded max-heap, and how many matches there are in all
+    private static final class Matches {
+        private final int limit;
+        private long[] heap;
+        private int size;
+        private int total;
+
+        private Matches(int limit) {
+            this.limit = limit;
+            this.heap = new long[Math.min(limit, 64)];
+        }
+
+        private void offer(long key) {
+            if (size < limit) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, (int) Math.min(limit, size * 2L));
+                }
+                int at = size++;
+                while (at > 0 && heap[(at - 1) / 2] < key) {
+                    heap[at] = heap[(at - 1) / 2];
+                    at = (at - 1) / 2;
+                }
+                heap[at] = key;
+            } else if (size > 0 && key < heap[0]) {
+                int at = 0;
+                for (int child = 1; child < size; child = 2 * at + 1) {
+                    if (child + 1 < size && heap[child + 1] > heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] <= key) {
+                        break;
+                    }
+                    heap[at] = heap[child];
+                    at = child;
+                }
+                heap[at] = key;
+            }
+        }
+
+        private long[] sorted() {
+            long[] keys = Arrays.copyOf(heap, size);
+            Arrays.sort(keys);
+            return keys;
+        }
+    }
+
+    /**
+     * A ranked key is (rank << 32 | id), so ascending keys put the best matches first and break ties by id;
+     * an unranked key is the id. Keeps the {@code limit} smallest keys greater than {@code afterKey}.
+     */
+    private Matches collect(Snapshot current, String term, boolean ranked, long afterKey, int limit) {
+        String folded = TrigramIndex.foldCase(term);
+        Matches matches = new Matches(limit);
+        lock.readLock().lock();
+        try {
+            current.trigrams.forEachCandidate(folded, id -> {
+                int quality = quality(current.trigrams.fields(id), folded, term);
+                if (quality == NO_MATCH) {
+                    return;
+                }
+                matches.total++;
+                long key = ranked ? ((long) (EXACT - quality) << 32) | id : id;
+                if (key > afterKey) {
+                    matches.offer(key);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        PatientSearchEntryDto entry = event.getPatient();
+        if (entry.getPatientId() == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current != null) {
+                lock.writeLock().lock();
+                try {
+                    current.put(entry);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            if (replayLog != null) {
+                replayLog.add(entry);
+            }
+        }
+    }
+
+    private static int quality(String[] fields, String folded, String term) {
+        int best = NO_MATCH;
+        best = Math.max(best, quality(fields[FIRST_NAME], folded));
+        best = Math.max(best, quality(fields[LAST_NAME], folded));
+        best = Math.max(best, quality(fields[EMAIL], folded));
+        return Math.max(best, quality(fields[PHONE], term));
+    }
+
+    private static int quality(String field, String term) {
+        if (field == null) {
+            return NO_MATCH;
+        }
+        int at = field.indexOf(term);
+        if (at < 0) {
+            return NO_MATCH;
+        }
+        if (at == 0) {
+            return field.length() == term.length() ? EXACT : PREFIX;
+        }
+        // A later occurrence may still start a word, as in "anna-marie" or "jo.smith@"
+        for (; at > 0; at = field.indexOf(term, at + 1)) {
+            if (!Character.isLetterOrDigit(field.charAt(at - 1))) {
+                return WORD_PREFIX;
+            }
+        }
+        return SUBSTRING;
+    }
+}
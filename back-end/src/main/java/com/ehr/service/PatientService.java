@@ -1,29 +1,95 @@
 package com.ehr.service;
 
+import com.ehr.dto.PatientMatchDto;
 import com.ehr.dto.PatientResponseDto;
+import com.ehr.dto.PatientSearchEntryDto;
+import com.ehr.dto.PatientSearchPageDto;
 import com.ehr.dto.PatientUpdateDto;
+import com.ehr.event.PatientChangedEvent;
 import com.ehr.models.Patient;
 import com.ehr.models.User;
 import com.ehr.repository.PatientRepository;
-import com.ehr.repository.UserRepository;
+import com.ehr.util.CursorCodec;
+import com.ehr.util.FuzzyNameIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Optional;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class PatientService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SIMILAR_RESULTS = 50;
+
     @Autowired
     private PatientRepository patientRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ehr.patients.search.total-cache-seconds:60}")
+    private long totalCacheSeconds = 60;
+
+    @Value("${ehr.patients.profile-cache.max-size:10000}")
+    private long profileCacheSize = 10_000;
+
+    @Value("${ehr.patients.profile-cache.ttl-seconds:300}")
+    private long profileCacheSeconds = 300;
+
+    // Match counts of the database fallback by search term; the index counts its matches for free
+    private Cache<String, Long> searchTotals;
+
+    // Profiles by patient id, dropped after each committed change to the patient; the expiry bounds
+    // how long a change made on another node can go unseen. Entries are shared, so callers must not modify them.
+    private Cache<Long, PatientResponseDto> profiles;
+
+    // A user's patient never changes, so this mapping only needs the size bound
+    private Cache<String, Long> patientIdsByUserId;
+
+    @PostConstruct
+    public void init() {
+        searchTotals = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(totalCacheSeconds, TimeUnit.SECONDS)
+                .build();
+        profiles = Caffeine.newBuilder()
+                .maximumSize(profileCacheSize)
+                .expireAfterWrite(profileCacheSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        patientIdsByUserId = Caffeine.newBuilder()
+                .maximumSize(profileCacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "patient.profiles");
+        CaffeineCacheMetrics.monitor(meterRegistry, patientIdsByUserId, "patient.ids-by-user");
+    }
 
     @Transactional
     public PatientResponseDto updatePatient(Long patientId, PatientUpdateDto dto) {
@@ -39,37 +105,134 @@ public class PatientService {
         patient.setOccupation(dto.getOccupation());
 
         Patient updatedPatient = patientRepository.save(patient);
+        publishChanged(updatedPatient);
         return convertToDto(updatedPatient);
     }
 
     public Optional<PatientResponseDto> getPatientByUserId(String userId) {
-        Optional<User> userOptional = userRepository.findByIdWithPatient(userId);
-        if (userOptional.isEmpty()) {
-            return Optional.empty();
-        }
-        User user = userOptional.get();
-        Patient patient = user.getPatient();
-        if (patient == null) {
-            return Optional.empty();
-        }
-        return Optional.of(convertToDto(patient));
+        return findPatientIdByUserId(userId).flatMap(this::getPatientById);
     }
     
+    public Optional<Long> findPatientIdByUserId(String userId) {
+        return Optional.ofNullable(patientIdsByUserId.get(userId, id -> patientRepository.findIdByUserId(id).orElse(null)));
+    }
+
+    // Served from the profile cache; a miss loads the patient and its user in one query
     public Optional<PatientResponseDto> getPatientById(Long patientId) {
-        return patientRepository.findById(patientId).map(this::convertToDto);
+        return Optional.ofNullable(profiles.get(patientId,
+                id -> patientRepository.findByIdWithUser(id).map(this::convertToDto).orElse(null)));
     }
 
     public List<PatientResponseDto> searchPatients(String searchTerm) {
+        Optional<Page<Long>> ranked = patientSearchIndex.search(searchTerm, Pageable.unpaged());
+        if (ranked.isPresent()) {
+            return loadInOrder(ranked.get().getContent());
+        }
         return patientRepository.searchPatients(searchTerm).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    // Answered from the search index, best matches first; the query is only used until the index is warm
     public Page<PatientResponseDto> searchPatientsPaginated(String searchTerm, Pageable pageable) {
+        Optional<Page<Long>> ranked = patientSearchIndex.search(searchTerm, pageable);
+        if (ranked.isPresent()) {
+            return new PageImpl<>(loadInOrder(ranked.get().getContent()), pageable, ranked.get().getTotalElements());
+        }
         Page<Patient> patients = patientRepository.searchPatientsPaginated(searchTerm, pageable);
         return patients.map(this::convertToDto);
     }
 
+    /**
+     * Patients matching the term, best match first, one page per call. Pages resume after the cursor
+     * instead of skipping an offset and no count is run, so every page costs about the same; the total
+     * is only estimated when {@code includeTotal} is set.
+     */
+    public PatientSearchPageDto searchPatientPage(String searchTerm, String cursor, int limit, boolean includeTotal) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        // Without a cursor the first page starts before the best rank; patient ids are positive
+        CursorCodec.RankPosition after = cursor == null || cursor.isBlank()
+                ? new CursorCodec.RankPosition(0, -1L)
+                : CursorCodec.decodeRank(cursor);
+
+        Optional<PatientSearchIndex.SearchSlice> slice = patientSearchIndex.searchAfter(searchTerm, after.rank(), after.id(), limit + 1);
+        if (slice.isPresent()) {
+            List<PatientSearchIndex.Match> matches = slice.get().matches();
+            boolean hasMore = matches.size() > limit;
+            List<PatientSearchIndex.Match> page = hasMore ? matches.subList(0, limit) : matches;
+            PatientSearchIndex.Match last = page.isEmpty() ? null : page.get(page.size() - 1);
+            String nextCursor = hasMore ? CursorCodec.encodeRank(last.rank(), last.patientId()) : null;
+            return new PatientSearchPageDto(loadInOrder(page.stream().map(PatientSearchIndex.Match::patientId).toList()),
+                    nextCursor, hasMore, includeTotal ? Long.valueOf(slice.get().total()) : null);
+        }
+
+        // The database pages by id; a ranked position means nothing there, so such a listing starts over
+        long afterId = after.rank() == PatientSearchIndex.UNRANKED ? after.id() : 0L;
+        List<Patient> rows = patientRepository.searchPatientsAfter(searchTerm, afterId, Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<Patient> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? CursorCodec.encodeRank(PatientSearchIndex.UNRANKED, page.get(page.size() - 1).getId()) : null;
+        return new PatientSearchPageDto(page.stream().map(this::convertToDto).collect(Collectors.toList()), nextCursor, hasMore,
+                includeTotal ? searchTotals.get(searchTerm, patientRepository::countSearchMatches) : null);
+    }
+
+    /**
+     * Patients whose name is spelt or sounds like {@code name}, best match first, so the walk-in desk can
+     * find an existing record under a mistyped name before registering a new one. Until the search index
+     * is warm this is a plain substring search.
+     */
+    public List<PatientMatchDto> findSimilarPatients(String name, int limit) {
+        if (limit < 1 || limit > MAX_SIMILAR_RESULTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SIMILAR_RESULTS + ".");
+        }
+        Optional<List<FuzzyNameIndex.Match>> matches = patientSearchIndex.fuzzySearch(name, limit);
+        if (matches.isEmpty()) {
+            return patientRepository.searchPatientsAfter(name, 0L, Limit.of(limit)).stream()
+                    .map(patient -> new PatientMatchDto(convertToDto(patient), null))
+                    .collect(Collectors.toList());
+        }
+        List<PatientResponseDto> patients = loadInOrder(matches.get().stream().map(match -> (long) match.id()).toList());
+        Map<Long, Double> scores = matches.get().stream()
+                .collect(Collectors.toMap(match -> (long) match.id(), FuzzyNameIndex.Match::score));
+        return patients.stream()
+                .map(patient -> new PatientMatchDto(patient, scores.get(patient.getId())))
+                .collect(Collectors.toList());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (event.getPatient().getPatientId() != null) {
+            profiles.invalidate(event.getPatient().getPatientId());
+        }
+    }
+
+    /**
+     * Lets the search index pick up a patient's current name, email and phone number, and drops the
+     * cached profile, after commit.
+     */
+    public void publishChanged(Patient patient) {
+        User user = patient.getUser();
+        if (user != null) {
+            eventPublisher.publishEvent(new PatientChangedEvent(new PatientSearchEntryDto(patient.getId(),
+                    user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhoneNumber())));
+        }
+    }
+
+    private List<PatientResponseDto> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Patient> patients = patientRepository.findAllWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        return ids.stream()
+                .map(patients::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
     private PatientResponseDto convertToDto(Patient patient) {
         PatientResponseDto dto = new PatientResponseDto();
         dto.setId(patient.getId());
@@ -0,0 +1,172 @@
+package com.ehr.service;
+
+import com.ehr.dto.ClinicHolidayDto;
+import com.ehr.dto.ScheduleExceptionDto;
+import com.ehr.dto.ScheduleTemplateCreationDto;
+import com.ehr.dto.ScheduleTemplateResponseDto;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.ClinicHoliday;
+import com.ehr.models.ScheduleException;
+import com.ehr.models.ScheduleTemplate;
+import com.ehr.models.Staff;
+import com.ehr.repository.ClinicHolidayRepository;
+import com.ehr.repository.ScheduleExceptionRepository;
+import com.ehr.repository.ScheduleTemplateRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.util.AuthenticatedUserProvider;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ScheduleService {
+
+    @Autowired
+    private ScheduleTemplateRepository scheduleTemplateRepository;
+    @Autowired
+    private ClinicHolidayRepository clinicHolidayRepository;
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private AuthenticatedUserProvider authenticatedUserProvider;
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+
+    @Transactional
+    public ScheduleTemplateResponseDto createTemplate(ScheduleTemplateCreationDto dto) {
+        Staff doctor = findDoctorForCurrentStaff(dto.getDoctorId());
+
+        if (!dto.getStartTime().isBefore(dto.getEndTime())) {
+            throw new IllegalArgumentException("Start time must be before end time.");
+        }
+        LocalDate validFrom = dto.getValidFrom() != null ? dto.getValidFrom() : LocalDate.now();
+        if (dto.getValidUntil() != null && dto.getValidUntil().isBefore(validFrom)) {
+            throw new IllegalArgumentException("Valid until must not be before valid from.");
+        }
+
+        ScheduleTemplate template = new ScheduleTemplate();
+        template.setDoctor(doctor);
+        template.setDaysOfWeek(EnumSet.copyOf(dto.getDaysOfWeek()));
+        // Whole minutes, which virtual slot ids rely on
+        template.setStartTime(dto.getStartTime().truncatedTo(ChronoUnit.MINUTES));
+        template.setEndTime(dto.getEndTime().truncatedTo(ChronoUnit.MINUTES));
+        template.setSlotMinutes(dto.getSlotMinutes());
+        template.setSlotCapacity(dto.getSlotCapacity() != null ? dto.getSlotCapacity() : 1);
+        template.setSkipHolidays(dto.isSkipHolidays());
+        template.setValidFrom(validFrom);
+        template.setValidUntil(dto.getValidUntil());
+        template.setActive(true);
+        template.setVirtualSlots(Boolean.TRUE.equals(dto.getVirtualSlots()));
+
+        ScheduleTemplate saved = scheduleTemplateRepository.save(template);
+        if (saved.isVirtualSlots()) {
+            virtualSlotService.onVirtualTemplateCreated();
+        }
+        return new ScheduleTemplateResponseDto(saved);
+    }
+
+    @Transactional
+    public List<ScheduleTemplateResponseDto> getDoctorTemplates(Long doctorId) {
+        Staff doctor = findDoctorForCurrentStaff(doctorId);
+        return scheduleTemplateRepository.findByDoctorOrderByIdAsc(doctor).stream()
+                .map(ScheduleTemplateResponseDto::new)
+                .collect(Collectors.toList());
+    }
+
+    // Loads a template after checking the caller may manage that doctor's schedule
+    @Transactional
+    public ScheduleTemplate getTemplateForCurrentStaff(Long templateId) {
+        ScheduleTemplate template = scheduleTemplateRepository.findById(templateId)
+                .orElseThrow(() -> new ResourceNotFoundException("Schedule template not found with ID: " + templateId));
+        findDoctorForCurrentStaff(template.getDoctor().getId());
+        return template;
+    }
+
+    // Stops future generation; slots already generated stay as they are
+    @Transactional
+    public ScheduleTemplateResponseDto deactivateTemplate(Long templateId) {
+        ScheduleTemplate template = getTemplateForCurrentStaff(templateId);
+
+        template.setActive(false);
+        return new ScheduleTemplateResponseDto(scheduleTemplateRepository.save(template));
+    }
+
+    @Transactional
+    public ClinicHolidayDto addHoliday(ClinicHolidayDto dto) {
+        if (clinicHolidayRepository.existsByDate(dto.getDate())) {
+            throw new IllegalArgumentException("A holiday is already registered on " + dto.getDate());
+        }
+        ClinicHoliday holiday = new ClinicHoliday();
+        holiday.setDate(dto.getDate());
+        holiday.setName(dto.getName());
+        return new ClinicHolidayDto(clinicHolidayRepository.save(holiday));
+    }
+
+    public List<ClinicHolidayDto> getHolidays(LocalDate from, LocalDate to) {
+        return clinicHolidayRepository.findByDateBetweenOrderByDateAsc(from, to).stream()
+                .map(ClinicHolidayDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public ScheduleExceptionDto addException(Long doctorId, ScheduleExceptionDto dto) {
+        Staff doctor = findDoctorForCurrentStaff(doctorId);
+        if ((dto.getStartTime() == null) != (dto.getEndTime() == null)) {
+            throw new IllegalArgumentException("Give both start and end time, or neither for the whole day.");
+        }
+        if (dto.getStartTime() != null && !dto.getStartTime().isBefore(dto.getEndTime())) {
+            throw new IllegalArgumentException("Start time must be before end time.");
+        }
+        ScheduleException exception = new ScheduleException();
+        exception.setDoctor(doctor);
+        exception.setDate(dto.getDate());
+        exception.setStartTime(dto.getStartTime());
+        exception.setEndTime(dto.getEndTime());
+        exception.setReason(dto.getReason());
+        return new ScheduleExceptionDto(scheduleExceptionRepository.save(exception));
+    }
+
+    @Transactional
+    public List<ScheduleExceptionDto> getDoctorExceptions(Long doctorId, LocalDate from, LocalDate to) {
+        findDoctorForCurrentStaff(doctorId);
+        return scheduleExceptionRepository.findByDoctorBetween(doctorId, from, to).stream()
+                .map(ScheduleExceptionDto::new)
+                .collect(Collectors.toList());
+    }
+
+    // Slots already stored inside the exception stay as they are; only virtual and future generated slots reappear
+    @Transactional
+    public void deleteException(Long exceptionId) {
+        ScheduleException exception = scheduleExceptionRepository.findById(exceptionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Schedule exception not found with ID: " + exceptionId));
+        findDoctorForCurrentStaff(exception.getDoctor().getId());
+        scheduleExceptionRepository.delete(exception);
+    }
+
+    private Staff findDoctorForCurrentStaff(Long doctorId) {
+        Staff doctor = staffRepository.findById(doctorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + doctorId));
+
+        if (doctor.getRole() != Staff.Role.DOCTOR) {
+            throw new IllegalArgumentException("Staff with ID " + doctorId + " is not a doctor.");
+        }
+
+        JwtPrincipal currentUser = authenticatedUserProvider.getStaffPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Action requires a staff account."));
+
+        if (!currentUser.hasStaffRole(Staff.Role.ADMIN) && !currentUser.getStaffId().equals(doctor.getId())) {
+            throw new UnauthorizedException("Doctors can only manage their own schedule.");
+        }
+        return doctor;
+    }
+}
@@ -0,0 +1,329 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.event.SlotsGeneratedEvent;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.repository.AppointmentSlotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of AVAILABLE slots from the start of today onwards, sorted by start time
+ * globally and per doctor, so availability range queries are answered without the database.
+ *
+ * It is warmed at startup, kept current by slot events after each commit and fully rebuilt
+ * on a schedule to pick up changes made by other nodes. Booking always goes through the
+ * conditional claim in the database, so a briefly stale entry can only cause a refused claim.
+ */
+@Component
+public class SlotAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotAvailabilityIndex.class);
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record SlotKey(LocalDateTime startTime, long id) implements Comparable<SlotKey> {
+        @Override
+        public int compareTo(SlotKey other) {
+            int byStart = startTime.compareTo(other.startTime);
+            return byStart != 0 ? byStart : Long.compare(id, other.id);
+        }
+
+        static SlotKey lowest(LocalDateTime startTime) {
+            return new SlotKey(startTime, Long.MIN_VALUE);
+        }
+
+        static SlotKey highest(LocalDateTime startTime) {
+            return new SlotKey(startTime, Long.MAX_VALUE);
+        }
+    }
+
+    private static final class Snapshot {
+        private final LocalDateTime coverageStart;
+        private final ConcurrentSkipListMap<SlotKey, AppointmentSlotResponseDto> all = new ConcurrentSkipListMap<>();
+        private final Map<Long, ConcurrentSkipListMap<SlotKey, AppointmentSlotResponseDto>> byDoctor = new ConcurrentHashMap<>();
+        private final Map<Long, SlotKey> keysById = new ConcurrentHashMap<>();
+
+        private Snapshot(LocalDateTime coverageStart) {
+            this.coverageStart = coverageStart;
+        }
+
+        private void put(AppointmentSlotResponseDto slot) {
+            remove(slot.getId());
+            if (slot.getStartTime().isBefore(coverageStart)) {
+                return;
+            }
+            SlotKey key = new SlotKey(slot.getStartTime(), slot.getId());
+            keysById.put(slot.getId(), key);
+            all.put(key, slot);
+            byDoctor.computeIfAbsent(slot.getDoctorId(), id -> new ConcurrentSkipListMap<>()).put(key, slot);
+        }
+
+        private void remove(Long slotId) {
+            SlotKey key = keysById.remove(slotId);
+            if (key == null) {
+                return;
+            }
+            AppointmentSlotResponseDto removed = all.remove(key);
+            if (removed != null) {
+                NavigableMap<SlotKey, AppointmentSlotResponseDto> doctorSlots = byDoctor.get(removed.getDoctorId());
+                if (doctorSlots != null) {
+                    doctorSlots.remove(key);
+                }
+            }
+        }
+    }
+
+    private volatile Snapshot snapshot; // null until the first warm-up completes
+
+    // Writers serialize on this lock; readers never take it
+    private final Object writeLock = new Object();
+    private List<Consumer<Snapshot>> replayLog; // non-null while a rebuild is loading
+
+    private Counter indexHits;
+    private Counter indexFallbacks;
+
+    @PostConstruct
+    public void init() {
+        indexHits = Counter.builder("ehr.slots.index.queries").tag("result", "hit").register(meterRegistry);
+        indexFallbacks = Counter.builder("ehr.slots.index.queries").tag("result", "fallback").register(meterRegistry);
+        Gauge.builder("ehr.slots.index.size", this, SlotAvailabilityIndex::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // Periodic rebuild moves the coverage window forward and absorbs changes made on other nodes
+    @Scheduled(cron = "${ehr.slots.index.refresh-cron:0 */30 * * * *}")
+    public void refresh() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (writeLock) {
+            if (replayLog != null) {
+                return; // a rebuild is already running
+            }
+            replayLog = new ArrayList<>();
+        }
+        try {
+            long begin = System.currentTimeMillis();
+            Snapshot fresh = new Snapshot(LocalDate.now().atStartOfDay());
+            appointmentSlotRepository.findSlotViewsByStatusStartingFrom(AppointmentSlot.SlotStatus.AVAILABLE, fresh.coverageStart)
+                    .forEach(fresh::put);
+            synchronized (writeLock) {
+                // Changes committed while we were loading are applied on top of the fresh data
+                replayLog.forEach(op -> op.accept(fresh));
+                snapshot = fresh;
+            }
+            log.info("Slot availability index rebuilt with {} slots in {} ms", fresh.all.size(), System.currentTimeMillis() - begin);
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild slot availability index", e);
+        } finally {
+            synchronized (writeLock) {
+                replayLog = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.all.size();
+    }
+
+    /**
+     * Available slots of every doctor starting within [from, to], ordered by start time,
+     * or empty when the range is not covered by the index and the caller must query the database.
+     */
+    public Optional<List<AppointmentSlotResponseDto>> findAvailable(LocalDateTime from, LocalDateTime to) {
+        Snapshot current = snapshot;
+        if (!covers(current, from)) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+        return Optional.of(range(current.all, from, to));
+    }
+
+    public Optional<List<AppointmentSlotResponseDto>> findAvailableForDoctor(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        Snapshot current = snapshot;
+        if (!covers(current, from)) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+        NavigableMap<SlotKey, AppointmentSlotResponseDto> doctorSlots = current.byDoctor.get(doctorId);
+        return Optional.of(doctorSlots == null ? List.of() : range(doctorSlots, from, to));
+    }
+
+    /**
+     * Up to {@code limit} available slots ordered after the keyset position (afterStart, afterId) and starting
+     * no later than {@code to}, for one doctor or for every doctor when {@code doctorId} is null.
+     */
+    public Optional<List<AppointmentSlotResponseDto>> findAvailableAfter(Long doctorId, LocalDateTime afterStart, long afterId,
+                                                                        LocalDateTime to, int limit) {
+        Snapshot current = snapshot;
+        if (!covers(current, afterStart)) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+        NavigableMap<SlotKey, AppointmentSlotResponseDto> slots = doctorId == null ? current.all : current.byDoctor.get(doctorId);
+        if (slots == null || to.isBefore(afterStart)) {
+            return Optional.of(List.of());
+        }
+        List<AppointmentSlotResponseDto> page = new ArrayList<>(Math.min(limit, 256));
+        for (AppointmentSlotResponseDto slot : slots.subMap(new SlotKey(afterStart, afterId), false, SlotKey.highest(to), true).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(slot);
+        }
+        return Optional.of(page);
+    }
+
+    /**
+     * The {@code k} earliest available slots starting at or after {@code from}, across the given doctors or across
+     * every doctor when {@code doctorIds} is null. Every doctor's slots are already sorted, so this is a k-way merge
+     * over the doctors' cursors: O(d log d + k log d) for d doctors, however many slots lie ahead of them.
+     */
+    public Optional<List<AppointmentSlotResponseDto>> findEarliest(Collection<Long> doctorIds, LocalDateTime from, int k) {
+        Snapshot current = snapshot;
+        if (!covers(current, from)) {
+            indexFallbacks.increment();
+            return Optional.empty();
+        }
+        indexHits.increment();
+        List<AppointmentSlotResponseDto> earliest = new ArrayList<>(k);
+        if (doctorIds == null) {
+            // The global map is the merge of every doctor already
+            for (AppointmentSlotResponseDto slot : current.all.tailMap(SlotKey.lowest(from), true).values()) {
+                if (earliest.size() == k) {
+                    break;
+                }
+                earliest.add(slot);
+            }
+            return Optional.of(earliest);
+        }
+
+        PriorityQueue<DoctorCursor> heads = new PriorityQueue<>(Math.max(1, doctorIds.size()),
+                Comparator.comparing(DoctorCursor::head));
+        for (Long doctorId : doctorIds) {
+            NavigableMap<SlotKey, AppointmentSlotResponseDto> doctorSlots = current.byDoctor.get(doctorId);
+            if (doctorSlots != null) {
+                DoctorCursor cursor = new DoctorCursor(doctorSlots.tailMap(SlotKey.lowest(from), true).entrySet().iterator());
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        }
+        while (earliest.size() < k && !heads.isEmpty()) {
+            DoctorCursor cursor = heads.poll();
+            earliest.add(cursor.slot);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return Optional.of(earliest);
+    }
+
+    private static final class DoctorCursor {
+        private final Iterator<Map.Entry<SlotKey, AppointmentSlotResponseDto>> remaining;
+        private SlotKey key;
+        private AppointmentSlotResponseDto slot;
+
+        private DoctorCursor(Iterator<Map.Entry<SlotKey, AppointmentSlotResponseDto>> remaining) {
+            this.remaining = remaining;
+        }
+
+        private boolean advance() {
+            if (!remaining.hasNext()) {
+                return false;
+            }
+            Map.Entry<SlotKey, AppointmentSlotResponseDto> next = remaining.next();
+            key = next.getKey();
+            slot = next.getValue();
+            return true;
+        }
+
+        private SlotKey head() {
+            return key;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        AppointmentSlotResponseDto slot = event.getSlot();
+        switch (event.getType()) {
+            case CREATED, RELEASED, SEATS_CHANGED -> apply(s -> s.put(slot));
+            case BOOKED, HELD, EXPIRED -> apply(s -> s.remove(slot.getId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotsGenerated(SlotsGeneratedEvent event) {
+        List<AppointmentSlotResponseDto> generated = appointmentSlotRepository.findSlotViewsByDoctorAndStatusBetween(
+                event.getDoctorId(), AppointmentSlot.SlotStatus.AVAILABLE, event.getFrom(), event.getTo());
+        apply(s -> generated.forEach(s::put));
+    }
+
+    private void apply(Consumer<Snapshot> op) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current != null) {
+                op.accept(current);
+            }
+            if (replayLog != null) {
+                replayLog.add(op);
+            }
+        }
+    }
+
+    private static boolean covers(Snapshot current, LocalDateTime from) {
+        return current != null && !from.isBefore(current.coverageStart);
+    }
+
+    private static List<AppointmentSlotResponseDto> range(NavigableMap<SlotKey, AppointmentSlotResponseDto> slots,
+                                                          LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from)) {
+            return List.of();
+        }
+        return new ArrayList<>(slots.subMap(SlotKey.lowest(from), true, SlotKey.highest(to), true).values());
+    }
+}
@@ -0,0 +1,274 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.event.SlotsGeneratedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes slot availability changes to Server-Sent Events subscribers.
+ *
+ * Connections are held by the servlet container's async support, not by threads. Every subscriber
+ * has its own bounded queue: publishing only enqueues, and a small sender pool drains each queue
+ * in order, one drain per subscriber at a time. A client too slow to keep up fills its queue and is
+ * disconnected instead of holding back anyone else. Subscribers are indexed by doctor, so an event
+ * is only matched against the clients that asked for that doctor or for every doctor.
+ */
+@Component
+public class SlotEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotEventBroadcaster.class);
+
+    @Value("${ehr.slots.feed.senders:4}")
+    private int senders = 4;
+
+    @Value("${ehr.slots.feed.queue-size:256}")
+    private int queueSize = 256;
+
+    @Value("${ehr.slots.feed.timeout-ms:1800000}")
+    private long emitterTimeoutMillis = 1800000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private final Long doctorId; // null for every doctor
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed; // overflowed or failed; takes no more events
+
+        private Subscription(SseEmitter emitter, Long doctorId, LocalDateTime from, LocalDateTime to) {
+            this.emitter = emitter;
+            this.doctorId = doctorId;
+            this.from = from;
+            this.to = to;
+            this.pending = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        private boolean covers(LocalDateTime startTime) {
+            return startTime != null && !startTime.isBefore(from) && !startTime.isAfter(to);
+        }
+
+        private boolean overlaps(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+            return rangeStart.isBefore(to) && rangeEnd.isAfter(from);
+        }
+    }
+
+    private final Map<Long, Set<Subscription>> byDoctor = new ConcurrentHashMap<>();
+    private final Set<Subscription> allDoctors = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private ExecutorService senderPool;
+    private Counter slowSubscribersDropped;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        senderPool = Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "slot-feed-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("ehr.slots.feed.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        slowSubscribersDropped = Counter.builder("ehr.slots.feed.dropped")
+                .description("Subscribers disconnected because their event queue overflowed")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderPool.shutdownNow();
+        openSubscriptions().forEach(subscription -> subscription.emitter.complete());
+    }
+
+    public SseEmitter subscribe(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'.");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscription subscription = new Subscription(emitter, doctorId, from, to);
+
+        if (doctorId != null) {
+            // Added under the map's lock for this doctor, so a concurrent remove cannot drop the bucket in between
+            byDoctor.compute(doctorId, (id, bucket) -> {
+                Set<Subscription> subscribers = bucket != null ? bucket : ConcurrentHashMap.newKeySet();
+                subscribers.add(subscription);
+                return subscribers;
+            });
+        } else {
+            allDoctors.add(subscription);
+        }
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+
+        // Tells the client the stream is live; it should load the current state once and then apply deltas
+        enqueue(subscription, SseEmitter.event().name("ready").data("subscribed"));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotChanged(SlotChangedEvent event) {
+        AppointmentSlotResponseDto slot = event.getSlot();
+        if (slot.getDoctorId() == null) {
+            return;
+        }
+        String name = event.getType().name().toLowerCase(Locale.ROOT);
+        for (Subscription subscription : subscribersOf(slot.getDoctorId())) {
+            if (subscription.covers(slot.getStartTime())) {
+                enqueue(subscription, SseEmitter.event().name(name).id(String.valueOf(slot.getId()))
+                        .data(slot, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    // Bulk generation is announced once per doctor and range; clients reload that range instead of receiving every slot
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotsGenerated(SlotsGeneratedEvent event) {
+        for (Subscription subscription : subscribersOf(event.getDoctorId())) {
+            if (subscription.overlaps(event.getFrom(), event.getTo())) {
+                enqueue(subscription, SseEmitter.event().name("generated").data(event, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and finds clients that went away without closing
+    @Scheduled(fixedRateString = "${ehr.slots.feed.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Subscription subscription : openSubscriptions()) {
+            enqueue(subscription, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private List<Subscription> openSubscriptions() {
+        List<Subscription> open = new ArrayList<>(allDoctors);
+        byDoctor.values().forEach(open::addAll);
+        return open;
+    }
+
+    private List<Subscription> subscribersOf(Long doctorId) {
+        List<Subscription> targets = new ArrayList<>(allDoctors);
+        Set<Subscription> doctorSubscribers = byDoctor.get(doctorId);
+        if (doctorSubscribers != null) {
+            targets.addAll(doctorSubscribers);
+        }
+        return targets;
+    }
+
+    // Never blocks the publisher: a full queue means the client has stopped reading, so it is let go
+    private void enqueue(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        if (subscription.closed) {
+            return;
+        }
+        if (!subscription.pending.offer(event)) {
+            subscription.closed = true;
+            subscription.pending.clear();
+            if (remove(subscription)) {
+                slowSubscribersDropped.increment();
+                log.debug("Dropping slot feed subscriber: {} events behind", queueSize);
+            }
+        }
+        scheduleDrain(subscription);
+    }
+
+    private void scheduleDrain(Subscription subscription) {
+        if (subscription.draining.compareAndSet(false, true)) {
+            try {
+                senderPool.execute(() -> drain(subscription));
+            } catch (RejectedExecutionException e) {
+                subscription.draining.set(false); // shutting down
+            }
+        }
+    }
+
+    // Runs on one sender thread at a time per subscriber, which keeps that subscriber's events in order
+    private void drain(Subscription subscription) {
+        while (true) {
+            if (subscription.closed) {
+                subscription.emitter.complete(); // draining stays set, so nothing is scheduled for it again
+                return;
+            }
+            SseEmitter.SseEventBuilder event = subscription.pending.poll();
+            if (event == null) {
+                subscription.draining.set(false);
+                // An event enqueued after the poll but before the flag cleared would otherwise wait for the next one
+                if (subscription.pending.isEmpty() && !subscription.closed
+                        || !subscription.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (!send(subscription, event)) {
+                subscription.closed = true;
+                subscription.pending.clear();
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            subscription.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping slot feed subscriber: {}", e.getMessage());
+            remove(subscription);
+            subscription.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private boolean remove(Subscription subscription) {
+        AtomicBoolean removed = new AtomicBoolean();
+        if (subscription.doctorId == null) {
+            removed.set(allDoctors.remove(subscription));
+        } else {
+            // The empty bucket is dropped under the same lock subscribe adds under
+            byDoctor.computeIfPresent(subscription.doctorId, (id, bucket) -> {
+                removed.set(bucket.remove(subscription));
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+        if (removed.get()) {
+            subscriberCount.decrementAndGet();
+        }
+        return removed.get();
+    }
+}
@@ -0,0 +1,167 @@
+package com.ehr.service;
+
+import com.ehr.dto.SlotGenerationResultDto;
+import com.ehr.event.SlotsGeneratedEvent;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.models.ClinicHoliday;
+import com.ehr.models.ScheduleException;
+import com.ehr.models.ScheduleTemplate;
+import com.ehr.repository.ClinicHolidayRepository;
+import com.ehr.repository.ScheduleExceptionRepository;
+import com.ehr.repository.ScheduleTemplateRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.util.ScheduleExpander;
+import com.ehr.util.SlotIntervalSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Expands schedule templates into appointment_slots rows with batched JDBC inserts.
+ * Each template is generated in its own short transaction and remembers how far it has
+ * been expanded, so runs are incremental and the nightly job only appends the new days.
+ */
+@Service
+public class SlotGenerationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotGenerationService.class);
+
+    private static final String INSERT_SLOT_SQL =
+            "INSERT INTO appointment_slots (doctor_id, start_time, end_time, status, capacity, booked_count, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+
+    @Autowired
+    private ScheduleTemplateRepository scheduleTemplateRepository;
+    @Autowired
+    private ClinicHolidayRepository clinicHolidayRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private SlotOverlapService slotOverlapService;
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+
+    @Value("${ehr.slots.generation.horizon-days:30}")
+    private int horizonDays;
+
+    @Value("${ehr.slots.generation.batch-size:1000}")
+    private int batchSize;
+
+    // Rolls the horizon forward every night
+    @Scheduled(cron = "${ehr.slots.generation.cron:0 0 2 * * *}")
+    public void extendHorizon() {
+        SlotGenerationResultDto result = generateAll(horizonDays);
+        log.info("Slot generation: {} templates, {} slots through {} in {} ms",
+                result.getTemplatesProcessed(), result.getSlotsCreated(), result.getHorizonEnd(), result.getElapsedMillis());
+    }
+
+    // Templates with virtual slots are expanded at query time and have nothing to generate
+    public SlotGenerationResultDto generateAll(Integer requestedHorizonDays) {
+        return generate(scheduleTemplateRepository.findByActiveTrue().stream()
+                .filter(template -> !template.isVirtualSlots())
+                .toList(), requestedHorizonDays);
+    }
+
+    public SlotGenerationResultDto generateForTemplate(Long templateId, Integer requestedHorizonDays) {
+        ScheduleTemplate template = scheduleTemplateRepository.findById(templateId)
+                .orElseThrow(() -> new ResourceNotFoundException("Schedule template not found with ID: " + templateId));
+        if (!template.isActive()) {
+            throw new IllegalArgumentException("Schedule template " + templateId + " is not active.");
+        }
+        if (template.isVirtualSlots()) {
+            throw new IllegalArgumentException("Schedule template " + templateId + " uses virtual slots, which are not generated.");
+        }
+        return generate(List.of(template), requestedHorizonDays);
+    }
+
+    private SlotGenerationResultDto generate(List<ScheduleTemplate> templates, Integer requestedHorizonDays) {
+        long begin = System.currentTimeMillis();
+        int days = requestedHorizonDays != null ? requestedHorizonDays : horizonDays;
+        if (days < 1 || days > 366) {
+            throw new IllegalArgumentException("Horizon must be between 1 and 366 days.");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate horizonEnd = today.plusDays(days);
+        Set<LocalDate> holidays = clinicHolidayRepository.findByDateBetweenOrderByDateAsc(today, horizonEnd).stream()
+                .map(ClinicHoliday::getDate)
+                .collect(Collectors.toSet());
+
+        long created = 0;
+        for (ScheduleTemplate template : templates) {
+            created += generateTemplate(template, today, horizonEnd, holidays);
+        }
+        return new SlotGenerationResultDto(templates.size(), created, horizonEnd, System.currentTimeMillis() - begin);
+    }
+
+    private long generateTemplate(ScheduleTemplate template, LocalDate today, LocalDate horizonEnd, Set<LocalDate> holidays) {
+        LocalDate from = template.getGeneratedThrough() != null && !template.getGeneratedThrough().isBefore(today)
+                ? template.getGeneratedThrough().plusDays(1) : today;
+        if (from.isAfter(horizonEnd)) {
+            return 0;
+        }
+
+        Long doctorId = template.getDoctor().getId();
+        int capacity = template.getSlotCapacity();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String status = AppointmentSlot.SlotStatus.AVAILABLE.name();
+        LocalDateTime windowStart = from.atStartOfDay();
+        LocalDateTime windowEnd = horizonEnd.plusDays(1).atStartOfDay();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Integer created = tx.execute(txStatus -> {
+            // Same per-doctor lock as manual slot creation, so the overlap check below stays valid until commit
+            staffRepository.findByIdForUpdate(doctorId);
+            SlotIntervalSet occupied = slotOverlapService.loadLiveIntervals(doctorId, windowStart, windowEnd);
+            List<ScheduleException> exceptions = scheduleExceptionRepository.findByDoctorBetween(doctorId, from, horizonEnd);
+
+            List<Object[]> rows = new ArrayList<>();
+            int[] skipped = {0};
+            ScheduleExpander.forEachSlot(template, from, horizonEnd, holidays, LocalDateTime.now(), (start, end) -> {
+                if (ScheduleExpander.isBlocked(exceptions, start, end)) {
+                    return;
+                }
+                if (occupied.overlaps(start, end)) {
+                    skipped[0]++;
+                    return;
+                }
+                occupied.add(start, end, null);
+                rows.add(new Object[]{doctorId, Timestamp.valueOf(start), Timestamp.valueOf(end), status, capacity, now, now});
+            });
+            if (skipped[0] > 0) {
+                log.info("Template {} skipped {} slots overlapping existing slots of doctor {}", template.getId(), skipped[0], doctorId);
+            }
+
+            for (int i = 0; i < rows.size(); i += batchSize) {
+                jdbcTemplate.batchUpdate(INSERT_SLOT_SQL, rows.subList(i, Math.min(i + batchSize, rows.size())));
+            }
+            scheduleTemplateRepository.markGeneratedThrough(template.getId(), horizonEnd);
+            if (!rows.isEmpty()) {
+                eventPublisher.publishEvent(new SlotsGeneratedEvent(doctorId, windowStart, windowEnd, rows.size()));
+            }
+            return rows.size();
+        });
+        return created == null ? 0 : created;
+    }
+}
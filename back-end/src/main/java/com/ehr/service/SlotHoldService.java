@@ -0,0 +1,176 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.dto.SlotHoldResponseDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.util.AuthenticatedUserProvider;
+import com.ehr.util.VirtualSlotId;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Short exclusive holds that keep a slot for a patient between picking it and confirming the booking.
+ * A hold is confirmed by booking the slot as usual; it lapses back to AVAILABLE when its timer fires.
+ */
+@Service
+public class SlotHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotHoldService.class);
+
+    private static final int MAX_HOLDS_PER_PATIENT = 3;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AuthenticatedUserProvider authenticatedUserProvider;
+    @Autowired
+    private HoldExpiryScheduler holdExpiryScheduler;
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ehr.slots.hold.seconds:120}")
+    private int holdSeconds = 120;
+
+    @Transactional
+    public SlotHoldResponseDto holdSlot(Long requestedSlotId) {
+        Long patientId = requirePatientId();
+        if (appointmentSlotRepository.countByStatusAndHeldByPatientId(AppointmentSlot.SlotStatus.HELD, patientId) >= MAX_HOLDS_PER_PATIENT) {
+            throw new IllegalArgumentException("You can hold at most " + MAX_HOLDS_PER_PATIENT + " slots at a time.");
+        }
+        // A held virtual slot is stored, and the response carries the stored id to book it with
+        Long slotId = VirtualSlotId.isVirtual(requestedSlotId) ? virtualSlotService.materialize(requestedSlotId) : requestedSlotId;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(holdSeconds);
+        if (appointmentSlotRepository.holdAvailableSlot(slotId, patientId, expiresAt, now) == 0) {
+            if (!appointmentSlotRepository.existsById(slotId)) {
+                throw new ResourceNotFoundException("Appointment slot not found with ID: " + slotId);
+            }
+            throw new IllegalArgumentException("Appointment slot is not available.");
+        }
+        // A rolled-back hold leaves a timer whose conditional update finds nothing to expire
+        holdExpiryScheduler.schedule(slotId, expiresAt, () -> expirePatientHold(slotId));
+        appointmentSlotRepository.findSlotViewById(slotId).ifPresent(held -> eventPublisher.publishEvent(
+                new SlotChangedEvent(SlotChangedEvent.Type.HELD, held)));
+        return new SlotHoldResponseDto(slotId, expiresAt);
+    }
+
+    @Transactional
+    public void releaseHold(Long slotId) {
+        Long patientId = requirePatientId();
+        if (appointmentSlotRepository.releasePatientHold(slotId, patientId, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("You do not hold this slot.");
+        }
+        cancelTimerAfterCommit(slotId);
+        publishReleased(slotId);
+    }
+
+    /**
+     * Books a slot the patient holds. Called from the booking path when the plain AVAILABLE claim fails;
+     * returns false when the patient has no live hold on it.
+     */
+    public boolean claimOwnHold(Long slotId, Long patientId) {
+        if (appointmentSlotRepository.claimPatientHold(slotId, patientId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        cancelTimerAfterCommit(slotId);
+        return true;
+    }
+
+    // A booking that rolls back leaves the hold in place, and its timer with it
+    private void cancelTimerAfterCommit(Long slotId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            holdExpiryScheduler.cancel(slotId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                holdExpiryScheduler.cancel(slotId);
+            }
+        });
+    }
+
+    // Re-arms the timers of holds taken before a restart; any already past fire on the next tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void rearmHolds() {
+        int rearmed = 0;
+        for (AppointmentSlot slot : appointmentSlotRepository.findByStatus(AppointmentSlot.SlotStatus.HELD)) {
+            if (slot.getHoldExpiresAt() == null) {
+                continue;
+            }
+            Long slotId = slot.getId();
+            if (slot.getHeldByPatientId() != null) {
+                holdExpiryScheduler.schedule(slotId, slot.getHoldExpiresAt(), () -> expirePatientHold(slotId));
+                rearmed++;
+            } else if (slot.getHeldForEntryId() != null) {
+                Long entryId = slot.getHeldForEntryId();
+                holdExpiryScheduler.schedule(slotId, slot.getHoldExpiresAt(), () -> waitlistService.expireOffer(slotId, entryId));
+                rearmed++;
+            }
+        }
+        if (rearmed > 0) {
+            log.info("Re-armed {} slot hold timers", rearmed);
+        }
+    }
+
+    // Catches holds whose timer was lost with the node that took them; the timers do the regular work
+    @Scheduled(cron = "${ehr.slots.hold.backstop-cron:0 */10 * * * *}")
+    public void expireOrphanedHolds() {
+        for (AppointmentSlot slot : appointmentSlotRepository.findLapsedHolds(LocalDateTime.now(), Limit.of(500))) {
+            if (slot.getHeldByPatientId() != null) {
+                expirePatientHold(slot.getId());
+            } else if (slot.getHeldForEntryId() != null) {
+                waitlistService.expireOffer(slot.getId(), slot.getHeldForEntryId());
+            }
+        }
+    }
+
+    private void expirePatientHold(Long slotId) {
+        Integer expired = new TransactionTemplate(transactionManager).execute(
+                status -> appointmentSlotRepository.expirePatientHold(slotId, LocalDateTime.now()));
+        if (expired != null && expired == 1) {
+            publishReleased(slotId);
+        }
+    }
+
+    // Released slots go straight back into the availability index through the event
+    private void publishReleased(Long slotId) {
+        appointmentSlotRepository.findSlotViewById(slotId).ifPresent((AppointmentSlotResponseDto released) ->
+                eventPublisher.publishEvent(new SlotChangedEvent(SlotChangedEvent.Type.RELEASED, released)));
+    }
+
+    private Long requirePatientId() {
+        JwtPrincipal currentUser = authenticatedUserProvider.getUserPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Action requires a patient account."));
+        if (currentUser.getPatientId() == null) {
+            throw new UnauthorizedException("Authenticated user does not have a patient profile.");
+        }
+        return currentUser.getPatientId();
+    }
+}
@@ -0,0 +1,50 @@
+package com.ehr.service;
+
+import com.ehr.dto.SlotConflictDto;
+import com.ehr.dto.SlotTimeRangeDto;
+import com.ehr.exception.SlotConflictException;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.util.SlotIntervalSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Overlap checks for new slots. Callers hold the doctor's row lock
+ * ({@code StaffRepository.findByIdForUpdate}) for the whole transaction, so the
+ * intervals loaded here cannot change before the new slots are inserted.
+ */
+@Service
+public class SlotOverlapService {
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    /** The doctor's live slots that can overlap anything in [from, to). */
+    public SlotIntervalSet loadLiveIntervals(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        SlotIntervalSet intervals = new SlotIntervalSet();
+        appointmentSlotRepository.findLiveSlotsStartingAtOrBefore(doctorId, AppointmentSlot.INACTIVE_STATUSES, from, Limit.of(1))
+                .forEach(slot -> intervals.add(slot.getStartTime(), slot.getEndTime(), slot.getId()));
+        appointmentSlotRepository.findLiveSlotsStartingWithin(doctorId, AppointmentSlot.INACTIVE_STATUSES, from, to)
+                .forEach(slot -> intervals.add(slot.getStartTime(), slot.getEndTime(), slot.getId()));
+        return intervals;
+    }
+
+    /**
+     * Throws a {@link SlotConflictException} listing every overlap of the requested ranges,
+     * with the doctor's stored slots and with each other.
+     */
+    public void assertNoConflicts(Long doctorId, List<SlotTimeRangeDto> requested) {
+        LocalDateTime from = requested.stream().map(SlotTimeRangeDto::getStartTime).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = requested.stream().map(SlotTimeRangeDto::getEndTime).max(Comparator.naturalOrder()).orElseThrow();
+        List<SlotConflictDto> conflicts = loadLiveIntervals(doctorId, from, to).findConflicts(requested);
+        if (!conflicts.isEmpty()) {
+            throw new SlotConflictException(conflicts);
+        }
+    }
+}
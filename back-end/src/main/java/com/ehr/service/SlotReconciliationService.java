@@ -0,0 +1,173 @@
+package com.ehr.service;
+
+import com.ehr.dto.ReconciliationResultDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.models.Appointment;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.repository.AppointmentSlotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Moves rows whose time has passed out of the live states: AVAILABLE slots that started without being
+ * booked become EXPIRED, and SCHEDULED appointments whose slot ended more than a grace period ago become
+ * NO_SHOW. Group slots that started with some seats taken are left as they are. Both are set-based
+ * updates on small chunks of ids, each in its own short transaction; every expired slot is announced
+ * with an EXPIRED event once its chunk commits. Rows locked by a concurrent booking or status change are
+ * skipped (FOR UPDATE SKIP LOCKED) and picked up by a later run, so the reconciler never waits on, or
+ * holds up, request traffic.
+ */
+@Service
+public class SlotReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotReconciliationService.class);
+
+    private static final String SELECT_EXPIRING_SLOTS_SQL =
+            "SELECT id FROM appointment_slots WHERE status = ? AND start_time < ? AND booked_count = 0 " +
+            "ORDER BY start_time LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String EXPIRE_SLOT_SQL =
+            "UPDATE appointment_slots SET status = ?, updated_at = ? WHERE id = ?";
+
+    private static final String MARK_NO_SHOWS_SQL =
+            "UPDATE appointments SET status = ?, updated_at = ? WHERE id IN (" +
+            "SELECT a.id FROM appointments a JOIN appointment_slots s ON s.id = a.slot_id " +
+            "WHERE a.status = ? AND s.end_time < ? " +
+            "ORDER BY s.end_time LIMIT ? FOR UPDATE OF a SKIP LOCKED)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${ehr.reconciler.chunk-size:500}")
+    private int chunkSize = 500;
+
+    // Upper bound per run, so a large backlog is worked off over several runs
+    @Value("${ehr.reconciler.max-chunks:200}")
+    private int maxChunks = 200;
+
+    @Value("${ehr.reconciler.no-show-grace-hours:24}")
+    private int noShowGraceHours = 24;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter slotsExpired;
+    private Counter noShowsMarked;
+    private Timer runTimer;
+
+    @PostConstruct
+    public void init() {
+        slotsExpired = Counter.builder("ehr.reconciler.rows")
+                .description("Rows moved out of a live state by the reconciler")
+                .tag("kind", "slots_expired")
+                .register(meterRegistry);
+        noShowsMarked = Counter.builder("ehr.reconciler.rows")
+                .description("Rows moved out of a live state by the reconciler")
+                .tag("kind", "no_shows")
+                .register(meterRegistry);
+        runTimer = Timer.builder("ehr.reconciler.run")
+                .description("Duration of a reconciliation run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${ehr.reconciler.cron:0 */15 * * * *}")
+    public void scheduledRun() {
+        if (running.get()) {
+            return; // a manual run is still going
+        }
+        ReconciliationResultDto result = reconcile();
+        if (result.getSlotsExpired() > 0 || result.getNoShowsMarked() > 0) {
+            log.info("Reconciler: {} slots expired, {} no-shows marked in {} ms",
+                    result.getSlotsExpired(), result.getNoShowsMarked(), result.getElapsedMillis());
+        }
+    }
+
+    public ReconciliationResultDto reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("A reconciliation run is already in progress.");
+        }
+        try {
+            long begin = System.nanoTime();
+            LocalDateTime now = LocalDateTime.now();
+            long expired = expireSlots(now);
+            slotsExpired.increment(expired);
+            long noShows = inChunks(MARK_NO_SHOWS_SQL, Appointment.AppointmentStatus.NO_SHOW.name(),
+                    Appointment.AppointmentStatus.SCHEDULED.name(), now.minusHours(noShowGraceHours), now);
+            noShowsMarked.increment(noShows);
+            long elapsed = System.nanoTime() - begin;
+            runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            return new ReconciliationResultDto(expired, noShows, elapsed / 1_000_000);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Runs the update chunk by chunk until a chunk comes back short or the per-run cap is reached
+    private long inChunks(String sql, String newStatus, String oldStatus, LocalDateTime cutoff, LocalDateTime now) {
+        Timestamp cutoffTs = Timestamp.valueOf(cutoff);
+        Timestamp nowTs = Timestamp.valueOf(now);
+        return inChunks(() -> jdbcTemplate.update(sql, newStatus, nowTs, oldStatus, cutoffTs, chunkSize));
+    }
+
+    // Expiry locks and reads the ids first, so each chunk can tell the availability listeners which slots closed
+    private long expireSlots(LocalDateTime now) {
+        Timestamp nowTs = Timestamp.valueOf(now);
+        return inChunks(() -> {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRING_SLOTS_SQL, Long.class,
+                    AppointmentSlot.SlotStatus.AVAILABLE.name(), nowTs, chunkSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<Object[]> rows = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                rows.add(new Object[]{AppointmentSlot.SlotStatus.EXPIRED.name(), nowTs, id});
+            }
+            jdbcTemplate.batchUpdate(EXPIRE_SLOT_SQL, rows);
+            // Delivered after the chunk commits
+            appointmentSlotRepository.findSlotViewsByIds(ids).forEach(slot ->
+                    eventPublisher.publishEvent(new SlotChangedEvent(SlotChangedEvent.Type.EXPIRED, slot)));
+            return ids.size();
+        });
+    }
+
+    private long inChunks(Supplier<Integer> chunk) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long total = 0;
+        for (int i = 0; i < maxChunks; i++) {
+            Integer updated = tx.execute(status -> chunk.get());
+            int count = updated == null ? 0 : updated;
+            total += count;
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -29,6 +29,7 @@ public class StaffService {
         staff.setFirstName(dto.getFirstName());
         staff.setLastName(dto.getLastName());
         staff.setRole(dto.getRole());
+        staff.setSpecialty(dto.getSpecialty() != null && !dto.getSpecialty().isBlank() ? dto.getSpecialty().trim() : null);
         staff.setPassword(passwordEncoder.encode(dto.getPassword()));
 
         return staffRepository.save(staff);
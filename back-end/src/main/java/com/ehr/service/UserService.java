@@ -22,6 +22,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PatientService patientService;
+
     @Transactional
     public User registerUser(@Valid UserRegistrationDto dto) {
         if (userRepository.existsByEmail(dto.getEmail())) {
@@ -46,7 +49,9 @@ public class UserService {
         patient.setUser(user);
         user.setPatient(patient);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        patientService.publishChanged(saved.getPatient());
+        return saved;
     }
 
     public Optional<User> findByEmailOrPhone(@NotBlank(message = "Email or phone number is required") String identifier) {
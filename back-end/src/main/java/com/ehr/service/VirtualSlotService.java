@@ -0,0 +1,221 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.models.ClinicHoliday;
+import com.ehr.models.ScheduleException;
+import com.ehr.models.ScheduleTemplate;
+import com.ehr.models.Staff;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.repository.ClinicHolidayRepository;
+import com.ehr.repository.ScheduleExceptionRepository;
+import com.ehr.repository.ScheduleTemplateRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.util.ScheduleExpander;
+import com.ehr.util.SlotIntervalSet;
+import com.ehr.util.VirtualSlotId;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Slots of templates with virtual slots. They are expanded from the template rules, clinic holidays and
+ * the doctor's exceptions whenever availability is queried, and only stored as appointment_slots rows
+ * when a patient books or holds one. Stored live slots of the doctor hide any virtual slot they overlap,
+ * so a booked virtual slot disappears and a stored one that is still bookable is listed from the table.
+ *
+ * Virtual slots are opt-in per template. While no active template uses them, listings skip the expansion
+ * without touching the database.
+ */
+@Service
+public class VirtualSlotService {
+
+    private static final Comparator<AppointmentSlotResponseDto> SLOT_ORDER =
+            Comparator.comparing(AppointmentSlotResponseDto::getStartTime).thenComparing(AppointmentSlotResponseDto::getId);
+
+    @Autowired
+    private ScheduleTemplateRepository scheduleTemplateRepository;
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    @Autowired
+    private ClinicHolidayRepository clinicHolidayRepository;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private SlotOverlapService slotOverlapService;
+
+    // Queries further out are cut off here rather than expanding years of rules
+    @Value("${ehr.slots.virtual.max-days:366}")
+    private int maxDays = 366;
+
+    // Whether any active template has virtual slots; null until read. A stale true only costs the
+    // expansion queries, so deactivations are left to the refresh, which also picks up other instances
+    private final AtomicReference<Boolean> virtualTemplatesExist = new AtomicReference<>();
+
+    public void onVirtualTemplateCreated() {
+        virtualTemplatesExist.set(true);
+    }
+
+    @Scheduled(cron = "${ehr.slots.index.refresh-cron:0 */30 * * * *}")
+    public void refreshTemplatePresence() {
+        virtualTemplatesExist.set(null);
+    }
+
+    private boolean virtualTemplatesExist() {
+        Boolean exist = virtualTemplatesExist.get();
+        if (exist == null) {
+            exist = scheduleTemplateRepository.existsByActiveTrueAndVirtualSlotsTrue();
+            // Loses to a creation noted meanwhile, which may not have been visible to the query
+            if (!virtualTemplatesExist.compareAndSet(null, exist)) {
+                return true;
+            }
+        }
+        return exist;
+    }
+
+    /**
+     * Virtual slots starting in [from, to] that are still open, for one doctor or for every doctor when
+     * {@code doctorId} is null, ordered by start time.
+     */
+    public List<AppointmentSlotResponseDto> findAvailable(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        if (!virtualTemplatesExist()) {
+            return List.of();
+        }
+        List<ScheduleTemplate> templates = doctorId == null
+                ? scheduleTemplateRepository.findActiveVirtual()
+                : scheduleTemplateRepository.findActiveVirtualByDoctor(doctorId);
+        if (templates.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime notBefore = from.isAfter(now) ? from : now;
+        LocalDateTime until = to.isAfter(now.plusDays(maxDays)) ? now.plusDays(maxDays) : to;
+        if (notBefore.isAfter(until)) {
+            return List.of();
+        }
+        LocalDate firstDay = notBefore.toLocalDate();
+        LocalDate lastDay = until.toLocalDate();
+
+        Set<Long> doctorIds = templates.stream().map(t -> t.getDoctor().getId()).collect(Collectors.toSet());
+        Set<LocalDate> holidays = clinicHolidayRepository.findByDateBetweenOrderByDateAsc(firstDay, lastDay).stream()
+                .map(ClinicHoliday::getDate)
+                .collect(Collectors.toSet());
+        Map<Long, List<ScheduleException>> exceptions = scheduleExceptionRepository.findByDoctorsBetween(doctorIds, firstDay, lastDay)
+                .stream()
+                .collect(Collectors.groupingBy(e -> e.getDoctor().getId()));
+        Map<Long, SlotIntervalSet> occupied = new HashMap<>();
+        appointmentSlotRepository.findLiveSlotViewsByDoctorsOverlapping(doctorIds, AppointmentSlot.INACTIVE_STATUSES,
+                        firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay())
+                .forEach(slot -> occupied.computeIfAbsent(slot.getDoctorId(), id -> new SlotIntervalSet())
+                        .add(slot.getStartTime(), slot.getEndTime(), slot.getId()));
+
+        List<AppointmentSlotResponseDto> slots = new ArrayList<>();
+        for (ScheduleTemplate template : templates) {
+            Staff doctor = template.getDoctor();
+            SlotIntervalSet taken = occupied.computeIfAbsent(doctor.getId(), id -> new SlotIntervalSet());
+            List<ScheduleException> off = exceptions.getOrDefault(doctor.getId(), List.of());
+            ScheduleExpander.forEachSlot(template, firstDay, lastDay, holidays, notBefore, (start, end) -> {
+                if (start.isAfter(until) || taken.overlaps(start, end) || ScheduleExpander.isBlocked(off, start, end)) {
+                    return;
+                }
+                taken.add(start, end, null); // overlapping templates of one doctor: the older one wins
+                slots.add(new AppointmentSlotResponseDto(VirtualSlotId.encode(template.getId(), start), doctor.getId(),
+                        doctor.getFullName(), start, end, AppointmentSlot.SlotStatus.AVAILABLE,
+                        template.getSlotCapacity(), 0, null, null));
+            });
+        }
+        slots.sort(SLOT_ORDER);
+        return slots;
+    }
+
+    /** Adds the virtual slots to stored ones, keeping the (startTime, id) order of the listings. */
+    public List<AppointmentSlotResponseDto> merge(List<AppointmentSlotResponseDto> stored, List<AppointmentSlotResponseDto> virtual) {
+        if (virtual.isEmpty()) {
+            return stored;
+        }
+        List<AppointmentSlotResponseDto> merged = new ArrayList<>(stored.size() + virtual.size());
+        merged.addAll(stored);
+        merged.addAll(virtual);
+        merged.sort(SLOT_ORDER);
+        return merged;
+    }
+
+    /**
+     * Stores the slot behind a virtual id and returns the stored id, for the booking or hold that follows in
+     * the same transaction. Rolling that transaction back removes the row again.
+     */
+    @Transactional
+    public Long materialize(Long virtualSlotId) {
+        return tryMaterialize(virtualSlotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment slot not found with ID: " + virtualSlotId));
+    }
+
+    /**
+     * Like {@link #materialize} but empty when the id names no open slot. When the same slot was stored
+     * earlier, e.g. by a booking that was cancelled since, that row's id is returned and the caller's claim
+     * decides whether a seat is left.
+     */
+    @Transactional
+    public Optional<Long> tryMaterialize(Long virtualSlotId) {
+        VirtualSlotId.Decoded decoded = VirtualSlotId.decode(virtualSlotId);
+        ScheduleTemplate template = scheduleTemplateRepository.findById(decoded.templateId())
+                .filter(t -> t.isActive() && t.isVirtualSlots())
+                .orElse(null);
+        if (template == null || !producesSlotAt(template, decoded.startTime())) {
+            return Optional.empty();
+        }
+        LocalDateTime start = decoded.startTime();
+        LocalDateTime end = start.plusMinutes(template.getSlotMinutes());
+
+        // Same per-doctor lock as slot creation and generation, so two bookings cannot store the slot twice
+        Staff doctor = staffRepository.findByIdForUpdate(template.getDoctor().getId()).orElseThrow();
+        List<Long> overlapping = slotOverlapService.loadLiveIntervals(doctor.getId(), start, end).overlapping(start, end);
+        if (!overlapping.isEmpty()) {
+            return overlapping.size() == 1
+                    ? appointmentSlotRepository.findById(overlapping.get(0))
+                            .filter(slot -> slot.getStartTime().equals(start) && slot.getEndTime().equals(end))
+                            .map(AppointmentSlot::getId)
+                    : Optional.empty();
+        }
+
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setDoctor(doctor);
+        slot.setStartTime(start);
+        slot.setEndTime(end);
+        slot.setStatus(AppointmentSlot.SlotStatus.AVAILABLE);
+        slot.setCapacity(template.getSlotCapacity());
+        return Optional.of(appointmentSlotRepository.save(slot).getId());
+    }
+
+    private boolean producesSlotAt(ScheduleTemplate template, LocalDateTime start) {
+        if (!start.isAfter(LocalDateTime.now())) {
+            return false;
+        }
+        LocalDate day = start.toLocalDate();
+        Set<LocalDate> holidays = clinicHolidayRepository.existsByDate(day) ? Set.of(day) : Set.of();
+        boolean[] found = {false};
+        ScheduleExpander.forEachSlot(template, day, day, holidays, start, (slotStart, slotEnd) -> found[0] |= slotStart.equals(start));
+        if (!found[0]) {
+            return false;
+        }
+        List<ScheduleException> exceptions = scheduleExceptionRepository.findByDoctorBetween(template.getDoctor().getId(), day, day);
+        return !ScheduleExpander.isBlocked(exceptions, start, start.plusMinutes(template.getSlotMinutes()));
+    }
+}
@@ -0,0 +1,195 @@
+package com.ehr.service;
+
+import com.ehr.event.WaitlistChangedEvent;
+import com.ehr.models.WaitlistEntry;
+import com.ehr.repository.WaitlistEntryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * In-memory queue of WAITING waitlist entries, bucketed by doctor and by each day their window covers,
+ * each bucket sorted by priority (oldest entry first). Matching a released slot reads a single bucket,
+ * so its cost depends on how many patients wait for that doctor on that day, not on the waitlist size.
+ *
+ * The database stays the source of truth: offers are taken with a conditional update, so a stale
+ * candidate here costs one failed update and is skipped.
+ */
+@Component
+public class WaitlistIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistIndex.class);
+
+    public record Candidate(long entryId, long doctorId, LocalDateTime windowStart, LocalDateTime windowEnd,
+                            LocalDateTime createdAt) {
+
+        private boolean fits(LocalDateTime start, LocalDateTime end) {
+            return !windowStart.isAfter(start) && !windowEnd.isBefore(end);
+        }
+    }
+
+    private static final Comparator<Candidate> PRIORITY = Comparator.comparing(Candidate::createdAt)
+            .thenComparingLong(Candidate::entryId);
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static final class Snapshot {
+        private final Map<Long, NavigableMap<LocalDate, NavigableSet<Candidate>>> byDoctor = new ConcurrentHashMap<>();
+        private final Map<Long, Candidate> byId = new ConcurrentHashMap<>();
+
+        private void add(Candidate candidate) {
+            remove(candidate.entryId());
+            byId.put(candidate.entryId(), candidate);
+            NavigableMap<LocalDate, NavigableSet<Candidate>> days =
+                    byDoctor.computeIfAbsent(candidate.doctorId(), id -> new ConcurrentSkipListMap<>());
+            for (LocalDate day : daysOf(candidate)) {
+                days.computeIfAbsent(day, d -> new ConcurrentSkipListSet<>(PRIORITY)).add(candidate);
+            }
+        }
+
+        private void remove(long entryId) {
+            Candidate candidate = byId.remove(entryId);
+            if (candidate == null) {
+                return;
+            }
+            NavigableMap<LocalDate, NavigableSet<Candidate>> days = byDoctor.get(candidate.doctorId());
+            if (days == null) {
+                return;
+            }
+            for (LocalDate day : daysOf(candidate)) {
+                NavigableSet<Candidate> bucket = days.get(day);
+                if (bucket != null && bucket.remove(candidate) && bucket.isEmpty()) {
+                    days.remove(day, bucket);
+                }
+            }
+        }
+
+        // A window ending exactly at midnight does not reach into that day
+        private static List<LocalDate> daysOf(Candidate candidate) {
+            List<LocalDate> days = new ArrayList<>();
+            LocalDate last = candidate.windowEnd().minusNanos(1).toLocalDate();
+            for (LocalDate day = candidate.windowStart().toLocalDate(); !day.isAfter(last); day = day.plusDays(1)) {
+                days.add(day);
+            }
+            return days;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot();
+
+    private final Object writeLock = new Object();
+    private List<Consumer<Snapshot>> replayLog; // non-null while a rebuild is loading
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("ehr.waitlist.index.size", this, WaitlistIndex::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (writeLock) {
+            if (replayLog != null) {
+                return;
+            }
+            replayLog = new ArrayList<>();
+        }
+        try {
+            Snapshot fresh = new Snapshot();
+            for (WaitlistEntry entry : waitlistEntryRepository.findOpenEntries(LocalDateTime.now())) {
+                fresh.add(toCandidate(entry));
+            }
+            synchronized (writeLock) {
+                replayLog.forEach(op -> op.accept(fresh));
+                snapshot = fresh;
+            }
+            log.info("Waitlist index rebuilt with {} entries", fresh.byId.size());
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild waitlist index", e);
+        } finally {
+            synchronized (writeLock) {
+                replayLog = null;
+            }
+        }
+    }
+
+    public int size() {
+        return snapshot.byId.size();
+    }
+
+    /**
+     * Up to {@code max} queued entries whose window contains [start, end], highest priority first.
+     */
+    public List<Candidate> candidatesFor(Long doctorId, LocalDateTime start, LocalDateTime end, int max) {
+        NavigableMap<LocalDate, NavigableSet<Candidate>> days = snapshot.byDoctor.get(doctorId);
+        if (days == null) {
+            return List.of();
+        }
+        NavigableSet<Candidate> bucket = days.get(start.toLocalDate());
+        if (bucket == null) {
+            return List.of();
+        }
+        List<Candidate> matches = new ArrayList<>();
+        for (Candidate candidate : bucket) {
+            if (candidate.fits(start, end)) {
+                matches.add(candidate);
+                if (matches.size() == max) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWaitlistChanged(WaitlistChangedEvent event) {
+        if (event.isQueued()) {
+            Candidate candidate = new Candidate(event.getEntryId(), event.getDoctorId(), event.getWindowStart(),
+                    event.getWindowEnd(), event.getCreatedAt());
+            apply(s -> s.add(candidate));
+        } else {
+            apply(s -> s.remove(event.getEntryId()));
+        }
+    }
+
+    public static Candidate toCandidate(WaitlistEntry entry) {
+        return new Candidate(entry.getId(), entry.getDoctor().getId(), entry.getWindowStart(), entry.getWindowEnd(),
+                entry.getCreatedAt());
+    }
+
+    private void apply(Consumer<Snapshot> op) {
+        synchronized (writeLock) {
+            op.accept(snapshot);
+            if (replayLog != null) {
+                replayLog.add(op);
+            }
+        }
+    }
+}
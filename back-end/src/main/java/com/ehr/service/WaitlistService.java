@@ -0,0 +1,290 @@
+package com.ehr.service;
+
+import com.ehr.dto.AppointmentResponseDto;
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.dto.WaitlistEntryCreationDto;
+import com.ehr.dto.WaitlistEntryResponseDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.event.WaitlistChangedEvent;
+import com.ehr.exception.ResourceNotFoundException;
+import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.Appointment;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.models.Patient;
+import com.ehr.models.Staff;
+import com.ehr.models.WaitlistEntry;
+import com.ehr.repository.AppointmentRepository;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.repository.PatientRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.repository.WaitlistEntryRepository;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.util.AuthenticatedUserProvider;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Waitlist for fully booked doctors. When a future booking is cancelled the slot is not put back on
+ * the open market; it is HELD for the highest-priority waiting patient whose window fits, who then has
+ * a limited time to accept, timed by {@link HoldExpiryScheduler}. Declined, cancelled and lapsed offers
+ * pass the hold to the next candidate, and the slot only becomes AVAILABLE once nobody on the waitlist fits.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    private static final int MAX_OPEN_ENTRIES_PER_PATIENT = 5;
+    private static final int CANDIDATES_PER_OFFER = 20;
+    private static final EnumSet<WaitlistEntry.WaitlistStatus> OPEN_STATUSES =
+            EnumSet.of(WaitlistEntry.WaitlistStatus.WAITING, WaitlistEntry.WaitlistStatus.OFFERED);
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private WaitlistIndex waitlistIndex;
+    @Autowired
+    private HoldExpiryScheduler holdExpiryScheduler;
+    @Autowired
+    private AuthenticatedUserProvider authenticatedUserProvider;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ehr.waitlist.hold-minutes:15}")
+    private int holdMinutes = 15;
+
+    @Value("${ehr.waitlist.max-window-days:14}")
+    private int maxWindowDays = 14;
+
+    @Transactional
+    public WaitlistEntryResponseDto joinWaitlist(WaitlistEntryCreationDto dto) {
+        JwtPrincipal currentUser = requirePatient();
+        if (!dto.getWindowStart().isBefore(dto.getWindowEnd())) {
+            throw new IllegalArgumentException("Window start must be before window end.");
+        }
+        if (Duration.between(dto.getWindowStart(), dto.getWindowEnd()).toDays() >= maxWindowDays) {
+            throw new IllegalArgumentException("The waitlist window can span at most " + maxWindowDays + " days.");
+        }
+        Staff doctor = staffRepository.findById(dto.getDoctorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with ID: " + dto.getDoctorId()));
+        if (doctor.getRole() != Staff.Role.DOCTOR) {
+            throw new IllegalArgumentException("Staff with ID " + dto.getDoctorId() + " is not a doctor.");
+        }
+        if (waitlistEntryRepository.countByPatient_IdAndStatusIn(currentUser.getPatientId(), OPEN_STATUSES) >= MAX_OPEN_ENTRIES_PER_PATIENT) {
+            throw new IllegalArgumentException("You can have at most " + MAX_OPEN_ENTRIES_PER_PATIENT + " open waitlist entries.");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatient(patientRepository.getReferenceById(currentUser.getPatientId()));
+        entry.setDoctor(doctor);
+        entry.setWindowStart(dto.getWindowStart());
+        entry.setWindowEnd(dto.getWindowEnd());
+        entry.setStatus(WaitlistEntry.WaitlistStatus.WAITING);
+        entry = waitlistEntryRepository.save(entry);
+
+        publishQueued(entry);
+        return new WaitlistEntryResponseDto(entry);
+    }
+
+    @Transactional
+    public List<WaitlistEntryResponseDto> getMyEntries() {
+        JwtPrincipal currentUser = requirePatient();
+        return waitlistEntryRepository.findByPatientIdWithDoctor(currentUser.getPatientId()).stream()
+                .map(WaitlistEntryResponseDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public WaitlistEntryResponseDto leaveWaitlist(Long entryId) {
+        WaitlistEntry entry = findOwnEntry(entryId);
+        LocalDateTime now = LocalDateTime.now();
+        if (entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING) {
+            entry.setStatus(WaitlistEntry.WaitlistStatus.CANCELLED);
+            entry = waitlistEntryRepository.save(entry);
+            publishDequeued(entry);
+        } else if (entry.getStatus() == WaitlistEntry.WaitlistStatus.OFFERED) {
+            Long slotId = entry.getOfferedSlotId();
+            if (waitlistEntryRepository.closeOffer(entryId, slotId, WaitlistEntry.WaitlistStatus.CANCELLED, now) == 1) {
+                passHoldOrRelease(slotId, entryId);
+            }
+            entry.setStatus(WaitlistEntry.WaitlistStatus.CANCELLED);
+        } else {
+            throw new IllegalArgumentException("Waitlist entry is already " + entry.getStatus() + ".");
+        }
+        return new WaitlistEntryResponseDto(entry);
+    }
+
+    @Transactional
+    public AppointmentResponseDto acceptOffer(Long entryId) {
+        WaitlistEntry entry = findOwnEntry(entryId);
+        if (entry.getStatus() != WaitlistEntry.WaitlistStatus.OFFERED) {
+            throw new IllegalArgumentException("There is no open offer for this waitlist entry.");
+        }
+        Long slotId = entry.getOfferedSlotId();
+        LocalDateTime now = LocalDateTime.now();
+        if (appointmentSlotRepository.claimHeldSlot(slotId, entryId, now) == 0) {
+            throw new IllegalArgumentException("The offer has expired.");
+        }
+        holdExpiryScheduler.cancel(slotId);
+        waitlistEntryRepository.closeOffer(entryId, slotId, WaitlistEntry.WaitlistStatus.FULFILLED, now);
+
+        Appointment appointment = new Appointment();
+        appointment.setPatient(entry.getPatient());
+        appointment.setSlot(appointmentSlotRepository.getReferenceById(slotId));
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        appointment.setType(Appointment.AppointmentType.ONLINE);
+        appointment.setNotes("Booked from the waitlist");
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        return new AppointmentResponseDto(savedAppointment);
+    }
+
+    // Declining one slot keeps the patient in the queue with their original priority
+    @Transactional
+    public WaitlistEntryResponseDto declineOffer(Long entryId) {
+        WaitlistEntry entry = findOwnEntry(entryId);
+        if (entry.getStatus() != WaitlistEntry.WaitlistStatus.OFFERED) {
+            throw new IllegalArgumentException("There is no open offer for this waitlist entry.");
+        }
+        Long slotId = entry.getOfferedSlotId();
+        if (waitlistEntryRepository.closeOffer(entryId, slotId, WaitlistEntry.WaitlistStatus.WAITING, LocalDateTime.now()) == 1) {
+            passHoldOrRelease(slotId, entryId);
+            entry.setStatus(WaitlistEntry.WaitlistStatus.WAITING);
+            entry.setOfferedSlotId(null);
+            entry.setOfferExpiresAt(null);
+            publishQueued(entry);
+        }
+        return new WaitlistEntryResponseDto(entry);
+    }
+
+    /**
+     * Called inside the cancellation transaction for a BOOKED future slot. Holds it for the first
+     * waiting patient that fits and returns true, or returns false when nobody does. Group slots are
+     * never offered: a freed seat is simply bookable again.
+     */
+    @Transactional
+    public boolean offerReleasedSlot(AppointmentSlot slot) {
+        if (slot.getCapacity() > 1) {
+            return false;
+        }
+        return offerToNextCandidate(slot.getId(), slot.getDoctor().getId(), slot.getStartTime(), slot.getEndTime(), null);
+    }
+
+    /**
+     * Expires an offer whose hold timer fired, passing the slot to the next candidate. Runs in its own
+     * transaction and does nothing when the patient accepted or the hold already moved on in the meantime.
+     */
+    public void expireOffer(Long slotId, Long entryId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (waitlistEntryRepository.closeOffer(entryId, slotId, WaitlistEntry.WaitlistStatus.EXPIRED, LocalDateTime.now()) == 1) {
+                passHoldOrRelease(slotId, entryId);
+            }
+        });
+    }
+
+    // Drops entries whose window has passed and resynchronizes the index with entries created on other nodes
+    @Scheduled(cron = "${ehr.waitlist.index.refresh-cron:0 */5 * * * *}")
+    public void refreshIndex() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> waitlistEntryRepository.expirePastWindows(LocalDateTime.now()));
+        waitlistIndex.rebuild();
+    }
+
+    private void passHoldOrRelease(Long slotId, Long previousEntryId) {
+        AppointmentSlotResponseDto slot = appointmentSlotRepository.findSlotViewById(slotId).orElse(null);
+        if (slot == null) {
+            return;
+        }
+        boolean future = slot.getStartTime().isAfter(LocalDateTime.now());
+        if (future && offerToNextCandidate(slotId, slot.getDoctorId(), slot.getStartTime(), slot.getEndTime(), previousEntryId)) {
+            return;
+        }
+        if (appointmentSlotRepository.releaseHeldSlot(slotId, previousEntryId, LocalDateTime.now()) == 1) {
+            holdExpiryScheduler.cancel(slotId);
+            slot.setStatus(AppointmentSlot.SlotStatus.AVAILABLE);
+            eventPublisher.publishEvent(new SlotChangedEvent(SlotChangedEvent.Type.RELEASED, slot));
+        }
+    }
+
+    // previousEntryId is null when the slot comes straight from a cancelled booking
+    private boolean offerToNextCandidate(Long slotId, Long doctorId, LocalDateTime start, LocalDateTime end, Long previousEntryId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(holdMinutes);
+        for (WaitlistIndex.Candidate candidate : waitlistIndex.candidatesFor(doctorId, start, end, CANDIDATES_PER_OFFER)) {
+            if (previousEntryId != null && candidate.entryId() == previousEntryId) {
+                continue;
+            }
+            if (waitlistEntryRepository.markOffered(candidate.entryId(), slotId, expiresAt, now) == 0) {
+                continue; // offered elsewhere or withdrawn since the index saw it
+            }
+            int held = previousEntryId == null
+                    ? appointmentSlotRepository.holdReleasedSlot(slotId, candidate.entryId(), expiresAt, now)
+                    : appointmentSlotRepository.passHold(slotId, previousEntryId, candidate.entryId(), expiresAt, now);
+            if (held == 0) {
+                // The slot changed under us; put the candidate back and let the caller decide
+                waitlistEntryRepository.closeOffer(candidate.entryId(), slotId, WaitlistEntry.WaitlistStatus.WAITING, now);
+                return false;
+            }
+            long entryId = candidate.entryId();
+            holdExpiryScheduler.schedule(slotId, expiresAt, () -> expireOffer(slotId, entryId));
+            eventPublisher.publishEvent(new WaitlistChangedEvent(candidate.entryId(), candidate.doctorId(),
+                    candidate.windowStart(), candidate.windowEnd(), candidate.createdAt(), false));
+            log.info("Slot {} held for waitlist entry {} until {}", slotId, candidate.entryId(), expiresAt);
+            return true;
+        }
+        return false;
+    }
+
+    private JwtPrincipal requirePatient() {
+        JwtPrincipal currentUser = authenticatedUserProvider.getUserPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Action requires a patient account."));
+        if (currentUser.getPatientId() == null) {
+            throw new UnauthorizedException("Authenticated user does not have a patient profile.");
+        }
+        return currentUser;
+    }
+
+    private WaitlistEntry findOwnEntry(Long entryId) {
+        JwtPrincipal currentUser = requirePatient();
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry not found with ID: " + entryId));
+        Patient patient = entry.getPatient();
+        if (!currentUser.getPatientId().equals(patient.getId())) {
+            throw new UnauthorizedException("Patients can only manage their own waitlist entries.");
+        }
+        return entry;
+    }
+
+    private void publishQueued(WaitlistEntry entry) {
+        eventPublisher.publishEvent(new WaitlistChangedEvent(entry.getId(), entry.getDoctor().getId(),
+                entry.getWindowStart(), entry.getWindowEnd(), entry.getCreatedAt(), true));
+    }
+
+    private void publishDequeued(WaitlistEntry entry) {
+        eventPublisher.publishEvent(new WaitlistChangedEvent(entry.getId(), entry.getDoctor().getId(),
+                entry.getWindowStart(), entry.getWindowEnd(), entry.getCreatedAt(), false));
+    }
+}
@@ -1,17 +1,23 @@
 package com.ehr.util;
 
+import com.ehr.models.Patient;
 import com.ehr.models.Staff;
 import com.ehr.models.User;
+import com.ehr.repository.PatientRepository;
 import com.ehr.repository.StaffRepository;
 import com.ehr.repository.UserRepository;
-import com.ehr.service.CustomUserDetailsService;
+import com.ehr.security.JwtPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Component
 public class AuthenticatedUserProvider {
@@ -23,31 +29,100 @@ public class AuthenticatedUserProvider {
     private StaffRepository staffRepository;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private PatientRepository patientRepository;
 
-    public Optional<User> getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
-            return Optional.empty();
-        }
-        String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+    @Autowired
+    private RequestIdentityContext identityContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter lookupsPerformed;
+    private Counter lookupsSaved;
 
-        if ("USER".equals(userDetailsService.getUserType(username))) {
-            return userRepository.findByEmailOrPhoneNumber(username);
+    @PostConstruct
+    public void init() {
+        lookupsPerformed = Counter.builder("ehr.identity.lookups")
+                .description("Identity entity lookups that reached the database")
+                .tag("result", "loaded")
+                .register(meterRegistry);
+        lookupsSaved = Counter.builder("ehr.identity.lookups")
+                .description("Identity entity lookups answered from the request-scoped memo")
+                .tag("result", "memoized")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the caller's identity as carried by the JWT. Never touches the database; within a web
+     * request it is read from the security context once and memoized for every later service call.
+     */
+    public Optional<JwtPrincipal> getPrincipal() {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return readPrincipal();
         }
-        return Optional.empty();
+        if (!identityContext.isResolved(JwtPrincipal.class)) {
+            identityContext.put(JwtPrincipal.class, readPrincipal());
+        }
+        return identityContext.get(JwtPrincipal.class);
+    }
+
+    public Optional<JwtPrincipal> getUserPrincipal() {
+        return getPrincipal().filter(JwtPrincipal::isUser);
+    }
+
+    public Optional<JwtPrincipal> getStaffPrincipal() {
+        return getPrincipal().filter(JwtPrincipal::isStaff);
+    }
+
+    // Entity loads for callers that need more than the token carries; at most one query each per request
+
+    public Optional<User> getAuthenticatedUser() {
+        return resolveOnce(User.class, () -> getUserPrincipal()
+                .map(JwtPrincipal::getUserId)
+                .flatMap(userRepository::findById));
+    }
+
+    public Optional<Patient> getAuthenticatedPatient() {
+        return resolveOnce(Patient.class, () -> getUserPrincipal()
+                .map(JwtPrincipal::getPatientId)
+                .flatMap(patientRepository::findById));
     }
 
     public Optional<Staff> getAuthenticatedStaff() {
+        return resolveOnce(Staff.class, () -> getStaffPrincipal()
+                .map(JwtPrincipal::getStaffId)
+                .flatMap(staffRepository::findById));
+    }
+
+    public double getLookupsPerformed() {
+        return lookupsPerformed.count();
+    }
+
+    public double getLookupsSaved() {
+        return lookupsSaved.count();
+    }
+
+    private Optional<JwtPrincipal> readPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof JwtPrincipal principal)) {
             return Optional.empty();
         }
-        String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+        return Optional.of(principal);
+    }
 
-        if ("STAFF".equals(userDetailsService.getUserType(username))) {
-            return staffRepository.findByWorkId(username);
+    private <T> Optional<T> resolveOnce(Class<T> type, Supplier<Optional<T>> loader) {
+        // Outside a web request (scheduled jobs, startup, tests) there is no scope to memoize into
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return loader.get();
+        }
+        if (identityContext.isResolved(type)) {
+            lookupsSaved.increment();
+            return identityContext.get(type);
         }
-        return Optional.empty();
+        Optional<T> value = loader.get();
+        lookupsPerformed.increment();
+        identityContext.put(type, value);
+        return value;
     }
 }
@@ -0,0 +1,122 @@
+package com.ehr.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Burkhard-Keller tree over strings under Levenshtein distance. Each child hangs off its parent at its
+ * distance from the parent, so by the triangle inequality a search within radius r only descends into
+ * children at distance d - r to d + r from a node that is d away from the query, and skips the rest.
+ *
+ * Terms are only ever added; callers drop terms that fell out of use by building a new tree. Nodes are
+ * kept in parallel arrays, with each node's children in a sibling chain. Not thread-safe on its own.
+ */
+public class BkTree {
+
+    public record Hit(String term, int distance) {
+    }
+
+    private String[] terms = new String[16];
+    private int[] distanceToParent = new int[16];
+    private int[] firstChild = new int[16];
+    private int[] nextSibling = new int[16];
+    private int size;
+
+    /** Adds {@code term} unless it is already present; returns whether it was added. */
+    public boolean add(String term) {
+        if (size == 0) {
+            append(term, 0);
+            return true;
+        }
+        int node = 0;
+        while (true) {
+            int distance = distance(term, terms[node]);
+            if (distance == 0) {
+                return false;
+            }
+            int child = firstChild[node] - 1;
+            while (child >= 0 && distanceToParent[child] != distance) {
+                child = nextSibling[child] - 1;
+            }
+            if (child < 0) {
+                int added = append(term, distance);
+                nextSibling[added] = firstChild[node];
+                firstChild[node] = added + 1;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /** The terms within {@code radius} edits of {@code query}, in no particular order. */
+    public List<Hit> search(String query, int radius) {
+        List<Hit> hits = new ArrayList<>();
+        if (size == 0) {
+            return hits;
+        }
+        int[] pending = new int[16];
+        int top = 0;
+        pending[top++] = 0;
+        while (top > 0) {
+            int node = pending[--top];
+            int distance = distance(query, terms[node]);
+            if (distance <= radius) {
+                hits.add(new Hit(terms[node], distance));
+            }
+            for (int child = firstChild[node] - 1; child >= 0; child = nextSibling[child] - 1) {
+                if (Math.abs(distanceToParent[child] - distance) <= radius) {
+                    if (top == pending.length) {
+                        pending = Arrays.copyOf(pending, top * 2);
+                    }
+                    pending[top++] = child;
+                }
+            }
+        }
+        return hits;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Links are stored off by one, so the zero of a fresh array means "none"
+    private int append(String term, int distance) {
+        if (size == terms.length) {
+            int capacity = size * 2;
+            terms = Arrays.copyOf(terms, capacity);
+            distanceToParent = Arrays.copyOf(distanceToParent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        terms[size] = term;
+        distanceToParent[size] = distance;
+        return size++;
+    }
+
+    /** Levenshtein distance: the fewest single-character insertions, deletions and substitutions. */
+    public static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,59 @@
+package com.ehr.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset pagination over (startTime, id), or over (rank, id) for ranked search results.
+ * Clients must treat the value as a token; the encoding is only URL-safe Base64 so it can change without
+ * breaking anyone.
+ */
+public final class CursorCodec {
+
+    public record Position(LocalDateTime startTime, long id) {
+    }
+
+    public record RankPosition(int rank, long id) {
+    }
+
+    private CursorCodec() {
+    }
+
+    public static String encode(LocalDateTime startTime, long id) {
+        String raw = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    public static String encodeRank(int rank, long id) {
+        String raw = "r" + rank + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RankPosition decodeRank(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (!raw.startsWith("r") || separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new RankPosition(Integer.parseInt(raw.substring(1, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
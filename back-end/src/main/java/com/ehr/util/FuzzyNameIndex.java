@@ -0,0 +1,189 @@
+package com.ehr.util;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Typo-tolerant name lookup. Names are split into accent-free lower-case tokens; each token is indexed by
+ * itself, by its Double Metaphone codes and in a BK-tree, so a query token finds the documents with a
+ * token within a couple of edits of it or sounding like it without comparing it against every name.
+ *
+ * A document scores the mean over the query tokens of the best similarity any of its tokens reaches:
+ * 1 for the same token, 1 - edits / longer length within the edit radius, and a flat
+ * {@value #PHONETIC_SIMILARITY} for a shared phonetic code. Documents are identified by non-negative,
+ * preferably dense int ids. Not thread-safe on its own; callers serialize writes against reads.
+ */
+public class FuzzyNameIndex {
+
+    public record Match(int id, double score) {
+    }
+
+    private static final double PHONETIC_SIMILARITY = 0.7;
+    private static final Pattern NON_LETTERS = Pattern.compile("[^\\p{L}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final DoubleMetaphone METAPHONE = new DoubleMetaphone();
+
+    private static final Comparator<Match> WORST_FIRST =
+            Comparator.comparingDouble(Match::score).thenComparing(Match::id, Comparator.reverseOrder());
+
+    private final Map<String, SortedIntList> byToken = new HashMap<>();
+    private final Map<String, SortedIntList> byCode = new HashMap<>();
+    // Tokens stay in the tree after their last document goes; a rebuilt index leaves them out
+    private final BkTree tokens = new BkTree();
+    private String[][] tokensById = new String[16][];
+    private int size;
+
+    /** Indexes the names of document {@code id}, replacing whatever it had before. Null names are skipped. */
+    public void put(int id, String... names) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid name index document.");
+        }
+        String[] fresh = tokenize(names);
+        String[] previous = id < tokensById.length ? tokensById[id] : null;
+        if (Arrays.equals(previous, fresh)) {
+            return;
+        }
+        if (previous != null) {
+            unlink(id, previous);
+        } else {
+            size++;
+        }
+        if (id >= tokensById.length) {
+            tokensById = Arrays.copyOf(tokensById, Math.max(id + 1, tokensById.length + (tokensById.length >> 1)));
+        }
+        tokensById[id] = fresh;
+        for (String token : fresh) {
+            byToken.computeIfAbsent(token, t -> new SortedIntList()).add(id);
+            tokens.add(token);
+            for (String code : codes(token)) {
+                byCode.computeIfAbsent(code, c -> new SortedIntList()).add(id);
+            }
+        }
+    }
+
+    public boolean remove(int id) {
+        String[] previous = id >= 0 && id < tokensById.length ? tokensById[id] : null;
+        if (previous == null) {
+            return false;
+        }
+        unlink(id, previous);
+        tokensById[id] = null;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** The {@code limit} best-scoring documents for {@code query}, best first and then by id. */
+    public List<Match> search(String query, int limit) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || limit < 1) {
+            return List.of();
+        }
+        // Scratch keyed by the ids a query touches, so its cost follows the matches and not the index size:
+        // the best similarity for the current query token, and the sum over tokens
+        IntFloatMap tokenBest = new IntFloatMap();
+        IntFloatMap sum = new IntFloatMap();
+        for (String token : queryTokens) {
+            int radius = token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
+            for (BkTree.Hit hit : tokens.search(token, radius)) {
+                float similarity = 1f - (float) hit.distance() / Math.max(token.length(), hit.term().length());
+                raise(tokenBest, byToken.get(hit.term()), similarity);
+            }
+            if (token.length() > 2) { // initials and two-letter fragments sound like too much
+                for (String code : codes(token)) {
+                    raise(tokenBest, byCode.get(code), (float) PHONETIC_SIMILARITY);
+                }
+            }
+            for (int slot = 0; slot < tokenBest.capacity(); slot++) {
+                if (tokenBest.keyAt(slot) >= 0) {
+                    sum.add(tokenBest.keyAt(slot), tokenBest.valueAt(slot));
+                }
+            }
+            tokenBest.clear();
+        }
+
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        for (int slot = 0; slot < sum.capacity(); slot++) {
+            if (sum.keyAt(slot) < 0) {
+                continue;
+            }
+            top.add(new Match(sum.keyAt(slot), (double) sum.valueAt(slot) / queryTokens.length));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(WORST_FIRST.reversed());
+        return matches;
+    }
+
+    /** Accent-free lower-case letter runs of the names, without repeats, in order of appearance. */
+    public static String[] tokenize(String... names) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            String plain = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+            for (String token : NON_LETTERS.split(plain.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void raise(IntFloatMap tokenBest, SortedIntList ids, float similarity) {
+        if (ids == null) {
+            return;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            tokenBest.max(ids.get(i), similarity);
+        }
+    }
+
+    private void unlink(int id, String[] previous) {
+        for (String token : previous) {
+            drop(byToken, token, id);
+            for (String code : codes(token)) {
+                drop(byCode, code, id);
+            }
+        }
+    }
+
+    private static void drop(Map<String, SortedIntList> postings, String key, int id) {
+        SortedIntList ids = postings.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static Set<String> codes(String token) {
+        Set<String> codes = new LinkedHashSet<>(2);
+        String primary = METAPHONE.doubleMetaphone(token);
+        if (primary != null && !primary.isEmpty()) {
+            codes.add(primary);
+        }
+        String alternate = METAPHONE.doubleMetaphone(token, true);
+        if (alternate != null && !alternate.isEmpty()) {
+            codes.add(alternate);
+        }
+        return codes;
+    }
+}
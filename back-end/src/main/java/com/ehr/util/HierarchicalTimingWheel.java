@@ -0,0 +1,186 @@
+package com.ehr.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck). Level 0 has one bucket per tick; each higher level has
+ * buckets {@code wheelSize} times wider. A timeout is placed on the lowest level whose current rotation
+ * still contains its deadline, and is moved down a level when the wheel below completes a rotation.
+ * Scheduling and cancelling are O(1); advancing costs O(1) per tick plus the timeouts that fire or move.
+ *
+ * Deadlines further out than the top level covers are parked in the top level and re-placed on every
+ * rotation until they come into range. Not thread-safe on its own; callers serialize access.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    public final class Timeout {
+        private final T payload;
+        private final long deadlineTick;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private final class Bucket {
+        private Timeout head;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        private Timeout drain() {
+            Timeout drained = head;
+            head = null;
+            return drained;
+        }
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final List<List<Bucket>> levels = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis resolution; timeouts fire on the first tick at or after their deadline
+     * @param wheelSize  buckets per level, a power of two
+     * @param levelCount number of levels; the wheel spans tickMillis * wheelSize^levelCount before parking
+     * @param startMillis current time in epoch milliseconds
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions.");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        for (int i = 0; i < levelCount; i++) {
+            List<Bucket> buckets = new ArrayList<>(wheelSize);
+            for (int j = 0; j < wheelSize; j++) {
+                buckets.add(new Bucket());
+            }
+            levels.add(buckets);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public Timeout schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        Timeout timeout = new Timeout(payload, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout timeout) {
+        if (timeout.bucket == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns the payloads that fell due, in deadline order.
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick; // nothing to cascade or fire; skip the idle ticks
+                break;
+            }
+            currentTick++;
+            // Higher levels first, so their timeouts can land in the lower buckets cascaded right after
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bits * level)) & mask));
+                }
+            }
+            for (Timeout timeout = levels.get(0).get((int) (currentTick & mask)).drain(); timeout != null; ) {
+                Timeout next = timeout.next;
+                timeout.bucket = null;
+                timeout.prev = null;
+                timeout.next = null;
+                size--;
+                expired.add(timeout.payload);
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level, int index) {
+        for (Timeout timeout = levels.get(level).get(index).drain(); timeout != null; ) {
+            Timeout next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        int top = levels.size() - 1;
+        for (int level = 0; level < top; level++) {
+            int shift = bits * (level + 1);
+            if ((deadline >>> shift) == (currentTick >>> shift)) {
+                levels.get(level).get((int) ((deadline >>> (bits * level)) & mask)).add(timeout);
+                return;
+            }
+        }
+        // The top level has nothing above it, so it takes any deadline less than one full rotation of buckets ahead
+        long topShift = (long) bits * top;
+        long bucketsAhead = (deadline >>> topShift) - (currentTick >>> topShift);
+        if (bucketsAhead <= mask) {
+            levels.get(top).get((int) ((deadline >>> topShift) & mask)).add(timeout);
+        } else {
+            // Further out: park in the bucket visited last, then place again from there
+            levels.get(top).get((int) (((currentTick >>> topShift) + mask) & mask)).add(timeout);
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ehr.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative ints to floats, sized by the keys it holds rather than by the
+ * largest key, used as per-query scratch. Absent keys read as 0. Not thread-safe on its own.
+ */
+public class IntFloatMap {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private float[] values;
+    private int size;
+
+    public IntFloatMap() {
+        this(16);
+    }
+
+    public IntFloatMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    public float get(int key) {
+        int at = slot(key);
+        return keys[at] == key ? values[at] : 0f;
+    }
+
+    /** Keeps the larger of the current value and {@code value}. */
+    public void max(int key, float value) {
+        int at = claim(key);
+        values[at] = Math.max(values[at], value);
+    }
+
+    public void add(int key, float value) {
+        int at = claim(key); // before reading values, which a resize replaces
+        values[at] += value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Slots run from 0 to capacity; {@link #keyAt} is negative for a free one. */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public float valueAt(int slot) {
+        return values[slot];
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            Arrays.fill(values, 0f);
+            size = 0;
+        }
+    }
+
+    private int claim(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid map key.");
+        }
+        int at = slot(key);
+        if (keys[at] == key) {
+            return at;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            at = slot(key);
+        }
+        keys[at] = key;
+        size++;
+        return at;
+    }
+
+    // The slot holding key, or the free slot where it would go; the table is never more than half full
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int at = (hash ^ hash >>> 16) & mask;
+        while (keys[at] != FREE && keys[at] != key) {
+            at = (at + 1) & mask;
+        }
+        return at;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new float[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int at = slot(oldKeys[i]);
+                keys[at] = oldKeys[i];
+                values[at] = oldValues[i];
+            }
+        }
+    }
+}
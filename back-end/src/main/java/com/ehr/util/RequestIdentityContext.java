@@ -0,0 +1,33 @@
+package com.ehr.util;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-request memo of the caller's identity: the principal taken from the security context and the
+ * resolved entities (User, Patient, Staff), so each one is resolved at most once no matter how many
+ * service calls ask for it during the request.
+ */
+@Component
+@RequestScope
+public class RequestIdentityContext {
+
+    private final Map<Class<?>, Optional<?>> resolved = new HashMap<>();
+
+    public boolean isResolved(Class<?> type) {
+        return resolved.containsKey(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(Class<T> type) {
+        return (Optional<T>) resolved.getOrDefault(type, Optional.empty());
+    }
+
+    public <T> void put(Class<T> type, Optional<T> value) {
+        resolved.put(type, value);
+    }
+}
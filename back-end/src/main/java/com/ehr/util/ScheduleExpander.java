@@ -0,0 +1,75 @@
+package com.ehr.util;
+
+import com.ehr.dto.SlotTimeRangeDto;
+import com.ehr.models.ScheduleException;
+import com.ehr.models.ScheduleTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Expands a weekly {@link ScheduleTemplate} into concrete slot time ranges.
+ */
+public final class ScheduleExpander {
+
+    private ScheduleExpander() {
+    }
+
+    /**
+     * Calls {@code sink} with the start and end of every slot the template produces between
+     * {@code from} and {@code to} (both inclusive days), skipping holidays when the template asks
+     * for it and any slot starting before {@code notBefore}.
+     */
+    public static void forEachSlot(ScheduleTemplate template, LocalDate from, LocalDate to,
+                                   Set<LocalDate> holidays, LocalDateTime notBefore,
+                                   BiConsumer<LocalDateTime, LocalDateTime> sink) {
+        LocalDate first = from.isBefore(template.getValidFrom()) ? template.getValidFrom() : from;
+        LocalDate last = template.getValidUntil() != null && template.getValidUntil().isBefore(to)
+                ? template.getValidUntil() : to;
+        LocalTime dayStart = template.getStartTime();
+        LocalTime dayEnd = template.getEndTime();
+        int slotMinutes = template.getSlotMinutes();
+        if (slotMinutes <= 0 || !dayStart.isBefore(dayEnd)) {
+            return;
+        }
+
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            if (!template.getDaysOfWeek().contains(date.getDayOfWeek())) {
+                continue;
+            }
+            if (template.isSkipHolidays() && holidays.contains(date)) {
+                continue;
+            }
+            LocalDateTime start = date.atTime(dayStart);
+            LocalDateTime close = date.atTime(dayEnd);
+            for (LocalDateTime end = start.plusMinutes(slotMinutes); !end.isAfter(close);
+                 start = end, end = end.plusMinutes(slotMinutes)) {
+                if (notBefore == null || !start.isBefore(notBefore)) {
+                    sink.accept(start, end);
+                }
+            }
+        }
+    }
+
+    /** True when one of the doctor's exceptions covers any part of [start, end). */
+    public static boolean isBlocked(List<ScheduleException> exceptions, LocalDateTime start, LocalDateTime end) {
+        for (ScheduleException exception : exceptions) {
+            if (exception.getDate().equals(start.toLocalDate()) && exception.blocks(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static List<SlotTimeRangeDto> expand(ScheduleTemplate template, LocalDate from, LocalDate to,
+                                                Set<LocalDate> holidays, LocalDateTime notBefore) {
+        List<SlotTimeRangeDto> slots = new ArrayList<>();
+        forEachSlot(template, from, to, holidays, notBefore, (start, end) -> slots.add(new SlotTimeRangeDto(start, end)));
+        return slots;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ehr.util;
+
+import com.ehr.dto.SlotConflictDto;
+import com.ehr.dto.SlotTimeRangeDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Non-overlapping time intervals of one doctor, ordered by start time. Because stored intervals
+ * never overlap, only the interval starting at or before a range's start can reach into it from
+ * the left, so an overlap lookup is a floor search plus a scan of the intervals starting inside
+ * the range: O(log n + k).
+ */
+public class SlotIntervalSet {
+
+    private record Interval(LocalDateTime start, LocalDateTime end, Long slotId) {
+    }
+
+    private final TreeMap<LocalDateTime, Interval> byStart = new TreeMap<>();
+
+    /**
+     * Adds an interval without checking it. Callers add either stored slots or ranges they have
+     * just checked with {@link #overlaps}.
+     */
+    public void add(LocalDateTime start, LocalDateTime end, Long slotId) {
+        // Two stored slots with the same start can only come from data written before overlap checks
+        byStart.merge(start, new Interval(start, end, slotId),
+                (kept, added) -> added.end().isAfter(kept.end()) ? added : kept);
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Interval> floor = byStart.floorEntry(start);
+        if (floor != null && floor.getValue().end().isAfter(start)) {
+            return true;
+        }
+        LocalDateTime next = byStart.higherKey(start);
+        return next != null && next.isBefore(end);
+    }
+
+    /** Slot ids of the stored intervals overlapping [start, end), in start order. */
+    public List<Long> overlapping(LocalDateTime start, LocalDateTime end) {
+        List<Long> slotIds = new ArrayList<>();
+        Map.Entry<LocalDateTime, Interval> floor = byStart.floorEntry(start);
+        if (floor != null && floor.getValue().end().isAfter(start)) {
+            slotIds.add(floor.getValue().slotId());
+        }
+        for (Interval interval : byStart.subMap(start, false, end, false).values()) {
+            slotIds.add(interval.slotId());
+        }
+        return slotIds;
+    }
+
+    public int size() {
+        return byStart.size();
+    }
+
+    /**
+     * Reports every overlap of the requested ranges, both with the stored intervals and with each other,
+     * in a single sweep. Pairs inside the request are reported once, on the range that starts later.
+     */
+    public List<SlotConflictDto> findConflicts(List<SlotTimeRangeDto> requested) {
+        List<SlotConflictDto> conflicts = new ArrayList<>();
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < requested.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> requested.get(i).getStartTime()).thenComparing(i -> i));
+
+        // Requested ranges that are still open at the current sweep position, earliest end first
+        PriorityQueue<Integer> open = new PriorityQueue<>(Comparator.comparing((Integer i) -> requested.get(i).getEndTime()));
+        for (int index : order) {
+            SlotTimeRangeDto range = requested.get(index);
+            for (Long slotId : overlapping(range.getStartTime(), range.getEndTime())) {
+                conflicts.add(new SlotConflictDto(index, range.getStartTime(), range.getEndTime(), slotId, null));
+            }
+            while (!open.isEmpty() && !requested.get(open.peek()).getEndTime().isAfter(range.getStartTime())) {
+                open.poll();
+            }
+            for (int other : open) {
+                conflicts.add(new SlotConflictDto(index, range.getStartTime(), range.getEndTime(), null, other));
+            }
+            open.add(index);
+        }
+        conflicts.sort(Comparator.comparingInt(SlotConflictDto::getIndex));
+        return conflicts;
+    }
+}
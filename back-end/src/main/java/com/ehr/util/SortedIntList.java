@@ -0,0 +1,55 @@
+package com.ehr.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable set of ints kept as a sorted primitive array, used for posting lists. Ids mostly arrive in
+ * ascending order, so inserts usually append. Not thread-safe on its own.
+ */
+public class SortedIntList {
+
+    private int[] values = new int[2];
+    private int size;
+
+    public boolean add(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at >= 0) {
+            return false;
+        }
+        at = -at - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, at, values, at + 1, size - at);
+        values[at] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int at = Arrays.binarySearch(values, 0, size, value);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(values, at + 1, values, at, size - at - 1);
+        size--;
+        return true;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Position of {@code value} among [from, size), or (-(insertion point) - 1) as in Arrays.binarySearch. */
+    public int indexOf(int value, int from) {
+        return Arrays.binarySearch(values, from, size, value);
+    }
+}
@@ -0,0 +1,176 @@
+package com.ehr.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Trigram inverted index over a fixed number of short text fields per document. Documents are identified
+ * by non-negative int ids that are expected to be dense, such as identity keys: fields are kept in an
+ * array indexed by id and every posting list is a sorted int array of the ids whose fields contain that
+ * trigram. Trigrams are case-folded per character and taken within each field, never across two.
+ *
+ * Candidates are a superset of the documents containing a term, so callers verify each one against the
+ * stored fields. Not thread-safe on its own; callers serialize writes against reads.
+ */
+public class TrigramIndex {
+
+    private final int fieldCount;
+    private final Map<Long, SortedIntList> postings = new HashMap<>();
+    private String[][] fields = new String[16][];
+    private int size;
+
+    public TrigramIndex(int fieldCount) {
+        if (fieldCount < 1) {
+            throw new IllegalArgumentException("A trigram index needs at least one field.");
+        }
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * Indexes the fields of document {@code id}, replacing whatever it had before. Null fields are skipped.
+     */
+    public void put(int id, String... values) {
+        if (id < 0 || values.length != fieldCount) {
+            throw new IllegalArgumentException("Invalid trigram index document.");
+        }
+        String[] previous = fields(id);
+        if (Arrays.equals(previous, values)) {
+            return;
+        }
+        if (previous != null) {
+            for (long trigram : trigrams(previous)) {
+                SortedIntList list = postings.get(trigram);
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        } else {
+            size++;
+        }
+        if (id >= fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(id + 1, fields.length + (fields.length >> 1)));
+        }
+        fields[id] = values.clone();
+        for (long trigram : trigrams(values)) {
+            postings.computeIfAbsent(trigram, t -> new SortedIntList()).add(id);
+        }
+    }
+
+    public boolean remove(int id) {
+        String[] previous = fields(id);
+        if (previous == null) {
+            return false;
+        }
+        for (long trigram : trigrams(previous)) {
+            SortedIntList list = postings.get(trigram);
+            list.remove(id);
+            if (list.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+        fields[id] = null;
+        size--;
+        return true;
+    }
+
+    /** The fields of document {@code id} as they were put, or null when it is not indexed. */
+    public String[] fields(int id) {
+        return id >= 0 && id < fields.length ? fields[id] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every document that may contain {@code term} in one of its fields to {@code action}, in
+     * ascending id order. Terms shorter than a trigram cannot be looked up, so every document is passed.
+     */
+    public void forEachCandidate(String term, IntConsumer action) {
+        if (term.length() < 3) {
+            for (int id = 0; id < fields.length; id++) {
+                if (fields[id] != null) {
+                    action.accept(id);
+                }
+            }
+            return;
+        }
+        long[] wanted = trigrams(term);
+        SortedIntList[] lists = new SortedIntList[wanted.length];
+        for (int i = 0; i < wanted.length; i++) {
+            lists[i] = postings.get(wanted[i]);
+            if (lists[i] == null) {
+                return; // some trigram of the term occurs nowhere
+            }
+        }
+        // Walk the shortest list and probe the others, each from where its previous probe ended
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        int[] positions = new int[lists.length];
+        SortedIntList shortest = lists[0];
+        candidates:
+        for (int i = 0; i < shortest.size(); i++) {
+            int id = shortest.get(i);
+            for (int l = 1; l < lists.length; l++) {
+                int at = lists[l].indexOf(id, positions[l]);
+                if (at < 0) {
+                    positions[l] = -at - 1;
+                    if (positions[l] == lists[l].size()) {
+                        return;
+                    }
+                    continue candidates;
+                }
+                positions[l] = at + 1;
+            }
+            action.accept(id);
+        }
+    }
+
+    // Distinct trigrams of the values, sorted
+    private static long[] trigrams(String... values) {
+        int capacity = 0;
+        for (String value : values) {
+            if (value != null) {
+                capacity += Math.max(0, value.length() - 2);
+            }
+        }
+        long[] trigrams = new long[capacity];
+        int count = 0;
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (int i = 0; i + 2 < value.length(); i++) {
+                trigrams[count++] = ((long) fold(value.charAt(i)) << 32)
+                        | ((long) fold(value.charAt(i + 1)) << 16)
+                        | fold(value.charAt(i + 2));
+            }
+        }
+        Arrays.sort(trigrams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || trigrams[distinct - 1] != trigrams[i]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    /** Lower-cases {@code value} one character at a time, the same folding the trigrams use. */
+    public static String foldCase(String value) {
+        if (value == null) {
+            return null;
+        }
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ehr.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Ids of slots that exist only as a schedule template rule. They are negative, so they never clash with
+ * stored slot ids, and pack the template id into the high 32 bits and the start minute into the low 32 bits.
+ * That is everything needed to store the slot when it is booked.
+ */
+public final class VirtualSlotId {
+
+    public record Decoded(Long templateId, LocalDateTime startTime) {
+    }
+
+    private static final long MAX_TEMPLATE_ID = (1L << 31) - 1;
+    private static final long MINUTE_MASK = (1L << 32) - 1;
+
+    private VirtualSlotId() {
+    }
+
+    public static boolean isVirtual(Long slotId) {
+        return slotId != null && slotId < 0;
+    }
+
+    public static long encode(Long templateId, LocalDateTime startTime) {
+        long minute = Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), 60);
+        if (templateId < 1 || templateId > MAX_TEMPLATE_ID || minute < 0 || minute > MINUTE_MASK) {
+            throw new IllegalStateException("Cannot build a virtual slot id for template " + templateId + " at " + startTime);
+        }
+        return -((templateId << 32) | minute);
+    }
+
+    public static Decoded decode(long slotId) {
+        if (slotId >= 0) {
+            throw new IllegalArgumentException("Not a virtual slot id: " + slotId);
+        }
+        long packed = -slotId;
+        return new Decoded(packed >>> 32, LocalDateTime.ofEpochSecond((packed & MINUTE_MASK) * 60, 0, ZoneOffset.UTC));
+    }
+}
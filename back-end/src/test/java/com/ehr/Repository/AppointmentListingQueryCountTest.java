@@ -0,0 +1,138 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.AppointmentResponseDto;
+import com.ehr.dto.AppointmentSummaryDto;
+import com.ehr.models.*;
+import com.ehr.repository.*;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the number of SQL statements each appointment listing costs, so a lazy association
+ * touched by a DTO shows up as a failing test instead of an N+1 in production.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(TestFixtures.class)
+class AppointmentListingQueryCountTest {
+
+    private static final int APPOINTMENTS = 6;
+    private static final LocalDateTime FAR_FUTURE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Patient patient;
+    private Staff doctor;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Count");
+        patient = fixtures.patient("Count");
+
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            AppointmentSlot slot = new AppointmentSlot();
+            slot.setDoctor(doctor);
+            slot.setStartTime(LocalDateTime.now().plusDays(1).plusHours(i));
+            slot.setEndTime(slot.getStartTime().plusMinutes(30));
+            slot.setStatus(AppointmentSlot.SlotStatus.BOOKED);
+            slot = appointmentSlotRepository.save(slot);
+
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patient);
+            appointment.setSlot(slot);
+            appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+            appointment.setType(Appointment.AppointmentType.ONLINE);
+            appointment.setNotes("Booking note " + i);
+            appointmentRepository.save(appointment);
+        }
+
+        // Start every test with an empty persistence context so lazy loads would really hit the database
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldBuildFullPatientListingInOneStatement() {
+        // Act
+        List<AppointmentResponseDto> dtos = appointmentRepository
+                .findByPatientOrderBySlot_StartTimeDesc(entityManager.getReference(Patient.class, patient.getId()))
+                .stream().map(AppointmentResponseDto::new).toList();
+
+        // Assert
+        assertEquals(APPOINTMENTS, dtos.size());
+        assertEquals("Count Patient", dtos.get(0).getPatientFullName());
+        assertEquals("Count Doctor", dtos.get(0).getDoctorFullName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldBuildFullDoctorListingInOneStatement() {
+        // Act
+        List<AppointmentResponseDto> dtos = appointmentRepository
+                .findBySlot_DoctorOrderBySlot_StartTimeDesc(entityManager.getReference(Staff.class, doctor.getId()))
+                .stream().map(AppointmentResponseDto::new).toList();
+
+        // Assert
+        assertEquals(APPOINTMENTS, dtos.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldServeEachSummaryPageInOneStatement() {
+        // Act
+        List<AppointmentSummaryDto> first = appointmentRepository.findSummaryPageByPatient(
+                patient.getId(), FAR_FUTURE, Long.MAX_VALUE, Limit.of(4));
+        AppointmentSummaryDto last = first.get(first.size() - 1);
+        List<AppointmentSummaryDto> second = appointmentRepository.findSummaryPageByDoctor(
+                doctor.getId(), last.getStartTime(), last.getId(), Limit.of(4));
+
+        // Assert
+        assertEquals(4, first.size());
+        assertEquals(APPOINTMENTS - 4, second.size());
+        assertTrue(first.get(0).getStartTime().isAfter(first.get(1).getStartTime()));
+        assertEquals("Count Patient", second.get(0).getPatientFullName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void shouldStreamExportRowsFromOneCursor() {
+        // Act
+        long count;
+        try (Stream<AppointmentSummaryDto> rows = appointmentRepository.streamSummariesByDoctor(doctor.getId(),
+                LocalDateTime.now(), FAR_FUTURE, EnumSet.of(Appointment.AppointmentStatus.SCHEDULED))) {
+            count = rows.count();
+        }
+
+        // Assert
+        assertEquals(APPOINTMENTS, count);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
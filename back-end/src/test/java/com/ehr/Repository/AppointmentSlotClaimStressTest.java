@@ -0,0 +1,343 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.AppointmentCreationDto;
+import com.ehr.dto.AppointmentRescheduleDto;
+import com.ehr.exception.UnauthorizedException;
+import com.ehr.models.*;
+import com.ehr.repository.*;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.service.*;
+import com.ehr.util.AuthenticatedUserProvider;
+import com.ehr.util.RequestIdentityContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers booking and rescheduling from many threads at once.
+ * Each client signs in as its own patient and calls AppointmentService, exactly as concurrent HTTP requests would.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AppointmentService.class, AuthenticatedUserProvider.class, RequestIdentityContext.class, SlotHoldService.class, HoldExpiryScheduler.class,
+        VirtualSlotService.class, SlotOverlapService.class, AppointmentSlotClaimStressTest.Metrics.class, TestFixtures.class})
+class AppointmentSlotClaimStressTest {
+
+    private static final int CLIENTS = 128;
+
+    /** The refusals a client may get for losing a race; anything else fails the test. */
+    private static final Set<String> LOST_RACE = Set.of(
+            "Appointment slot is not available.",
+            "The appointment was changed by someone else; please try again.");
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentRescheduleRepository appointmentRescheduleRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+    @MockitoBean
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+    @MockitoBean
+    private WaitlistService waitlistService;
+    @MockitoBean
+    private PatientService patientService;
+
+    private Staff doctor;
+    private final List<Patient> patients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Stress");
+        for (int i = 0; i < CLIENTS; i++) {
+            patients.add(fixtures.patient("patient" + i + "@example.com", "Patient", String.valueOf(i)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRescheduleRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        appointmentSlotRepository.deleteAll();
+        patientRepository.deleteAll();
+        userRepository.deleteAll();
+        staffRepository.deleteAll();
+    }
+
+    private AppointmentSlot newSlot(int offsetMinutes) {
+        return newSlot(offsetMinutes, 1);
+    }
+
+    private AppointmentSlot newSlot(int offsetMinutes, int capacity) {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setCapacity(capacity);
+        slot.setDoctor(doctor);
+        slot.setStartTime(LocalDateTime.now().plusDays(1).plusMinutes(offsetMinutes));
+        slot.setEndTime(slot.getStartTime().plusMinutes(15));
+        return appointmentSlotRepository.save(slot);
+    }
+
+    /** Books the slot as the given patient; returns the appointment id, or null when the slot is full. */
+    private Long book(Long slotId, Patient patient) {
+        signIn(patient);
+        try {
+            return appointmentService.bookAppointment(new AppointmentCreationDto(slotId, null)).getId();
+        } catch (IllegalArgumentException e) {
+            assertLostRace(e);
+            return null;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void signIn(Patient patient) {
+        JwtPrincipal principal = JwtPrincipal.forUser(patient.getUser().getEmail(), "USER",
+                patient.getUser().getId(), patient.getId());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    void shouldNeverDoubleBookOnePopularSlot() throws Exception {
+        // Arrange
+        Long slotId = newSlot(0).getId();
+        AtomicInteger wins = new AtomicInteger();
+        AtomicInteger losses = new AtomicInteger();
+
+        // Act
+        runConcurrently(CLIENTS, client -> {
+            if (book(slotId, patients.get(client)) != null) {
+                wins.incrementAndGet();
+            } else {
+                losses.incrementAndGet();
+            }
+        });
+
+        // Assert
+        assertEquals(1, wins.get());
+        assertEquals(CLIENTS - 1, losses.get());
+        assertEquals(1, appointmentRepository.count());
+        assertEquals(AppointmentSlot.SlotStatus.BOOKED,
+                appointmentSlotRepository.findById(slotId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldBookEverySlotExactlyOnceUnderContention() throws Exception {
+        // Arrange: every client tries every slot, starting at a different offset
+        int slotCount = 32;
+        List<Long> slotIds = new ArrayList<>();
+        for (int i = 0; i < slotCount; i++) {
+            slotIds.add(newSlot(i * 15).getId());
+        }
+        AtomicInteger bookings = new AtomicInteger();
+
+        // Act
+        runConcurrently(CLIENTS, client -> {
+            for (int i = 0; i < slotCount; i++) {
+                Long slotId = slotIds.get((client + i) % slotCount);
+                if (book(slotId, patients.get(client)) != null) {
+                    bookings.incrementAndGet();
+                }
+            }
+        });
+
+        // Assert
+        assertEquals(slotCount, bookings.get());
+        assertEquals(slotCount, appointmentRepository.count());
+        for (Long slotId : slotIds) {
+            assertEquals(AppointmentSlot.SlotStatus.BOOKED,
+                    appointmentSlotRepository.findById(slotId).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void shouldFillAGroupSlotToCapacityAndNoFurther() throws Exception {
+        // Arrange
+        int capacity = 20;
+        Long slotId = newSlot(0, capacity).getId();
+        AtomicInteger wins = new AtomicInteger();
+
+        // Act
+        runConcurrently(CLIENTS, client -> {
+            if (book(slotId, patients.get(client)) != null) {
+                wins.incrementAndGet();
+            }
+        });
+
+        // Assert
+        AppointmentSlot slot = appointmentSlotRepository.findById(slotId).orElseThrow();
+        assertEquals(capacity, wins.get());
+        assertEquals(capacity, appointmentRepository.count());
+        assertEquals(capacity, slot.getBookedCount());
+        assertEquals(AppointmentSlot.SlotStatus.BOOKED, slot.getStatus());
+    }
+
+    @Test
+    void shouldReopenAFullGroupSlotWhenASeatIsReleased() {
+        // Arrange
+        Long slotId = newSlot(0, 2).getId();
+        Long appointmentId = book(slotId, patients.get(0));
+        assertNotNull(appointmentId);
+        assertEquals(AppointmentSlot.SlotStatus.AVAILABLE, appointmentSlotRepository.findById(slotId).orElseThrow().getStatus());
+        assertNotNull(book(slotId, patients.get(1)));
+        assertNull(book(slotId, patients.get(2)));
+
+        // Act
+        appointmentService.updateAppointmentStatus(appointmentId, Appointment.AppointmentStatus.CANCELLED);
+
+        // Assert
+        AppointmentSlot slot = appointmentSlotRepository.findById(slotId).orElseThrow();
+        assertEquals(1, slot.getBookedCount());
+        assertEquals(AppointmentSlot.SlotStatus.AVAILABLE, slot.getStatus());
+        assertNotNull(book(slotId, patients.get(2)));
+    }
+
+    @Test
+    void shouldMoveExactlyOneAppointmentIntoAContestedSlot() throws Exception {
+        // Arrange: every client has its own booked appointment and tries to move it into the same slot
+        int clients = 32;
+        Map<Integer, Long> fromSlots = new HashMap<>();
+        Map<Integer, Long> appointmentIds = new HashMap<>();
+        for (int client = 0; client < clients; client++) {
+            Long slotId = newSlot(client * 15 + 60).getId();
+            Long appointmentId = book(slotId, patients.get(client));
+            assertNotNull(appointmentId);
+            fromSlots.put(client, slotId);
+            appointmentIds.put(client, appointmentId);
+        }
+        Long targetId = newSlot(0).getId();
+        AtomicInteger moves = new AtomicInteger();
+
+        // Act
+        runConcurrently(clients, client -> {
+            if (reschedule(appointmentIds.get(client), targetId, patients.get(client))) {
+                moves.incrementAndGet();
+            }
+        });
+
+        // Assert: one move, recorded once, nobody lost their original slot, and no appointment rows were added
+        assertEquals(1, moves.get());
+        assertEquals(moves.get(), appointmentRescheduleRepository.count());
+        assertEquals(clients, appointmentRepository.count());
+        assertEquals(AppointmentSlot.SlotStatus.BOOKED, appointmentSlotRepository.findById(targetId).orElseThrow().getStatus());
+        long reopened = fromSlots.values().stream()
+                .map(slotId -> appointmentSlotRepository.findById(slotId).orElseThrow())
+                .filter(slot -> slot.getStatus() == AppointmentSlot.SlotStatus.AVAILABLE && slot.getBookedCount() == 0)
+                .count();
+        assertEquals(1, reopened);
+    }
+
+    @Test
+    void shouldNotLetADoctorRescheduleAnotherDoctorsAppointment() {
+        // Arrange
+        Long fromId = newSlot(0).getId();
+        Long toId = newSlot(30).getId();
+        Long appointmentId = book(fromId, patients.get(0));
+        Staff otherDoctor = fixtures.doctor("Other");
+        JwtPrincipal principal = JwtPrincipal.forStaff(otherDoctor.getWorkId(), Staff.Role.DOCTOR, otherDoctor.getId());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        // Act & Assert
+        try {
+            assertThrows(UnauthorizedException.class, () -> appointmentService.rescheduleAppointment(
+                    appointmentId, new AppointmentRescheduleDto(toId, null)));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        assertEquals(fromId, appointmentRepository.findById(appointmentId).orElseThrow().getSlot().getId());
+        assertEquals(AppointmentSlot.SlotStatus.AVAILABLE, appointmentSlotRepository.findById(toId).orElseThrow().getStatus());
+    }
+
+    /** Moves the patient's appointment into the slot; returns false when the slot is taken. */
+    private boolean reschedule(Long appointmentId, Long toSlotId, Patient patient) {
+        signIn(patient);
+        try {
+            appointmentService.rescheduleAppointment(appointmentId, new AppointmentRescheduleDto(toSlotId, null));
+            return true;
+        } catch (IllegalArgumentException e) {
+            assertLostRace(e);
+            return false;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void assertLostRace(IllegalArgumentException e) {
+        if (!LOST_RACE.contains(e.getMessage())) {
+            throw e;
+        }
+    }
+
+    private interface Client {
+        void run(int client);
+    }
+
+    private void runConcurrently(int clients, Client body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                body.run(client);
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS); // rethrows any unexpected failure from a client
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
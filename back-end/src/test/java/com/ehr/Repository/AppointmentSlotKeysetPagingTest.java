@@ -0,0 +1,90 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.models.Staff;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.util.CursorCodec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(TestFixtures.class)
+class AppointmentSlotKeysetPagingTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    private final LocalDateTime nine = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+    private final List<Long> expectedOrder = new ArrayList<>();
+    private Staff doctor;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Page");
+
+        // Pairs of slots share a start time so the id tie-breaker is exercised
+        for (int i = 0; i < 7; i++) {
+            AppointmentSlot slot = new AppointmentSlot();
+            slot.setDoctor(doctor);
+            slot.setStartTime(nine.plusMinutes(30L * (i / 2)));
+            slot.setEndTime(slot.getStartTime().plusMinutes(30));
+            slot.setStatus(i == 3 ? AppointmentSlot.SlotStatus.BOOKED : AppointmentSlot.SlotStatus.AVAILABLE);
+            slot = appointmentSlotRepository.save(slot);
+            if (i != 3) {
+                expectedOrder.add(slot.getId());
+            }
+        }
+    }
+
+    @Test
+    void shouldWalkAvailableSlotsPageByPageWithoutGapsOrRepeats() {
+        // Arrange
+        List<Long> seen = new ArrayList<>();
+        CursorCodec.Position after = new CursorCodec.Position(nine, 0L);
+
+        // Act
+        while (true) {
+            List<AppointmentSlotResponseDto> page = appointmentSlotRepository.findSlotViewPageByStatus(
+                    AppointmentSlot.SlotStatus.AVAILABLE, after.startTime(), after.id(), nine.plusDays(1), Limit.of(2));
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(slot -> seen.add(slot.getId()));
+            AppointmentSlotResponseDto last = page.get(page.size() - 1);
+            after = CursorCodec.decode(CursorCodec.encode(last.getStartTime(), last.getId()));
+        }
+
+        // Assert
+        assertEquals(expectedOrder, seen);
+    }
+
+    @Test
+    void shouldProjectDoctorNameWithoutLoadingTheEntity() {
+        List<AppointmentSlotResponseDto> page = appointmentSlotRepository.findSlotViewPageByDoctor(
+                doctor.getId(), nine, 0L, nine.plusDays(1), Limit.of(10));
+
+        assertEquals(7, page.size());
+        assertEquals("Page Doctor", page.get(0).getDoctorFullName());
+        assertEquals(doctor.getId(), page.get(0).getDoctorId());
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("bm9waXBl"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.dto.AvailabilityHeatmapDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.models.*;
+import com.ehr.repository.*;
+import com.ehr.service.AvailabilityHeatmapService;
+import com.ehr.service.SlotOverlapService;
+import com.ehr.service.VirtualSlotService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({AvailabilityHeatmapService.class, VirtualSlotService.class, SlotOverlapService.class, TestFixtures.class})
+class AvailabilityHeatmapTest {
+
+    // A month well in the future, so no slot counts as past
+    private static final YearMonth MONTH = YearMonth.now().plusMonths(2);
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private AvailabilityHeatmapService availabilityHeatmapService;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    private Staff doctor;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Heatmap");
+    }
+
+    @Test
+    void shouldCountFreeAndBookedSlotsPerDoctorPerDay() {
+        // Arrange
+        LocalDate first = MONTH.atDay(1);
+        slot(first, 9, AppointmentSlot.SlotStatus.AVAILABLE);
+        slot(first, 10, AppointmentSlot.SlotStatus.BOOKED);
+        slot(first, 11, AppointmentSlot.SlotStatus.HELD);
+        slot(first.plusDays(3), 9, AppointmentSlot.SlotStatus.AVAILABLE);
+        slot(first.plusDays(3), 10, AppointmentSlot.SlotStatus.CANCELLED);
+        slot(MONTH.plusMonths(1).atDay(1), 9, AppointmentSlot.SlotStatus.AVAILABLE); // next month
+
+        // Act
+        AvailabilityHeatmapDto heatmap = availabilityHeatmapService.getHeatmap(MONTH, null);
+
+        // Assert
+        assertEquals(1, heatmap.getDoctors().size());
+        AvailabilityHeatmapDto.DoctorDays days = heatmap.getDoctors().get(0);
+        assertEquals("Heatmap Doctor", days.getDoctorFullName());
+        assertEquals(List.of(new AvailabilityHeatmapDto.DayCount(first, 1, 2),
+                        new AvailabilityHeatmapDto.DayCount(first.plusDays(3), 1, 0)),
+                days.getDays());
+    }
+
+    @Test
+    void shouldCountTheSeatsOfGroupSlots() {
+        // Arrange: a clinic with two of five seats taken, and a full one
+        LocalDate day = MONTH.atDay(10);
+        AppointmentSlot open = slot(day, 9, AppointmentSlot.SlotStatus.AVAILABLE);
+        open.setCapacity(5);
+        open.setBookedCount(2);
+        appointmentSlotRepository.save(open);
+        AppointmentSlot full = slot(day, 10, AppointmentSlot.SlotStatus.BOOKED);
+        full.setCapacity(3);
+        full.setBookedCount(3);
+        appointmentSlotRepository.save(full);
+
+        // Act
+        AvailabilityHeatmapDto heatmap = availabilityHeatmapService.getHeatmap(MONTH, doctor.getId());
+
+        // Assert
+        assertEquals(new AvailabilityHeatmapDto.DayCount(day, 3, 5), heatmap.getDoctors().get(0).getDays().get(0));
+    }
+
+    @Test
+    void shouldRecountAMonthAfterASlotInItChanges() {
+        // Arrange
+        LocalDate day = MONTH.atDay(5);
+        AppointmentSlot slot = slot(day, 9, AppointmentSlot.SlotStatus.AVAILABLE);
+        assertEquals(1, availabilityHeatmapService.getHeatmap(MONTH, doctor.getId()).getDoctors().get(0).getDays().get(0).getFree());
+
+        // Act
+        slot.setStatus(AppointmentSlot.SlotStatus.BOOKED);
+        slot.setBookedCount(1);
+        appointmentSlotRepository.save(slot);
+        availabilityHeatmapService.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.BOOKED, new AppointmentSlotResponseDto(slot)));
+
+        // Assert
+        assertEquals(new AvailabilityHeatmapDto.DayCount(day, 0, 1),
+                availabilityHeatmapService.getHeatmap(MONTH, doctor.getId()).getDoctors().get(0).getDays().get(0));
+    }
+
+    private AppointmentSlot slot(LocalDate date, int hour, AppointmentSlot.SlotStatus status) {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setDoctor(doctor);
+        slot.setStartTime(date.atTime(hour, 0));
+        slot.setEndTime(date.atTime(hour, 30));
+        slot.setStatus(status);
+        if (status == AppointmentSlot.SlotStatus.BOOKED || status == AppointmentSlot.SlotStatus.HELD) {
+            slot.setBookedCount(1);
+        }
+        return appointmentSlotRepository.save(slot);
+    }
+}
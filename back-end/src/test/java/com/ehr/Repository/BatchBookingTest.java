@@ -0,0 +1,204 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.BatchBookingItemDto;
+import com.ehr.dto.BatchBookingRequestDto;
+import com.ehr.dto.BatchBookingResultDto;
+import com.ehr.exception.BatchBookingException;
+import com.ehr.models.*;
+import com.ehr.repository.*;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.service.*;
+import com.ehr.util.AuthenticatedUserProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BatchBookingService.class, VirtualSlotService.class, SlotOverlapService.class, SlotHoldService.class,
+        HoldExpiryScheduler.class, BatchBookingTest.Metrics.class, TestFixtures.class})
+class BatchBookingTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private BatchBookingService batchBookingService;
+    @Autowired
+    private SlotHoldService slotHoldService;
+    @Autowired
+    private HoldExpiryScheduler holdExpiryScheduler;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @MockitoBean
+    private AuthenticatedUserProvider authenticatedUserProvider;
+    @MockitoBean
+    private WaitlistService waitlistService;
+
+    private Staff doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Batch");
+        patient = fixtures.patient("Batch");
+
+        when(authenticatedUserProvider.getUserPrincipal()).thenReturn(Optional.of(
+                JwtPrincipal.forUser(patient.getUser().getEmail(), "USER", patient.getUser().getId(), patient.getId())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        appointmentSlotRepository.deleteAll();
+        patientRepository.deleteAll();
+        userRepository.deleteAll();
+        staffRepository.deleteAll();
+    }
+
+    @Test
+    void shouldBookWhatIsAvailableInBestEffortMode() {
+        // Arrange
+        Long first = slot(1, AppointmentSlot.SlotStatus.AVAILABLE);
+        Long taken = slot(2, AppointmentSlot.SlotStatus.BOOKED);
+        Long third = slot(3, AppointmentSlot.SlotStatus.AVAILABLE);
+        BatchBookingRequestDto request = new BatchBookingRequestDto(List.of(first, taken, third, 999_999L),
+                BatchBookingRequestDto.Mode.BEST_EFFORT, "Weekly physiotherapy");
+
+        // Act
+        BatchBookingResultDto result = batchBookingService.bookSlots(request);
+
+        // Assert
+        assertEquals(2, result.getBooked());
+        assertEquals(List.of(BatchBookingItemDto.Outcome.BOOKED, BatchBookingItemDto.Outcome.UNAVAILABLE,
+                        BatchBookingItemDto.Outcome.BOOKED, BatchBookingItemDto.Outcome.NOT_FOUND),
+                result.getResults().stream().map(BatchBookingItemDto::getOutcome).toList());
+        assertEquals(third, result.getResults().get(2).getAppointment().getSlotId());
+        assertEquals(AppointmentSlot.SlotStatus.BOOKED, appointmentSlotRepository.findById(third).orElseThrow().getStatus());
+        assertEquals(2, appointmentRepository.count());
+        assertTrue(appointmentRepository.findAll().stream().allMatch(a -> "Weekly physiotherapy".equals(a.getNotes())));
+    }
+
+    @Test
+    void shouldBookNothingWhenAnAllOrNothingSlotIsTaken() {
+        // Arrange
+        Long first = slot(1, AppointmentSlot.SlotStatus.AVAILABLE);
+        Long taken = slot(2, AppointmentSlot.SlotStatus.BOOKED);
+        BatchBookingRequestDto request = new BatchBookingRequestDto(List.of(first, taken),
+                BatchBookingRequestDto.Mode.ALL_OR_NOTHING, null);
+
+        // Act
+        BatchBookingException exception = assertThrows(BatchBookingException.class, () -> batchBookingService.bookSlots(request));
+
+        // Assert
+        assertEquals(List.of(BatchBookingItemDto.Outcome.ROLLED_BACK, BatchBookingItemDto.Outcome.UNAVAILABLE),
+                exception.getResult().getResults().stream().map(BatchBookingItemDto::getOutcome).toList());
+        assertEquals(AppointmentSlot.SlotStatus.AVAILABLE, appointmentSlotRepository.findById(first).orElseThrow().getStatus());
+        assertEquals(0, appointmentRepository.count());
+    }
+
+    @Test
+    void shouldNotGiveThePatientASecondSeatInAGroupSlot() {
+        // Arrange
+        Long group = slot(1, AppointmentSlot.SlotStatus.AVAILABLE, 3);
+        Long other = slot(2, AppointmentSlot.SlotStatus.AVAILABLE);
+        batchBookingService.bookSlots(new BatchBookingRequestDto(List.of(group), BatchBookingRequestDto.Mode.BEST_EFFORT, null));
+
+        // Act
+        BatchBookingResultDto result = batchBookingService.bookSlots(new BatchBookingRequestDto(List.of(group, other),
+                BatchBookingRequestDto.Mode.BEST_EFFORT, null));
+
+        // Assert
+        assertEquals(List.of(BatchBookingItemDto.Outcome.UNAVAILABLE, BatchBookingItemDto.Outcome.BOOKED),
+                result.getResults().stream().map(BatchBookingItemDto::getOutcome).toList());
+        assertEquals(1, appointmentSlotRepository.findById(group).orElseThrow().getBookedCount());
+        assertEquals(2, appointmentRepository.count());
+        assertThrows(BatchBookingException.class, () -> batchBookingService.bookSlots(new BatchBookingRequestDto(
+                List.of(group), BatchBookingRequestDto.Mode.ALL_OR_NOTHING, null)));
+    }
+
+    @Test
+    void shouldBookASlotThePatientHolds() {
+        // Arrange
+        Long held = slot(1, AppointmentSlot.SlotStatus.HELD);
+        AppointmentSlot slot = appointmentSlotRepository.findById(held).orElseThrow();
+        slot.setHeldByPatientId(patient.getId());
+        slot.setHoldExpiresAt(LocalDateTime.now().plusMinutes(2));
+        appointmentSlotRepository.save(slot);
+
+        // Act
+        BatchBookingResultDto result = batchBookingService.bookSlots(new BatchBookingRequestDto(List.of(held),
+                BatchBookingRequestDto.Mode.ALL_OR_NOTHING, null));
+
+        // Assert
+        assertEquals(BatchBookingItemDto.Outcome.BOOKED, result.getResults().get(0).getOutcome());
+        AppointmentSlot booked = appointmentSlotRepository.findById(held).orElseThrow();
+        assertEquals(AppointmentSlot.SlotStatus.BOOKED, booked.getStatus());
+        assertNull(booked.getHeldByPatientId());
+        assertEquals(1, appointmentRepository.count());
+    }
+
+    @Test
+    void shouldKeepTheHoldTimerWhenTheBatchRollsBack() {
+        // Arrange
+        Long held = slotHoldService.holdSlot(slot(1, AppointmentSlot.SlotStatus.AVAILABLE)).getSlotId();
+        Long taken = slot(2, AppointmentSlot.SlotStatus.BOOKED);
+        assertEquals(1, holdExpiryScheduler.pending());
+
+        // Act
+        assertThrows(BatchBookingException.class, () -> batchBookingService.bookSlots(new BatchBookingRequestDto(
+                List.of(held, taken), BatchBookingRequestDto.Mode.ALL_OR_NOTHING, null)));
+
+        // Assert: the hold survived the rollback, and so did the timer that lapses it
+        assertEquals(AppointmentSlot.SlotStatus.HELD, appointmentSlotRepository.findById(held).orElseThrow().getStatus());
+        assertEquals(1, holdExpiryScheduler.pending());
+    }
+
+    private Long slot(int week, AppointmentSlot.SlotStatus status) {
+        return slot(week, status, 1);
+    }
+
+    private Long slot(int week, AppointmentSlot.SlotStatus status, int capacity) {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setCapacity(capacity);
+        slot.setDoctor(doctor);
+        slot.setStartTime(LocalDateTime.now().plusWeeks(week).withNano(0));
+        slot.setEndTime(slot.getStartTime().plusMinutes(30));
+        slot.setStatus(status);
+        return appointmentSlotRepository.save(slot).getId();
+    }
+}
@@ -0,0 +1,264 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.PatientImportDto;
+import com.ehr.dto.PatientImportRejectionDto;
+import com.ehr.models.Patient;
+import com.ehr.models.PatientImport;
+import com.ehr.models.User;
+import com.ehr.repository.UserRepository;
+import com.ehr.service.PatientImportService;
+import com.ehr.service.PatientSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "ehr.patients.import.chunk-size=2",
+        "ehr.patients.import.hash-threads=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({PatientImportService.class, PatientSearchIndex.class, PatientImportTest.Beans.class, TestFixtures.class})
+class PatientImportTest {
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private PatientImportService patientImportService;
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    // Keeps the emails and phone numbers of each test apart, as the rows outlive it
+    private String tag;
+    private String phonePrefix;
+
+    @BeforeEach
+    void setUp() {
+        tag = UUID.randomUUID().toString().substring(0, 8);
+        phonePrefix = "+2547" + String.format("%05d", Math.floorMod(tag.hashCode(), 100_000));
+    }
+
+    @Test
+    void shouldImportValidRowsAndRejectTheRest() {
+        // Arrange
+        fixtures.user(email("taken"), "Taken", "Already");
+        // With chunks of two, rows 1 and 3 share a phone number across chunks and rows 7 and 8 an email within one
+        String csv = "First Name,last_name,email,phoneNumber,dateOfBirth,gender,bloodGroup,password\n" +
+                "Achieng,Otieno," + email("achieng") + "," + phone(1) + ",1990-05-01,female,O+,s3cret-pass\n" +
+                "Wanjiku,Kamau," + email("taken") + ",,,,,\n" +
+                "Brian,Ochieng,," + phone(1) + ",,,,\n" +
+                "Mary,Njeri," + email("mary") + ",,2999-01-01,,,\n" +
+                "Peter,Mwangi," + email("peter") + ",,,unknown,,\n" +
+                ",Kiprono," + email("kiprono") + ",,,,,\n" +
+                "Jane,Doe," + email("jane") + ",,,,,\n" +
+                "Janet,Doe," + email("jane") + ",,,,,\n" +
+                "Too,Short\n";
+
+        // Act
+        PatientImportDto result = patientImportService.startImport(input(csv), PatientImport.Format.CSV, "legacy.csv");
+
+        // Assert
+        assertEquals(PatientImport.ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(9, result.getRowsProcessed());
+        assertEquals(2, result.getImportedCount());
+        assertEquals(7, result.getRejectedCount());
+        List<PatientImportRejectionDto> rejections = patientImportService.getRejections(result.getId(), 0, 100);
+        assertEquals(List.of(
+                new PatientImportRejectionDto(2, "Email already registered"),
+                new PatientImportRejectionDto(3, "Phone number already registered"),
+                new PatientImportRejectionDto(4, "Date of birth is in the future"),
+                new PatientImportRejectionDto(5, "Unknown gender 'unknown'"),
+                new PatientImportRejectionDto(6, "First name is required"),
+                new PatientImportRejectionDto(8, "Email repeats row 7"),
+                new PatientImportRejectionDto(9, "Expected 8 fields, found 2")), rejections);
+        assertEquals(rejections.subList(2, 7), patientImportService.getRejections(result.getId(), 3, 100));
+
+        User achieng = userRepository.findByIdWithPatient(userRepository.findByEmail(email("achieng")).orElseThrow().getId()).orElseThrow();
+        assertEquals(phone(1), achieng.getPhoneNumber());
+        assertTrue(achieng.isVerified());
+        assertTrue(passwordEncoder.matches("s3cret-pass", achieng.getPasswordHash()));
+        assertEquals(Patient.Gender.FEMALE, achieng.getPatient().getGender());
+        assertEquals(Patient.BloodGroup.O_POSITIVE, achieng.getPatient().getBloodGroup());
+    }
+
+    @Test
+    void shouldLeaveTheContactsOfARejectedRowFreeForLaterRows() {
+        // Arrange: one chunk; row 2 repeats row 1's email, so its phone number is still free for row 3
+        ReflectionTestUtils.setField(patientImportService, "chunkSize", 10);
+        String csv = "firstName,lastName,email,phoneNumber\n" +
+                "Jane,Doe," + email("jane") + "," + phone(3) + "\n" +
+                "Janet,Doe," + email("jane") + "," + phone(4) + "\n" +
+                "June,Doe," + email("june") + "," + phone(4) + "\n";
+
+        // Act
+        PatientImportDto result;
+        try {
+            result = patientImportService.startImport(input(csv), PatientImport.Format.CSV, null);
+        } finally {
+            ReflectionTestUtils.setField(patientImportService, "chunkSize", 2);
+        }
+
+        // Assert
+        assertEquals(2, result.getImportedCount());
+        assertEquals(List.of(new PatientImportRejectionDto(2, "Email repeats row 1")),
+                patientImportService.getRejections(result.getId(), 0, 100));
+        assertEquals(email("june"), userRepository.findByPhoneNumber(phone(4)).orElseThrow().getEmail());
+    }
+
+    @Test
+    void shouldImportNdjsonAndRejectMalformedLines() {
+        // Arrange
+        String ndjson = "{\"firstName\":\"Akinyi\",\"lastName\":\"Odhiambo\",\"email\":\"" + email("akinyi") + "\",\"genotype\":\"as\"}\n" +
+                "\n" +
+                "{\"firstName\":\"Kamau\",\"lastName\":\"Njoroge\",\"email\":\"" + email("kamau") + "\",\"nickname\":\"K\"}\n" +
+                "{\"firstName\":\"Half\n" +
+                "{\"firstName\":\"Otieno\",\"lastName\":\"Ouma\",\"phoneNumber\":\"" + phone(2) + "\"}\n";
+
+        // Act
+        PatientImportDto result = patientImportService.startImport(input(ndjson), PatientImport.Format.NDJSON, null);
+
+        // Assert
+        assertEquals(PatientImport.ImportStatus.COMPLETED, result.getStatus());
+        assertEquals(4, result.getRowsProcessed());
+        assertEquals(2, result.getImportedCount());
+        List<PatientImportRejectionDto> rejections = patientImportService.getRejections(result.getId(), 0, 100);
+        assertEquals(List.of(2L, 3L), rejections.stream().map(PatientImportRejectionDto::getRowNumber).toList());
+        assertTrue(rejections.stream().allMatch(r -> r.getReason().startsWith("Malformed JSON")));
+        assertTrue(userRepository.findByPhoneNumber(phone(2)).isPresent());
+        assertTrue(patientSearchIndex.isReady());
+    }
+
+    @Test
+    void shouldResumeFromTheCheckpointAfterTheInputBreaksOff() {
+        // Arrange
+        StringBuilder csv = new StringBuilder("firstName,lastName,email\n");
+        for (int i = 1; i <= 5; i++) {
+            csv.append("Resumed,Patient").append(i).append(',').append(email("resume" + i)).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        // Delivers the header and three rows, then fails like a dropped upload
+        int cut = csv.indexOf(email("resume4"));
+        InputStream broken = new InputStream() {
+            private boolean delivered;
+
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (delivered) {
+                    throw new IOException("Connection reset");
+                }
+                delivered = true;
+                System.arraycopy(bytes, 0, buffer, offset, Math.min(cut, length));
+                return Math.min(cut, length);
+            }
+        };
+
+        // Act
+        PatientImportDto failed = patientImportService.startImport(broken, PatientImport.Format.CSV, "upload.csv");
+        PatientImportDto resumed = patientImportService.resumeImport(failed.getId(), new ByteArrayInputStream(bytes));
+
+        // Assert
+        assertEquals(PatientImport.ImportStatus.FAILED, failed.getStatus());
+        assertEquals(2, failed.getRowsProcessed());
+        assertEquals("Connection reset", failed.getLastError());
+        assertEquals(PatientImport.ImportStatus.COMPLETED, resumed.getStatus());
+        assertEquals(5, resumed.getRowsProcessed());
+        assertEquals(5, resumed.getImportedCount());
+        assertEquals(0, resumed.getRejectedCount());
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(userRepository.findByEmail(email("resume" + i)).isPresent());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> patientImportService.resumeImport(failed.getId(), new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void shouldRunASubmittedImportInTheBackground() throws Exception {
+        // Arrange
+        String csv = "firstName,lastName,email\n" +
+                "Queued,One," + email("queued1") + "\n" +
+                "Queued,Two," + email("queued2") + "\n" +
+                "Queued,Three," + email("queued3") + "\n";
+
+        // Act
+        PatientImportDto submitted = patientImportService.submitImport(input(csv), PatientImport.Format.CSV, "queued.csv");
+        PatientImportDto finished = awaitFinished(submitted.getId());
+
+        // Assert
+        assertEquals(PatientImport.ImportStatus.RUNNING, submitted.getStatus());
+        assertEquals(0, submitted.getRowsProcessed());
+        assertEquals(PatientImport.ImportStatus.COMPLETED, finished.getStatus());
+        assertEquals(3, finished.getImportedCount());
+        assertTrue(userRepository.findByEmail(email("queued3")).isPresent());
+        assertThrows(IllegalArgumentException.class,
+                () -> patientImportService.submitResume(submitted.getId(), input(csv)));
+    }
+
+    private PatientImportDto awaitFinished(Long importId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        PatientImportDto patientImport = patientImportService.getImport(importId);
+        while (patientImport.getStatus() == PatientImport.ImportStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            patientImport = patientImportService.getImport(importId);
+        }
+        return patientImport;
+    }
+
+    private String email(String name) {
+        return name + "." + tag + "@example.com";
+    }
+
+    private String phone(int n) {
+        return phonePrefix + n;
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
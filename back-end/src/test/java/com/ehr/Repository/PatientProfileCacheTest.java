@@ -0,0 +1,103 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.PatientResponseDto;
+import com.ehr.dto.PatientUpdateDto;
+import com.ehr.models.Patient;
+import com.ehr.service.PatientSearchIndex;
+import com.ehr.service.PatientService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PatientService.class, PatientSearchIndex.class, PatientProfileCacheTest.Metrics.class, TestFixtures.class})
+class PatientProfileCacheTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = fixtures.patient(UUID.randomUUID() + "@example.com", "Cached", "Patient");
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldServeWarmProfileReadsWithoutQueries() {
+        // Arrange
+        double hitsBefore = profileGets("hit");
+        double missesBefore = profileGets("miss");
+
+        // Act
+        PatientResponseDto cold = patientService.getPatientById(patient.getId()).orElseThrow();
+        long coldStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        PatientResponseDto warm = patientService.getPatientById(patient.getId()).orElseThrow();
+        PatientResponseDto byUser = patientService.getPatientByUserId(cold.getUserId()).orElseThrow();
+        patientService.getPatientByUserId(cold.getUserId()).orElseThrow();
+
+        // Assert
+        assertEquals(1, coldStatements);
+        assertEquals("Cached", warm.getFirstName());
+        assertEquals(patient.getId(), byUser.getId());
+        assertEquals(1, statistics.getPrepareStatementCount()); // the user id mapping, once
+        assertEquals(3.0, profileGets("hit") - hitsBefore);
+        assertEquals(1.0, profileGets("miss") - missesBefore);
+    }
+
+    @Test
+    void shouldReloadAProfileAfterItsUpdateCommits() {
+        // Arrange
+        patientService.getPatientById(patient.getId()).orElseThrow();
+        PatientUpdateDto update = new PatientUpdateDto();
+        update.setOccupation("Teacher");
+
+        // Act
+        patientService.updatePatient(patient.getId(), update);
+
+        // Assert
+        assertEquals("Teacher", patientService.getPatientById(patient.getId()).orElseThrow().getOccupation());
+    }
+
+    private double profileGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "patient.profiles").tag("result", result).functionCounter().count();
+    }
+}
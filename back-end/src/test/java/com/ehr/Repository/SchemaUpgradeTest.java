@@ -0,0 +1,147 @@
+package com.ehr.Repository;
+
+import com.ehr.config.SchemaUpgrade;
+import com.ehr.models.Appointment;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.models.Patient;
+import com.ehr.models.Staff;
+import com.ehr.repository.AppointmentRepository;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.repository.PatientRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.repository.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts from the appointment tables as the first release created them, lets Hibernate's update
+ * run over them as it does in production, and checks what SchemaUpgrade adds on top.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/baseline-schema.sql"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SchemaUpgrade.class, TestFixtures.class})
+class SchemaUpgradeTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private SchemaUpgrade schemaUpgrade;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+
+    private Staff doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Upgrade");
+        patient = fixtures.patient("Upgrade");
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        appointmentSlotRepository.deleteAll();
+        patientRepository.deleteAll();
+        userRepository.deleteAll();
+        staffRepository.deleteAll();
+    }
+
+    private AppointmentSlot newSlot() {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setDoctor(doctor);
+        slot.setStartTime(LocalDateTime.now().plusDays(1));
+        slot.setEndTime(slot.getStartTime().plusMinutes(30));
+        return appointmentSlotRepository.save(slot);
+    }
+
+    private Appointment newAppointment(AppointmentSlot slot, Appointment.AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setSlot(slot);
+        appointment.setStatus(status);
+        return appointmentRepository.save(appointment);
+    }
+
+    @Test
+    void shouldLetACancelledSlotBeBookedAgain() {
+        // Arrange
+        AppointmentSlot slot = newSlot();
+        newAppointment(slot, Appointment.AppointmentStatus.CANCELLED);
+
+        // Act
+        newAppointment(slot, Appointment.AppointmentStatus.SCHEDULED);
+
+        // Assert
+        assertEquals(2, appointmentRepository.count());
+    }
+
+    @Test
+    void shouldAcceptEverySlotStatusAndNothingElse() {
+        // Arrange
+        Long slotId = newSlot().getId();
+
+        // Act & Assert
+        for (AppointmentSlot.SlotStatus status : AppointmentSlot.SlotStatus.values()) {
+            jdbcTemplate.update("UPDATE appointment_slots SET status = ? WHERE id = ?", status.name(), slotId);
+            assertEquals(status, appointmentSlotRepository.findById(slotId).orElseThrow().getStatus());
+        }
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE appointment_slots SET status = 'UNKNOWN' WHERE id = ?", slotId));
+    }
+
+    @Test
+    void shouldCountTheSeatOfSlotsBookedBeforeSeatsExisted() {
+        // Arrange: rows written by the first release get the column default
+        Long bookedId = newSlot().getId();
+        Long availableId = newSlot().getId();
+        jdbcTemplate.update("UPDATE appointment_slots SET status = 'BOOKED', booked_count = 0 WHERE id = ?", bookedId);
+
+        // Act
+        schemaUpgrade.upgrade();
+
+        // Assert
+        assertEquals(1, appointmentSlotRepository.findById(bookedId).orElseThrow().getBookedCount());
+        assertEquals(0, appointmentSlotRepository.findById(availableId).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void shouldChangeNothingOnAnUpToDateSchema() {
+        // Arrange
+        Integer constraints = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.table_constraints", Integer.class);
+
+        // Act
+        schemaUpgrade.upgrade();
+
+        // Assert
+        assertEquals(constraints, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.table_constraints", Integer.class));
+    }
+}
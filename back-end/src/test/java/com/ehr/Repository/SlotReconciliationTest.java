@@ -0,0 +1,148 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.ReconciliationResultDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.models.*;
+import com.ehr.repository.*;
+import com.ehr.service.SlotReconciliationService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SlotReconciliationService.class, SlotReconciliationTest.Metrics.class, TestFixtures.class})
+@RecordApplicationEvents
+class SlotReconciliationTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private SlotReconciliationService slotReconciliationService;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ApplicationEvents events;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private Staff doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Reconcile");
+        patient = fixtures.patient("Reconcile");
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        appointmentSlotRepository.deleteAll();
+        patientRepository.deleteAll();
+        userRepository.deleteAll();
+        staffRepository.deleteAll();
+    }
+
+    @Test
+    void shouldExpirePastAvailableSlotsInChunks() {
+        // Arrange
+        ReflectionTestUtils.setField(slotReconciliationService, "chunkSize", 3);
+        for (int i = 0; i < 7; i++) {
+            slot(now.minusDays(1).plusMinutes(15L * i), AppointmentSlot.SlotStatus.AVAILABLE);
+        }
+        Long future = slot(now.plusDays(1), AppointmentSlot.SlotStatus.AVAILABLE).getId();
+        Long booked = slot(now.minusDays(2), AppointmentSlot.SlotStatus.BOOKED).getId();
+
+        // Act
+        ReconciliationResultDto result = slotReconciliationService.reconcile();
+
+        // Assert
+        assertEquals(7, result.getSlotsExpired());
+        assertEquals(7, appointmentSlotRepository.findAll().stream()
+                .filter(s -> s.getStatus() == AppointmentSlot.SlotStatus.EXPIRED).count());
+        assertEquals(AppointmentSlot.SlotStatus.AVAILABLE, appointmentSlotRepository.findById(future).orElseThrow().getStatus());
+        assertEquals(AppointmentSlot.SlotStatus.BOOKED, appointmentSlotRepository.findById(booked).orElseThrow().getStatus());
+        assertEquals(7.0, meterRegistry.get("ehr.reconciler.rows").tag("kind", "slots_expired").counter().count());
+        Set<Long> expiredIds = appointmentSlotRepository.findAll().stream()
+                .filter(s -> s.getStatus() == AppointmentSlot.SlotStatus.EXPIRED)
+                .map(AppointmentSlot::getId)
+                .collect(Collectors.toSet());
+        assertEquals(expiredIds, events.stream(SlotChangedEvent.class)
+                .filter(e -> e.getType() == SlotChangedEvent.Type.EXPIRED)
+                .map(e -> e.getSlot().getId())
+                .collect(Collectors.toSet()));
+        assertEquals(7, events.stream(SlotChangedEvent.class).count());
+    }
+
+    @Test
+    void shouldMarkNoShowsOnlyAfterTheGracePeriod() {
+        // Arrange
+        Long missed = appointment(slot(now.minusDays(2), AppointmentSlot.SlotStatus.BOOKED), Appointment.AppointmentStatus.SCHEDULED);
+        Long recent = appointment(slot(now.minusHours(2), AppointmentSlot.SlotStatus.BOOKED), Appointment.AppointmentStatus.SCHEDULED);
+        Long completed = appointment(slot(now.minusDays(3), AppointmentSlot.SlotStatus.BOOKED), Appointment.AppointmentStatus.COMPLETED);
+
+        // Act
+        ReconciliationResultDto result = slotReconciliationService.reconcile();
+
+        // Assert
+        assertEquals(1, result.getNoShowsMarked());
+        assertEquals(Appointment.AppointmentStatus.NO_SHOW, appointmentRepository.findById(missed).orElseThrow().getStatus());
+        assertEquals(Appointment.AppointmentStatus.SCHEDULED, appointmentRepository.findById(recent).orElseThrow().getStatus());
+        assertEquals(Appointment.AppointmentStatus.COMPLETED, appointmentRepository.findById(completed).orElseThrow().getStatus());
+    }
+
+    private AppointmentSlot slot(LocalDateTime start, AppointmentSlot.SlotStatus status) {
+        AppointmentSlot slot = new AppointmentSlot();
+        slot.setDoctor(doctor);
+        slot.setStartTime(start);
+        slot.setEndTime(start.plusMinutes(15));
+        slot.setStatus(status);
+        return appointmentSlotRepository.save(slot);
+    }
+
+    private Long appointment(AppointmentSlot slot, Appointment.AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setSlot(slot);
+        appointment.setStatus(status);
+        appointment.setType(Appointment.AppointmentType.ONLINE);
+        return appointmentRepository.save(appointment).getId();
+    }
+}
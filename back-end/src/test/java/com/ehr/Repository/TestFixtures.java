@@ -0,0 +1,57 @@
+package com.ehr.Repository;
+
+import com.ehr.models.Patient;
+import com.ehr.models.Staff;
+import com.ehr.models.User;
+import com.ehr.repository.PatientRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+
+/**
+ * Saves the doctors, users and patients the repository tests start from. Import it next to the
+ * services under test and give each test its own names, as rows outlive tests that run outside a
+ * transaction.
+ */
+@TestComponent
+public class TestFixtures {
+
+    @Autowired
+    private StaffRepository staffRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    /** A doctor named "{name} Doctor", with work id DR-{NAME}. */
+    public Staff doctor(String name) {
+        Staff doctor = new Staff();
+        doctor.setWorkId("DR-" + name.toUpperCase());
+        doctor.setFirstName(name);
+        doctor.setLastName("Doctor");
+        doctor.setPassword("hashed");
+        doctor.setRole(Staff.Role.DOCTOR);
+        return staffRepository.save(doctor);
+    }
+
+    public User user(String email, String firstName, String lastName) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hashed");
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return userRepository.save(user);
+    }
+
+    /** A patient named "{name} Patient", signing in as {name}@example.com in lower case. */
+    public Patient patient(String name) {
+        return patient(name.toLowerCase() + "@example.com", name, "Patient");
+    }
+
+    public Patient patient(String email, String firstName, String lastName) {
+        Patient patient = new Patient();
+        patient.setUser(user(email, firstName, lastName));
+        return patientRepository.save(patient);
+    }
+}
@@ -0,0 +1,135 @@
+package com.ehr.Repository;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.models.*;
+import com.ehr.repository.*;
+import com.ehr.service.SlotOverlapService;
+import com.ehr.service.VirtualSlotService;
+import com.ehr.util.VirtualSlotId;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({VirtualSlotService.class, SlotOverlapService.class, TestFixtures.class})
+class VirtualSlotTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private VirtualSlotService virtualSlotService;
+    @Autowired
+    private ScheduleTemplateRepository scheduleTemplateRepository;
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+    private Staff doctor;
+    private ScheduleTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        doctor = fixtures.doctor("Virtual");
+
+        // Every day 09:00-10:00 in half hours, never stored up front
+        template = new ScheduleTemplate();
+        template.setDoctor(doctor);
+        template.setDaysOfWeek(EnumSet.allOf(DayOfWeek.class));
+        template.setStartTime(LocalTime.of(9, 0));
+        template.setEndTime(LocalTime.of(10, 0));
+        template.setSlotMinutes(30);
+        template.setValidFrom(tomorrow);
+        template.setVirtualSlots(true);
+        scheduleTemplateRepository.save(template);
+        virtualSlotService.onVirtualTemplateCreated(); // as ScheduleService does
+    }
+
+    @Test
+    void shouldExpandRulesAroundStoredSlotsAndExceptions() {
+        // Arrange: 09:00 tomorrow is already booked and the day after is blocked out
+        AppointmentSlot booked = new AppointmentSlot();
+        booked.setDoctor(doctor);
+        booked.setStartTime(tomorrow.atTime(9, 0));
+        booked.setEndTime(tomorrow.atTime(9, 30));
+        booked.setStatus(AppointmentSlot.SlotStatus.BOOKED);
+        appointmentSlotRepository.save(booked);
+        ScheduleException leave = new ScheduleException();
+        leave.setDoctor(doctor);
+        leave.setDate(tomorrow.plusDays(1));
+        scheduleExceptionRepository.save(leave);
+
+        // Act
+        List<AppointmentSlotResponseDto> slots = virtualSlotService.findAvailable(
+                doctor.getId(), tomorrow.atStartOfDay(), tomorrow.plusDays(2).atStartOfDay());
+
+        // Assert
+        assertEquals(List.of(tomorrow.atTime(9, 30)), slots.stream().map(AppointmentSlotResponseDto::getStartTime).toList());
+        assertTrue(VirtualSlotId.isVirtual(slots.get(0).getId()));
+        assertEquals("Virtual Doctor", slots.get(0).getDoctorFullName());
+        assertEquals(0, appointmentSlotRepository.findSlotViewsByDoctorBetween(
+                doctor.getId(), tomorrow.atTime(9, 30), tomorrow.atTime(10, 0)).size());
+    }
+
+    @Test
+    void shouldStoreAVirtualSlotOnceWhenItIsBooked() {
+        // Arrange
+        LocalDateTime start = tomorrow.atTime(9, 30);
+        AppointmentSlotResponseDto virtual = virtualSlotService.findAvailable(doctor.getId(), start, start).get(0);
+
+        // Act
+        Long storedId = virtualSlotService.materialize(virtual.getId());
+        Long againId = virtualSlotService.materialize(virtual.getId());
+
+        // Assert
+        assertEquals(storedId, againId);
+        AppointmentSlot stored = appointmentSlotRepository.findById(storedId).orElseThrow();
+        assertEquals(start, stored.getStartTime());
+        assertEquals(start.plusMinutes(30), stored.getEndTime());
+        assertEquals(AppointmentSlot.SlotStatus.AVAILABLE, stored.getStatus());
+        assertTrue(virtualSlotService.findAvailable(doctor.getId(), start, start).isEmpty());
+        // A start the rule never produces is not a slot
+        assertTrue(virtualSlotService.tryMaterialize(VirtualSlotId.encode(
+                VirtualSlotId.decode(virtual.getId()).templateId(), start.plusMinutes(10))).isEmpty());
+    }
+
+    @Test
+    void shouldNotQueryWhileNoTemplateUsesVirtualSlots() {
+        // Arrange: the only virtual template is switched off, and the periodic refresh has noticed
+        template.setActive(false);
+        scheduleTemplateRepository.saveAndFlush(template);
+        virtualSlotService.refreshTemplatePresence();
+        assertTrue(virtualSlotService.findAvailable(null, tomorrow.atStartOfDay(), tomorrow.plusDays(7).atStartOfDay()).isEmpty());
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        List<AppointmentSlotResponseDto> slots = virtualSlotService.findAvailable(
+                null, tomorrow.atStartOfDay(), tomorrow.plusDays(7).atStartOfDay());
+
+        // Assert
+        assertTrue(slots.isEmpty());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,98 @@
+package com.ehr.Service;
+
+import com.ehr.dto.AppointmentSummaryDto;
+import com.ehr.models.Appointment;
+import com.ehr.repository.AppointmentRepository;
+import com.ehr.service.AppointmentExportService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentExportServiceTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @InjectMocks
+    private AppointmentExportService appointmentExportService;
+
+    @Test
+    void shouldWriteOneJsonObjectPerLine() throws Exception {
+        // Arrange
+        when(appointmentRepository.streamSummariesByDoctor(eq(7L), any(), any(), any()))
+                .thenReturn(Stream.of(row(1L, "Jane Doe"), row(2L, "John Roe")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = appointmentExportService.export(7L, null, null, null, AppointmentExportService.Format.NDJSON, false, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        assertEquals(2L, objectMapper.readValue(lines[1], AppointmentSummaryDto.class).getId());
+        assertTrue(lines[0].contains("\"startTime\":\"2030-01-07T09:00:00\""));
+    }
+
+    @Test
+    void shouldQuoteCsvFieldsAndCompressWhenAsked() throws Exception {
+        // Arrange
+        when(appointmentRepository.streamSummaries(any(), any(), eq(EnumSet.of(Appointment.AppointmentStatus.COMPLETED))))
+                .thenReturn(Stream.of(row(1L, "Doe, \"Jane\""), row(2L, "=HYPERLINK(1)")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        appointmentExportService.export(null, NINE.minusDays(30), NINE, List.of(Appointment.AppointmentStatus.COMPLETED),
+                AppointmentExportService.Format.CSV, true, out);
+
+        // Assert
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,patientId,patientFullName"));
+        assertTrue(lines[1].startsWith("1,10,\"Doe, \"\"Jane\"\"\",3,Dr Who,"));
+        assertTrue(lines[2].startsWith("2,10,'=HYPERLINK(1),"));
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> AppointmentExportService.Format.parse("xml"));
+        assertEquals(AppointmentExportService.Format.CSV, AppointmentExportService.Format.parse(" csv "));
+    }
+
+    private static AppointmentSummaryDto row(Long id, String patientName) {
+        return new AppointmentSummaryDto(id, 10L, patientName, 3L, "Dr Who", 100L + id, NINE, NINE.plusMinutes(30),
+                Appointment.AppointmentStatus.COMPLETED, Appointment.AppointmentType.ONLINE, NINE.minusDays(2), NINE.minusDays(1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ehr.Service;
+
+import com.ehr.models.Staff;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.service.JwtTokenProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "0e7d5a5f9b1c7a8b3e2d6f0c4a9b8e1f5d7c3b9e8f1a0d2c6b4e8f9c1a0b3d5e";
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpiration", 3600000L);
+        jwtTokenProvider.init();
+    }
+
+    @Test
+    void shouldRoundTripPatientIdentityThroughClaims() {
+        // Arrange
+        JwtPrincipal principal = JwtPrincipal.forUser("patient@example.com", "USER", "user-uuid", 42L);
+
+        // Act
+        String token = jwtTokenProvider.generateToken(principal);
+        JwtPrincipal parsed = jwtTokenProvider.verifyToken(token).orElseThrow();
+
+        // Assert
+        assertEquals("patient@example.com", parsed.getUsername());
+        assertTrue(parsed.isUser());
+        assertEquals("user-uuid", parsed.getUserId());
+        assertEquals(42L, parsed.getPatientId());
+        assertNull(parsed.getStaffId());
+        assertTrue(parsed.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+    }
+
+    @Test
+    void shouldRoundTripStaffIdentityThroughClaims() {
+        // Arrange
+        JwtPrincipal principal = JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L);
+
+        // Act
+        JwtPrincipal parsed = jwtTokenProvider.verifyToken(jwtTokenProvider.generateToken(principal)).orElseThrow();
+
+        // Assert
+        assertTrue(parsed.isStaff());
+        assertTrue(parsed.hasStaffRole(Staff.Role.DOCTOR));
+        assertEquals(7L, parsed.getStaffId());
+        assertNull(parsed.getPatientId());
+    }
+
+    @Test
+    void shouldRejectTamperedToken() {
+        String token = jwtTokenProvider.generateToken(JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L));
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertTrue(jwtTokenProvider.verifyToken(tampered).isEmpty());
+    }
+
+    @Test
+    void shouldServeRepeatVerificationFromCache() {
+        String token = jwtTokenProvider.generateToken(JwtPrincipal.forUser("patient@example.com", "USER", "user-uuid", 42L));
+
+        JwtPrincipal first = jwtTokenProvider.verifyToken(token).orElseThrow();
+        JwtPrincipal second = jwtTokenProvider.verifyToken(token).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(42L, second.getPatientId());
+    }
+
+    @Test
+    void shouldNotCacheExpiredTokens() {
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpiration", -1000L);
+        String token = jwtTokenProvider.generateToken(JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L));
+
+        assertTrue(jwtTokenProvider.verifyToken(token).isEmpty());
+        assertTrue(jwtTokenProvider.verifyToken(token).isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package com.ehr.Service;
+
+import com.ehr.dto.PatientSearchEntryDto;
+import com.ehr.event.PatientChangedEvent;
+import com.ehr.repository.PatientRepository;
+import com.ehr.service.PatientSearchIndex;
+import com.ehr.util.FuzzyNameIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSearchIndexTest {
+
+    private PatientRepository patientRepository;
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        patientRepository = mock(PatientRepository.class);
+        index = new PatientSearchIndex();
+        ReflectionTestUtils.setField(index, "patientRepository", patientRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        index.init();
+    }
+
+    @Test
+    void shouldRankExactThenPrefixThenWordThenSubstringMatches() {
+        // Arrange
+        when(patientRepository.streamSearchEntries()).thenReturn(Stream.of(
+                entry(1L, "Joanna", "Mwangi", "jm@example.com", "0711000001"),
+                entry(2L, "Ann", "Otieno", null, "0711000002"),
+                entry(3L, "Mary-Ann", "Kamau", "mk@example.com", "0711000003"),
+                entry(4L, "Annette", "Wafula", "aw@example.com", "0711000004"),
+                entry(5L, "Peter", "Njoroge", "ann.p@example.com", "0711000005"),
+                entry(6L, "Peter", "Kariuki", "pk@example.com", "0711000006")));
+
+        // Act
+        index.warmUp();
+        Page<Long> firstPage = index.search("ANN", PageRequest.of(0, 3)).orElseThrow();
+        Page<Long> secondPage = index.search("ANN", PageRequest.of(1, 3)).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(2L, 4L, 5L), firstPage.getContent());
+        assertEquals(List.of(3L, 1L), secondPage.getContent());
+        assertEquals(5, firstPage.getTotalElements());
+        assertEquals(List.of(2L), index.search("an", Pageable.unpaged()).orElseThrow().getContent().subList(0, 1));
+    }
+
+    @Test
+    void shouldWalkTheRankedMatchesOneKeysetPageAtATime() {
+        // Arrange
+        List<PatientSearchEntryDto> entries = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            String firstName = id % 4 == 0 ? "Ann" : id % 4 == 1 ? "Annabel" : id % 4 == 2 ? "Mary-Ann" : "Joanna";
+            entries.add(entry(id, firstName, "Doe", "p" + id + "@example.com", "07220000" + id));
+        }
+        when(patientRepository.streamSearchEntries()).thenReturn(entries.stream());
+        index.warmUp();
+        List<Long> expected = index.search("ann", Pageable.unpaged()).orElseThrow().getContent();
+
+        // Act
+        List<Long> walked = new ArrayList<>();
+        int rank = 0;
+        long afterId = -1;
+        while (true) {
+            PatientSearchIndex.SearchSlice slice = index.searchAfter("ann", rank, afterId, 7).orElseThrow();
+            assertEquals(40, slice.total());
+            if (slice.matches().isEmpty()) {
+                break;
+            }
+            slice.matches().forEach(match -> walked.add(match.patientId()));
+            PatientSearchIndex.Match last = slice.matches().get(slice.matches().size() - 1);
+            rank = last.rank();
+            afterId = last.patientId();
+        }
+
+        // Assert
+        assertEquals(expected, walked);
+        assertEquals(List.of(4L, 8L, 12L), expected.subList(0, 3));
+        assertEquals(List.of(11L, 12L), index.searchAfter("ann", PatientSearchIndex.UNRANKED, 10L, 2).orElseThrow()
+                .matches().stream().map(PatientSearchIndex.Match::patientId).toList());
+    }
+
+    @Test
+    void shouldMatchThePhoneNumberWithItsCase() {
+        // Arrange
+        when(patientRepository.streamSearchEntries()).thenReturn(Stream.of(
+                entry(1L, "Grace", "Achieng", "ga@example.com", "+254 711 EXT9")));
+        index.warmUp();
+
+        // Act & Assert
+        assertEquals(List.of(1L), index.search("EXT9", Pageable.unpaged()).orElseThrow().getContent());
+        assertEquals(List.of(1L), index.search("711", Pageable.unpaged()).orElseThrow().getContent());
+        assertTrue(index.search("ext9", Pageable.unpaged()).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void shouldPickUpRegistrationsAndRenames() {
+        // Arrange
+        when(patientRepository.streamSearchEntries()).thenReturn(Stream.of(
+                entry(1L, "Brian", "Ouma", "bo@example.com", "0722000001")));
+        index.warmUp();
+
+        // Act
+        index.onPatientChanged(new PatientChangedEvent(entry(2L, "Faith", "Wambui", "fw@example.com", "0722000002")));
+        index.onPatientChanged(new PatientChangedEvent(entry(1L, "Brian", "Odhiambo", "bo@example.com", "0722000001")));
+
+        // Assert
+        assertEquals(List.of(2L), index.search("wambui", Pageable.unpaged()).orElseThrow().getContent());
+        assertEquals(List.of(1L), index.search("odhiambo", Pageable.unpaged()).orElseThrow().getContent());
+        assertTrue(index.search("ouma", Pageable.unpaged()).orElseThrow().isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void shouldFindMisspeltAndSoundAlikeNames() {
+        // Arrange
+        when(patientRepository.streamSearchEntries()).thenReturn(Stream.of(
+                entry(1L, "Wanjiku", "Kamau", "wk@example.com", "0733000001"),
+                entry(2L, "Catherine", "Otieno", "co@example.com", "0733000002"),
+                entry(3L, "José", "Mwangi", "jm@example.com", "0733000003"),
+                entry(4L, "Peter", "Kamau", "pk@example.com", "0733000004")));
+        index.warmUp();
+
+        // Act
+        List<FuzzyNameIndex.Match> typo = index.fuzzySearch("Wanjku Kamau", 3).orElseThrow();
+        List<FuzzyNameIndex.Match> soundAlike = index.fuzzySearch("Kathryn Otieno", 1).orElseThrow();
+        List<FuzzyNameIndex.Match> accent = index.fuzzySearch("jose mwangi", 1).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(1, 4), typo.stream().map(FuzzyNameIndex.Match::id).toList());
+        assertTrue(typo.get(0).score() > typo.get(1).score());
+        assertEquals(2, soundAlike.get(0).id());
+        assertEquals(1.0, accent.get(0).score(), 1e-6);
+        assertEquals(3, accent.get(0).id());
+    }
+
+    @Test
+    void shouldLeaveWildcardsSortsAndColdStartsToTheDatabase() {
+        assertTrue(index.search("ann", Pageable.unpaged()).isEmpty());
+
+        when(patientRepository.streamSearchEntries()).thenReturn(Stream.of());
+        index.warmUp();
+
+        assertTrue(index.search("a%n", Pageable.unpaged()).isEmpty());
+        assertTrue(index.search("a_n", Pageable.unpaged()).isEmpty());
+        assertTrue(index.search("ann", PageRequest.of(0, 5, Sort.by("id"))).isEmpty());
+        assertTrue(index.search("ann", PageRequest.of(0, 5)).isPresent());
+    }
+
+    private static PatientSearchEntryDto entry(Long id, String firstName, String lastName, String email, String phone) {
+        return new PatientSearchEntryDto(id, firstName, lastName, email, phone);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ehr.Service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.models.AppointmentSlot;
+import com.ehr.repository.AppointmentSlotRepository;
+import com.ehr.service.SlotAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlotAvailabilityIndexTest {
+
+    private final LocalDateTime tomorrow = LocalDate.now().plusDays(1).atTime(9, 0);
+
+    private AppointmentSlotRepository appointmentSlotRepository;
+    private SlotAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        appointmentSlotRepository = mock(AppointmentSlotRepository.class);
+        index = new SlotAvailabilityIndex();
+        ReflectionTestUtils.setField(index, "appointmentSlotRepository", appointmentSlotRepository);
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        index.init();
+    }
+
+    @Test
+    void shouldServeRangesPerDoctorAfterWarmUp() {
+        // Arrange
+        when(appointmentSlotRepository.findSlotViewsByStatusStartingFrom(eq(AppointmentSlot.SlotStatus.AVAILABLE), any()))
+                .thenReturn(List.of(slot(1L, 10L, tomorrow), slot(2L, 20L, tomorrow), slot(3L, 10L, tomorrow.plusHours(3))));
+
+        // Act
+        index.warmUp();
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids(index.findAvailable(tomorrow, tomorrow.plusHours(1)).orElseThrow()));
+        assertEquals(List.of(1L, 3L), ids(index.findAvailableForDoctor(10L, tomorrow, tomorrow.plusDays(1)).orElseThrow()));
+        assertTrue(index.findAvailableForDoctor(99L, tomorrow, tomorrow.plusDays(1)).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void shouldApplyBookingsAndReleases() {
+        // Arrange
+        AppointmentSlotResponseDto slot = slot(1L, 10L, tomorrow);
+        when(appointmentSlotRepository.findSlotViewsByStatusStartingFrom(eq(AppointmentSlot.SlotStatus.AVAILABLE), any()))
+                .thenReturn(List.of(slot));
+        index.warmUp();
+        AppointmentSlotResponseDto booked = new AppointmentSlotResponseDto();
+        booked.setId(1L);
+
+        // Act & Assert
+        index.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.BOOKED, booked));
+        assertTrue(index.findAvailable(tomorrow, tomorrow.plusDays(1)).orElseThrow().isEmpty());
+
+        index.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.RELEASED, slot));
+        assertEquals(List.of(1L), ids(index.findAvailable(tomorrow, tomorrow.plusDays(1)).orElseThrow()));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void shouldMergeDoctorsIntoEarliestSlots() {
+        // Arrange
+        when(appointmentSlotRepository.findSlotViewsByStatusStartingFrom(eq(AppointmentSlot.SlotStatus.AVAILABLE), any()))
+                .thenReturn(List.of(
+                        slot(1L, 10L, tomorrow), slot(2L, 10L, tomorrow.plusHours(2)), slot(3L, 10L, tomorrow.plusHours(5)),
+                        slot(4L, 20L, tomorrow.plusHours(1)), slot(5L, 20L, tomorrow.plusHours(3)),
+                        slot(6L, 30L, tomorrow.plusMinutes(30))));
+        index.warmUp();
+
+        // Act
+        List<AppointmentSlotResponseDto> acrossTwo = index.findEarliest(List.of(10L, 20L, 99L), tomorrow.plusMinutes(1), 3).orElseThrow();
+        List<AppointmentSlotResponseDto> acrossAll = index.findEarliest(null, tomorrow, 3).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(4L, 2L, 5L), ids(acrossTwo));
+        assertEquals(List.of(1L, 6L, 4L), ids(acrossAll));
+    }
+
+    @Test
+    void shouldFallBackForRangesBeforeCoverage() {
+        when(appointmentSlotRepository.findSlotViewsByStatusStartingFrom(eq(AppointmentSlot.SlotStatus.AVAILABLE), any()))
+                .thenReturn(List.of());
+
+        assertTrue(index.findAvailable(tomorrow, tomorrow.plusDays(1)).isEmpty()); // not warmed yet
+        index.warmUp();
+        assertTrue(index.findAvailable(tomorrow.minusDays(3), tomorrow).isEmpty());
+        assertTrue(index.findAvailable(tomorrow, tomorrow.plusDays(1)).isPresent());
+    }
+
+    private static AppointmentSlotResponseDto slot(Long id, Long doctorId, LocalDateTime start) {
+        return new AppointmentSlotResponseDto(id, doctorId, "Dr Test", start, start.plusMinutes(30),
+                AppointmentSlot.SlotStatus.AVAILABLE, 1, 0, null, null);
+    }
+
+    private static List<Long> ids(List<AppointmentSlotResponseDto> slots) {
+        return slots.stream().map(AppointmentSlotResponseDto::getId).toList();
+    }
+}
@@ -0,0 +1,195 @@
+package com.ehr.Service;
+
+import com.ehr.dto.AppointmentSlotResponseDto;
+import com.ehr.event.SlotChangedEvent;
+import com.ehr.event.SlotsGeneratedEvent;
+import com.ehr.service.SlotEventBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SlotEventBroadcasterTest {
+
+    private final LocalDateTime tomorrow = LocalDate.now().plusDays(1).atTime(9, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlotEventBroadcaster broadcaster;
+    private MockedConstruction<SseEmitter> emitters;
+    private int brokenEmitter; // 1-based creation order of the emitter whose connection breaks, 0 for none
+    private int stalledEmitter; // 1-based creation order of the emitter whose client stops reading, 0 for none
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        start(1, 256);
+        // The broken emitter accepts its "ready" event and then fails, like a connection the client closed;
+        // the stalled one accepts "ready" and then blocks in send, like a client whose socket buffer is full
+        emitters = mockConstruction(SseEmitter.class, (emitter, context) -> {
+            if (context.getCount() == brokenEmitter) {
+                doNothing().doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+            }
+            if (context.getCount() == stalledEmitter) {
+                doNothing().doAnswer(invocation -> unstall.await(5, TimeUnit.SECONDS))
+                        .when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        emitters.close();
+        broadcaster.shutdown();
+    }
+
+    private void start(int senders, int queueSize) {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new SlotEventBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(broadcaster, "senders", senders);
+        ReflectionTestUtils.setField(broadcaster, "queueSize", queueSize);
+        broadcaster.init();
+    }
+
+    @Test
+    void shouldDeliverOnlyToSubscribersOfTheSlotsDoctor() throws Exception {
+        // Arrange
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        broadcaster.subscribe(30L, tomorrow, tomorrow.plusDays(1));
+        broadcaster.subscribe(null, tomorrow, tomorrow.plusDays(1));
+        SseEmitter doctor10 = emitters.constructed().get(0);
+        SseEmitter doctor30 = emitters.constructed().get(1);
+        SseEmitter everyDoctor = emitters.constructed().get(2);
+
+        // Act
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.BOOKED, slot(1L, 10L, tomorrow.plusHours(1))));
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.RELEASED, slot(2L, 20L, tomorrow.plusHours(2))));
+        drain();
+
+        // Assert: each subscriber got "ready", then only the events for the doctors it asked for
+        verify(doctor10, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(doctor30, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(everyDoctor, times(3)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void shouldDeliverOnlyEventsInsideTheSubscribedRange() throws Exception {
+        // Arrange
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        SseEmitter emitter = emitters.constructed().get(0);
+
+        // Act
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.CREATED, slot(1L, 10L, tomorrow.minusHours(1))));
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.CREATED, slot(2L, 10L, tomorrow.plusHours(3))));
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.CREATED, slot(3L, 10L, tomorrow.plusDays(2))));
+        broadcaster.onSlotsGenerated(new SlotsGeneratedEvent(10L, tomorrow.plusDays(7), tomorrow.plusDays(14), 40));
+        broadcaster.onSlotsGenerated(new SlotsGeneratedEvent(10L, tomorrow.minusDays(7), tomorrow.plusHours(1), 40));
+        drain();
+
+        // Assert: "ready", the slot inside the range and the generated range that overlaps it
+        verify(emitter, times(3)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void shouldDropASubscriberWhoseSendFails() throws Exception {
+        // Arrange
+        brokenEmitter = 2;
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        SseEmitter healthy = emitters.constructed().get(0);
+        SseEmitter broken = emitters.constructed().get(1);
+        drain();
+        assertEquals(2, broadcaster.getSubscriberCount());
+
+        // Act
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.BOOKED, slot(1L, 10L, tomorrow.plusHours(1))));
+        drain();
+        broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.RELEASED, slot(1L, 10L, tomorrow.plusHours(1))));
+        drain();
+
+        // Assert
+        assertEquals(1, broadcaster.getSubscriberCount());
+        verify(broken).completeWithError(any(IOException.class));
+        verify(broken, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(healthy, times(3)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void shouldDisconnectASubscriberThatStopsReadingWithoutDelayingOthers() throws Exception {
+        // Arrange
+        start(2, 4);
+        stalledEmitter = 1;
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        SseEmitter stalled = emitters.constructed().get(0);
+        SseEmitter healthy = emitters.constructed().get(1);
+
+        // Act: one event in flight plus a full queue, then one more; the healthy client keeps reading throughout
+        for (int id = 1; id <= 6; id++) {
+            broadcaster.onSlotChanged(new SlotChangedEvent(SlotChangedEvent.Type.CREATED, slot((long) id, 10L, tomorrow.plusHours(1))));
+            verify(healthy, timeout(5000).times(id + 1)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        // Assert: the stalled one was let go while still blocked
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.get("ehr.slots.feed.dropped").counter().count());
+        unstall.countDown();
+        verify(stalled, timeout(5000)).complete();
+    }
+
+    @Test
+    void shouldCountSubscribersUntilTheyDisconnect() throws Exception {
+        // Arrange
+        broadcaster.subscribe(10L, tomorrow, tomorrow.plusDays(1));
+        broadcaster.subscribe(null, tomorrow, tomorrow.plusDays(1));
+        broadcaster.subscribe(20L, tomorrow, tomorrow.plusDays(1));
+        drain();
+        SseEmitter first = emitters.constructed().get(0);
+        ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+        verify(first).onCompletion(onCompletion.capture());
+        verify(first).onTimeout(onTimeout.capture());
+
+        // Act: a timeout is followed by completion; the subscriber must only be counted out once
+        onTimeout.getValue().run();
+        onCompletion.getValue().run();
+
+        // Assert
+        assertEquals(2, broadcaster.getSubscriberCount());
+        assertEquals(2.0, meterRegistry.get("ehr.slots.feed.subscribers").gauge().value());
+    }
+
+    // With a single sender thread, a no-op queued behind the drains finishes only after they have
+    private void drain() throws Exception {
+        ExecutorService senderPool = (ExecutorService) ReflectionTestUtils.getField(broadcaster, "senderPool");
+        senderPool.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static AppointmentSlotResponseDto slot(Long id, Long doctorId, LocalDateTime start) {
+        AppointmentSlotResponseDto slot = new AppointmentSlotResponseDto();
+        slot.setId(id);
+        slot.setDoctorId(doctorId);
+        slot.setStartTime(start);
+        slot.setEndTime(start.plusMinutes(30));
+        return slot;
+    }
+}
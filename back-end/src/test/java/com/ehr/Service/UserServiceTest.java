@@ -3,6 +3,7 @@ package com.ehr.Service;
 import com.ehr.dto.UserRegistrationDto;
 import com.ehr.models.User;
 import com.ehr.repository.UserRepository;
+import com.ehr.service.PatientService;
 import com.ehr.service.UserService;
 
 import org.junit.jupiter.api.Test;
@@ -24,6 +25,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PatientService patientService;
+
     @InjectMocks
     private UserService userService;
 
@@ -53,6 +57,7 @@ class UserServiceTest {
         assertNotNull(savedUser.getPatient());
 
         verify(userRepository).save(any(User.class));
+        verify(patientService).publishChanged(savedUser.getPatient());
     }
 
     @Test
@@ -0,0 +1,99 @@
+package com.ehr.Service;
+
+import com.ehr.event.WaitlistChangedEvent;
+import com.ehr.models.Staff;
+import com.ehr.models.WaitlistEntry;
+import com.ehr.repository.WaitlistEntryRepository;
+import com.ehr.service.WaitlistIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WaitlistIndexTest {
+
+    private final LocalDateTime tomorrow = LocalDate.now().plusDays(1).atTime(9, 0);
+
+    private WaitlistEntryRepository waitlistEntryRepository;
+    private WaitlistIndex index;
+
+    @BeforeEach
+    void setUp() {
+        waitlistEntryRepository = mock(WaitlistEntryRepository.class);
+        index = new WaitlistIndex();
+        ReflectionTestUtils.setField(index, "waitlistEntryRepository", waitlistEntryRepository);
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        index.init();
+    }
+
+    @Test
+    void shouldReturnFittingCandidatesOldestFirst() {
+        // Arrange
+        when(waitlistEntryRepository.findOpenEntries(any())).thenReturn(List.of(
+                entry(1L, 10L, tomorrow.minusHours(1), tomorrow.plusHours(8), tomorrow.minusDays(2)),
+                entry(2L, 10L, tomorrow.minusHours(1), tomorrow.plusHours(8), tomorrow.minusDays(5)),
+                entry(3L, 10L, tomorrow.plusHours(2), tomorrow.plusHours(8), tomorrow.minusDays(9)),
+                entry(4L, 20L, tomorrow.minusHours(1), tomorrow.plusHours(8), tomorrow.minusDays(9))));
+
+        // Act
+        index.warmUp();
+        List<WaitlistIndex.Candidate> candidates = index.candidatesFor(10L, tomorrow, tomorrow.plusMinutes(30), 10);
+
+        // Assert
+        assertEquals(List.of(2L, 1L), candidates.stream().map(WaitlistIndex.Candidate::entryId).toList());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shouldMatchWindowsSpanningSeveralDays() {
+        // Arrange
+        when(waitlistEntryRepository.findOpenEntries(any())).thenReturn(List.of(
+                entry(1L, 10L, tomorrow, tomorrow.plusDays(3), tomorrow.minusDays(1))));
+        index.warmUp();
+
+        // Act & Assert
+        assertEquals(1, index.candidatesFor(10L, tomorrow.plusDays(2), tomorrow.plusDays(2).plusMinutes(30), 10).size());
+        assertTrue(index.candidatesFor(10L, tomorrow.plusDays(4), tomorrow.plusDays(4).plusMinutes(30), 10).isEmpty());
+    }
+
+    @Test
+    void shouldApplyQueueChanges() {
+        // Arrange
+        when(waitlistEntryRepository.findOpenEntries(any())).thenReturn(List.of());
+        index.warmUp();
+        WaitlistChangedEvent queued = new WaitlistChangedEvent(7L, 10L, tomorrow, tomorrow.plusHours(4),
+                tomorrow.minusDays(1), true);
+
+        // Act & Assert
+        index.onWaitlistChanged(queued);
+        assertEquals(1, index.candidatesFor(10L, tomorrow, tomorrow.plusMinutes(30), 10).size());
+
+        index.onWaitlistChanged(new WaitlistChangedEvent(7L, 10L, tomorrow, tomorrow.plusHours(4),
+                tomorrow.minusDays(1), false));
+        assertTrue(index.candidatesFor(10L, tomorrow, tomorrow.plusMinutes(30), 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    private WaitlistEntry entry(Long id, Long doctorId, LocalDateTime windowStart, LocalDateTime windowEnd,
+                                LocalDateTime createdAt) {
+        Staff doctor = new Staff();
+        doctor.setId(doctorId);
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setId(id);
+        entry.setDoctor(doctor);
+        entry.setWindowStart(windowStart);
+        entry.setWindowEnd(windowEnd);
+        entry.setCreatedAt(createdAt);
+        entry.setStatus(WaitlistEntry.WaitlistStatus.WAITING);
+        return entry;
+    }
+}
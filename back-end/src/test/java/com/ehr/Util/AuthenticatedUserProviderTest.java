@@ -0,0 +1,167 @@
+package com.ehr.Util;
+
+import com.ehr.models.Patient;
+import com.ehr.models.Staff;
+import com.ehr.repository.PatientRepository;
+import com.ehr.repository.StaffRepository;
+import com.ehr.repository.UserRepository;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.util.AuthenticatedUserProvider;
+import com.ehr.util.RequestIdentityContext;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticatedUserProviderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StaffRepository staffRepository;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Spy
+    private RequestIdentityContext identityContext = new RequestIdentityContext();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AuthenticatedUserProvider authenticatedUserProvider;
+
+    @BeforeEach
+    void setUp() {
+        authenticatedUserProvider.init();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(JwtPrincipal principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    void shouldLoadPatientByTheIdInThePrincipal() {
+        // Arrange
+        authenticate(JwtPrincipal.forUser("patient@example.com", "USER", "user-uuid", 42L));
+        Patient patient = new Patient();
+        patient.setId(42L);
+        when(patientRepository.findById(42L)).thenReturn(Optional.of(patient));
+
+        // Act
+        Optional<Patient> loaded = authenticatedUserProvider.getAuthenticatedPatient();
+
+        // Assert
+        assertSame(patient, loaded.orElseThrow());
+        verify(patientRepository).findById(42L);
+        verifyNoInteractions(userRepository, staffRepository);
+    }
+
+    @Test
+    void shouldNotResolveStaffForPatientPrincipal() {
+        authenticate(JwtPrincipal.forUser("patient@example.com", "USER", "user-uuid", 42L));
+
+        Optional<Staff> staff = authenticatedUserProvider.getAuthenticatedStaff();
+
+        assertTrue(staff.isEmpty());
+        verifyNoInteractions(staffRepository);
+    }
+
+    @Test
+    void shouldLoadStaffByTheIdInThePrincipal() {
+        // Arrange
+        authenticate(JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L));
+        Staff staff = new Staff();
+        when(staffRepository.findById(7L)).thenReturn(Optional.of(staff));
+
+        // Act
+        Optional<Staff> loaded = authenticatedUserProvider.getAuthenticatedStaff();
+
+        // Assert
+        assertSame(staff, loaded.orElseThrow());
+        assertTrue(authenticatedUserProvider.getAuthenticatedUser().isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void shouldResolvePatientOncePerRequest() {
+        // Arrange
+        authenticate(JwtPrincipal.forUser("patient@example.com", "USER", "user-uuid", 42L));
+        Patient patient = new Patient();
+        patient.setId(42L);
+        when(patientRepository.findById(42L)).thenReturn(Optional.of(patient));
+
+        // Act
+        Optional<Patient> first = authenticatedUserProvider.getAuthenticatedPatient();
+        Optional<Patient> second = authenticatedUserProvider.getAuthenticatedPatient();
+        Optional<Patient> third = authenticatedUserProvider.getAuthenticatedPatient();
+
+        // Assert
+        assertSame(first.orElseThrow(), second.orElseThrow());
+        assertSame(first.orElseThrow(), third.orElseThrow());
+        verify(patientRepository, times(1)).findById(42L);
+        assertEquals(1.0, authenticatedUserProvider.getLookupsPerformed());
+        assertEquals(2.0, authenticatedUserProvider.getLookupsSaved());
+    }
+
+    @Test
+    void shouldReadThePrincipalOncePerRequest() {
+        // Arrange
+        JwtPrincipal doctor = JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L);
+        authenticate(doctor);
+
+        // Act: a later change to the security context is not seen within the same request
+        Optional<JwtPrincipal> first = authenticatedUserProvider.getStaffPrincipal();
+        SecurityContextHolder.clearContext();
+        Optional<JwtPrincipal> second = authenticatedUserProvider.getStaffPrincipal();
+
+        // Assert
+        assertSame(doctor, first.orElseThrow());
+        assertSame(doctor, second.orElseThrow());
+        assertTrue(authenticatedUserProvider.getUserPrincipal().isEmpty());
+        verify(identityContext, times(1)).put(eq(JwtPrincipal.class), any());
+    }
+
+    @Test
+    void shouldLoadEveryTimeOutsideARequest() {
+        // Arrange
+        RequestContextHolder.resetRequestAttributes();
+        authenticate(JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L));
+        when(staffRepository.findById(7L)).thenReturn(Optional.of(new Staff()));
+
+        // Act
+        authenticatedUserProvider.getAuthenticatedStaff();
+        authenticatedUserProvider.getAuthenticatedStaff();
+
+        // Assert
+        verify(staffRepository, times(2)).findById(7L);
+        verifyNoInteractions(identityContext);
+    }
+}
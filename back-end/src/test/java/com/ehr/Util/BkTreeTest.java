@@ -0,0 +1,61 @@
+package com.ehr.Util;
+
+import com.ehr.util.BkTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BkTreeTest {
+
+    @Test
+    void shouldFindExactlyTheTermsWithinTheRadius() {
+        // Arrange
+        Random random = new Random(11);
+        BkTree tree = new BkTree();
+        Set<String> terms = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            String term = randomTerm(random);
+            terms.add(term);
+            tree.add(term);
+        }
+
+        // Act & Assert
+        assertEquals(terms.size(), tree.size());
+        List<String> queries = new ArrayList<>(List.of("otieno", "wanjiku", "ka"));
+        for (int i = 0; i < 20; i++) {
+            queries.add(randomTerm(random));
+        }
+        for (String query : queries) {
+            for (int radius = 0; radius <= 2; radius++) {
+                int r = radius;
+                Set<String> expected = terms.stream().filter(t -> BkTree.distance(query, t) <= r).collect(Collectors.toCollection(TreeSet::new));
+                Set<String> found = tree.search(query, radius).stream().map(BkTree.Hit::term).collect(Collectors.toCollection(TreeSet::new));
+                assertEquals(expected, found, query + " within " + radius);
+            }
+        }
+    }
+
+    @Test
+    void shouldMeasureLevenshteinDistance() {
+        assertEquals(0, BkTree.distance("achieng", "achieng"));
+        assertEquals(1, BkTree.distance("wanjiku", "wanjku"));
+        assertEquals(2, BkTree.distance("otieno", "otenio"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+        assertEquals(4, BkTree.distance("", "mary"));
+    }
+
+    private static String randomTerm(Random random) {
+        StringBuilder term = new StringBuilder();
+        for (int i = 2 + random.nextInt(6); i > 0; i--) {
+            term.append("aeiknort".charAt(random.nextInt(8)));
+        }
+        return term.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ehr.Util;
+
+import com.ehr.util.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void shouldReadQuotedFieldsAcrossLines() throws IOException {
+        // Arrange
+        String input = "\uFEFFfirstName,lastName,address\r\n" +
+                "Achieng,Otieno,\"Plot 4, Kisumu\"\r\n" +
+                "\n" +
+                "\"Wanjiku\",\"Kamau \"\"Wa\"\"\",\"Line one\nLine two\"\n" +
+                "Ken,,";
+
+        // Act
+        List<List<String>> records = readAll(input);
+
+        // Assert
+        assertEquals(List.of(
+                List.of("firstName", "lastName", "address"),
+                List.of("Achieng", "Otieno", "Plot 4, Kisumu"),
+                List.of("Wanjiku", "Kamau \"Wa\"", "Line one\nLine two"),
+                List.of("Ken", "", "")), records);
+    }
+
+    @Test
+    void shouldReadRecordsLongerThanTheBuffer() throws IOException {
+        // Arrange
+        String address = "x".repeat(20_000);
+
+        // Act
+        List<List<String>> records = readAll("a,\"" + address + "\"\nb,c\n");
+
+        // Assert
+        assertEquals(List.of(List.of("a", address), List.of("b", "c")), records);
+    }
+
+    @Test
+    void shouldRejectAnUnterminatedQuote() throws IOException {
+        // Arrange
+        CsvReader reader = new CsvReader(new StringReader("a,\"b\nc"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, reader::next);
+    }
+
+    private static List<List<String>> readAll(String input) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(input))) {
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ehr.Util;
+
+import com.ehr.util.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void shouldFireEachTimeoutOnTheFirstTickAtOrAfterItsDeadline() {
+        // Arrange: 10 ms ticks, 8 buckets and 3 levels, so deadlines past 80 ms and 640 ms cascade
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 3, START);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = START + 1 + random.nextInt(10_000); // includes deadlines beyond the top level
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        // Act & Assert
+        int fired = 0;
+        for (long now = START; now <= START + 10_100; now += 10) {
+            for (Long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "fired early: " + deadline + " at " + now);
+                assertTrue(now - deadline < 10, "fired late: " + deadline + " at " + now);
+                fired++;
+            }
+        }
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldNotFireCancelledTimeouts() {
+        // Arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 64, 4, START);
+        HierarchicalTimingWheel<String>.Timeout kept = wheel.schedule("kept", START + 120_000);
+        HierarchicalTimingWheel<String>.Timeout dropped = wheel.schedule("dropped", START + 120_000);
+
+        // Act
+        assertTrue(wheel.cancel(dropped));
+        List<String> fired = wheel.advance(START + 120_000);
+
+        // Assert
+        assertEquals(List.of("kept"), fired);
+        assertFalse(kept.isPending());
+        assertFalse(wheel.cancel(dropped));
+    }
+
+    @Test
+    void shouldFireOverdueTimeoutsOnTheNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 64, 4, START);
+        wheel.schedule("overdue", START - 5_000);
+
+        assertTrue(wheel.advance(START + 50).isEmpty());
+        assertEquals(List.of("overdue"), wheel.advance(START + 100));
+    }
+}
@@ -0,0 +1,62 @@
+package com.ehr.Util;
+
+import com.ehr.util.IntFloatMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntFloatMapTest {
+
+    @Test
+    void shouldAgreeWithAHashMapAcrossGrowth() {
+        // Arrange
+        Random random = new Random(23);
+        IntFloatMap map = new IntFloatMap();
+        Map<Integer, Float> expected = new HashMap<>();
+
+        // Act: sparse and clustered keys, so probing runs and several resizes both happen
+        for (int i = 0; i < 5000; i++) {
+            int key = i % 3 == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(2000);
+            float value = random.nextFloat();
+            if (i % 2 == 0) {
+                map.add(key, value);
+                expected.merge(key, value, Float::sum);
+            } else {
+                map.max(key, value);
+                expected.merge(key, value, Math::max);
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), key.toString()));
+        int seen = 0;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            if (map.keyAt(slot) >= 0) {
+                assertEquals(expected.get(map.keyAt(slot)), map.valueAt(slot));
+                seen++;
+            }
+        }
+        assertEquals(expected.size(), seen);
+    }
+
+    @Test
+    void shouldReadAbsentAndClearedKeysAsZero() {
+        // Arrange
+        IntFloatMap map = new IntFloatMap();
+        map.max(7, 0.5f);
+
+        // Act
+        map.clear();
+
+        // Assert
+        assertEquals(0, map.size());
+        assertEquals(0f, map.get(7));
+        assertEquals(0f, map.get(8));
+        assertThrows(IllegalArgumentException.class, () -> map.add(-1, 1f));
+    }
+}
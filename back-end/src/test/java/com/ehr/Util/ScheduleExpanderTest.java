@@ -0,0 +1,72 @@
+package com.ehr.Util;
+
+import com.ehr.dto.SlotTimeRangeDto;
+import com.ehr.models.ScheduleTemplate;
+import com.ehr.util.ScheduleExpander;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleExpanderTest {
+
+    // 2030-01-07 is a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    private ScheduleTemplate weekdayMornings() {
+        ScheduleTemplate template = new ScheduleTemplate();
+        template.setDaysOfWeek(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+        template.setStartTime(LocalTime.of(8, 0));
+        template.setEndTime(LocalTime.of(12, 0));
+        template.setSlotMinutes(15);
+        template.setSkipHolidays(true);
+        template.setValidFrom(MONDAY);
+        return template;
+    }
+
+    @Test
+    void shouldExpandWeekdaysIntoFixedLengthSlots() {
+        List<SlotTimeRangeDto> slots = ScheduleExpander.expand(
+                weekdayMornings(), MONDAY, MONDAY.plusDays(6), Set.of(), null);
+
+        // 5 weekdays x 16 quarter-hours, nothing on the weekend
+        assertEquals(80, slots.size());
+        assertEquals(MONDAY.atTime(8, 0), slots.get(0).getStartTime());
+        assertEquals(MONDAY.atTime(8, 15), slots.get(0).getEndTime());
+        assertEquals(MONDAY.plusDays(4).atTime(11, 45), slots.get(79).getStartTime());
+        assertTrue(slots.stream().noneMatch(s -> s.getStartTime().getDayOfWeek() == DayOfWeek.SATURDAY));
+    }
+
+    @Test
+    void shouldSkipHolidaysOnlyWhenAsked() {
+        ScheduleTemplate template = weekdayMornings();
+        Set<LocalDate> holidays = Set.of(MONDAY);
+
+        assertEquals(0, ScheduleExpander.expand(template, MONDAY, MONDAY, holidays, null).size());
+
+        template.setSkipHolidays(false);
+        assertEquals(16, ScheduleExpander.expand(template, MONDAY, MONDAY, holidays, null).size());
+    }
+
+    @Test
+    void shouldRespectValidityWindowAndNotBefore() {
+        ScheduleTemplate template = weekdayMornings();
+        template.setSlotMinutes(50); // 08:00, 08:50, 09:40, 10:30; 11:20-12:10 does not fit
+        template.setValidUntil(MONDAY.plusDays(1));
+        LocalDateTime notBefore = MONDAY.atTime(9, 0);
+
+        List<SlotTimeRangeDto> slots = ScheduleExpander.expand(template, MONDAY.minusDays(7), MONDAY.plusDays(7), Set.of(), notBefore);
+
+        assertEquals(2 + 4, slots.size());
+        assertEquals(MONDAY.atTime(9, 40), slots.get(0).getStartTime());
+        assertEquals(MONDAY.plusDays(1).atTime(10, 30), slots.get(5).getStartTime());
+    }
+}
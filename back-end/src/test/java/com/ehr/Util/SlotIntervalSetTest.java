@@ -0,0 +1,61 @@
+package com.ehr.Util;
+
+import com.ehr.dto.SlotConflictDto;
+import com.ehr.dto.SlotTimeRangeDto;
+import com.ehr.util.SlotIntervalSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotIntervalSetTest {
+
+    private final LocalDateTime nine = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private SlotIntervalSet intervals;
+
+    @BeforeEach
+    void setUp() {
+        intervals = new SlotIntervalSet();
+        intervals.add(nine, nine.plusMinutes(30), 1L);
+        intervals.add(nine.plusHours(1), nine.plusHours(2), 2L);
+    }
+
+    @Test
+    void shouldTreatTouchingRangesAsFree() {
+        assertFalse(intervals.overlaps(nine.plusMinutes(30), nine.plusHours(1)));
+        assertFalse(intervals.overlaps(nine.minusMinutes(30), nine));
+        assertTrue(intervals.overlaps(nine.plusMinutes(15), nine.plusMinutes(45)));
+        assertTrue(intervals.overlaps(nine.minusHours(1), nine.plusHours(3)));
+    }
+
+    @Test
+    void shouldListEveryStoredSlotInsideARange() {
+        assertEquals(List.of(1L, 2L), intervals.overlapping(nine.plusMinutes(10), nine.plusMinutes(90)));
+        assertEquals(List.of(), intervals.overlapping(nine.plusMinutes(30), nine.plusMinutes(60)));
+    }
+
+    @Test
+    void shouldReportConflictsWithStoredSlotsAndWithinTheRequest() {
+        // Arrange
+        List<SlotTimeRangeDto> requested = List.of(
+                new SlotTimeRangeDto(nine.plusHours(3), nine.plusHours(4)),                       // 0: free
+                new SlotTimeRangeDto(nine.plusMinutes(15), nine.plusMinutes(45)),                 // 1: hits slot 1
+                new SlotTimeRangeDto(nine.plusHours(3).plusMinutes(30), nine.plusHours(5)),       // 2: hits range 0
+                new SlotTimeRangeDto(nine.plusHours(3).plusMinutes(45), nine.plusHours(3).plusMinutes(50))); // 3: hits ranges 0 and 2
+
+        // Act
+        List<SlotConflictDto> conflicts = intervals.findConflicts(requested);
+
+        // Assert
+        assertEquals(4, conflicts.size());
+        assertEquals(1, conflicts.get(0).getIndex());
+        assertEquals(1L, conflicts.get(0).getConflictingSlotId());
+        assertEquals(2, conflicts.get(1).getIndex());
+        assertEquals(0, conflicts.get(1).getConflictingIndex());
+        assertEquals(List.of(0, 2), conflicts.subList(2, 4).stream().map(SlotConflictDto::getConflictingIndex).sorted().toList());
+    }
+}
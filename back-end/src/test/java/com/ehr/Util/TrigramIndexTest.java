@@ -0,0 +1,73 @@
+package com.ehr.Util;
+
+import com.ehr.util.TrigramIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void shouldReturnEveryDocumentContainingTheTermAmongTheCandidates() {
+        // Arrange
+        Random random = new Random(7);
+        TrigramIndex index = new TrigramIndex(2);
+        String[][] documents = new String[400][];
+        for (int id = 0; id < documents.length; id++) {
+            documents[id] = new String[]{randomText(random), random.nextInt(5) == 0 ? null : randomText(random)};
+            index.put(id, documents[id]);
+        }
+
+        // Act & Assert
+        for (String term : List.of("ab", "abc", "BCA", "caab", "aaaa", "cbcbc")) {
+            String folded = TrigramIndex.foldCase(term);
+            List<Integer> candidates = candidates(index, folded);
+            assertEquals(candidates.stream().sorted().toList(), candidates, "candidates must come in id order");
+            for (int id = 0; id < documents.length; id++) {
+                boolean contains = false;
+                for (String field : documents[id]) {
+                    contains |= field != null && TrigramIndex.foldCase(field).contains(folded);
+                }
+                if (contains) {
+                    assertTrue(candidates.contains(id), term + " in document " + id);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldForgetTheOldFieldsOfAReplacedDocument() {
+        // Arrange
+        TrigramIndex index = new TrigramIndex(2);
+        index.put(5, "Wanjiru", "Otieno");
+        index.put(9, "Akinyi", "Otieno");
+
+        // Act
+        index.put(5, "Wanjiru", "Kamau");
+
+        // Assert
+        assertEquals(List.of(9), candidates(index, "otieno"));
+        assertEquals(List.of(5), candidates(index, "kamau"));
+        assertTrue(index.remove(9));
+        assertTrue(candidates(index, "otieno").isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private static List<Integer> candidates(TrigramIndex index, String term) {
+        List<Integer> ids = new ArrayList<>();
+        index.forEachCandidate(term, ids::add);
+        return ids;
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(12); i > 0; i--) {
+            text.append("abcABC".charAt(random.nextInt(6)));
+        }
+        return text.toString();
+    }
+}
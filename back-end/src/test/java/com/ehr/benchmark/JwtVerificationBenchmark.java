@@ -0,0 +1,82 @@
+package com.ehr.benchmark;
+
+import com.ehr.models.Staff;
+import com.ehr.security.JwtPrincipal;
+import com.ehr.service.JwtTokenProvider;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verified per second by the request filter, before and after the single-parse pipeline.
+ *
+ * Not part of the surefire run; after {@code mvn test-compile} launch {@link #main} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "0e7d5a5f9b1c7a8b3e2d6f0c4a9b8e1f5d7c3b9e8f1a0d2c6b4e8f9c1a0b3d5e";
+
+    private JwtTokenProvider provider;
+    private Cache<?, ?> verifiedTokens;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpiration", 3600000L);
+        provider.init();
+        verifiedTokens = (Cache<?, ?>) ReflectionTestUtils.getField(provider, "verifiedTokens");
+        token = provider.generateToken(JwtPrincipal.forStaff("DR001", Staff.Role.DOCTOR, 7L));
+    }
+
+    /** Previous filter behaviour: validate, then parse again for the subject, new key and parser each time. */
+    @Benchmark
+    public String legacyDoubleParse() {
+        legacyParse(token);
+        return legacyParse(token).getSubject();
+    }
+
+    /** The filter's path for a token it has not verified yet: cached key and parser, one signature check. */
+    @Benchmark
+    public JwtPrincipal singleParse() {
+        verifiedTokens.invalidateAll();
+        return provider.verifyToken(token).orElseThrow();
+    }
+
+    /** The filter's path for a repeat request with a token that was already verified. */
+    @Benchmark
+    public JwtPrincipal verifiedCacheHit() {
+        return provider.verifyToken(token).orElseThrow();
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,25 @@
+-- The appointment tables as the first release created them on PostgreSQL (ddl-auto=update),
+-- with the one type H2 lacks (oid for @Lob) written as clob
+create table appointment_slots (
+    id bigint generated by default as identity,
+    created_at timestamp(6),
+    doctor_id bigint not null,
+    end_time timestamp(6) not null,
+    start_time timestamp(6) not null,
+    status varchar(255) not null check (status in ('AVAILABLE','BOOKED','CANCELLED')),
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table appointments (
+    id bigint generated by default as identity,
+    created_at timestamp(6),
+    doctor_notes clob,
+    notes clob,
+    patient_id bigint not null,
+    slot_id bigint not null unique,
+    status varchar(255) not null check (status in ('SCHEDULED','COMPLETED','CANCELLED','NO_SHOW')),
+    type varchar(255) check (type in ('ONLINE','WALK_IN')),
+    updated_at timestamp(6),
+    primary key (id)
+);